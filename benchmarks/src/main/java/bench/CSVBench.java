@@ -0,0 +1,97 @@
+package bench;
+
+import models.Cultivo;
+import models.Parcela;
+import org.openjdk.jmh.annotations.*;
+import utils.CSVHandler;
+import utils.LoteImportado;
+import utils.Temporada;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/** Lectura, escritura y unión de actividades sobre los CSV generados. */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+@State(Scope.Benchmark)
+public class CSVBench {
+
+    private List<Cultivo> cultivos;
+    private List<Cultivo> vinculados;   // sólo para vincularActividades, que los modifica
+    private Map<String, Parcela> parcelas;
+    private String salida;
+    private String salidaZip;
+    private String temporada;
+
+    @Setup(Level.Trial)
+    public void cargar(Datos d) throws IOException {
+        cultivos = CSVHandler.leerCultivos(d.cultivos());
+        vinculados = CSVHandler.leerCultivos(d.cultivos());
+        parcelas = new HashMap<>();
+        for (Parcela p : CSVHandler.leerParcelas(d.parcelas())) parcelas.put(p.getCodigo(), p);
+        salida = new File(d.dir, "salida.csv").getPath();
+        salidaZip = new File(d.dir, "salida.zip").getPath();
+        temporada = new File(d.dir, "temporada.zip").getPath();
+        CSVHandler.guardarTemporada(temporada, parcelas.values(), cultivos);
+    }
+
+    @Benchmark
+    public List<Cultivo> leerCultivos(Datos d) throws IOException {
+        return CSVHandler.leerCultivos(d.cultivos());
+    }
+
+    @Benchmark
+    public List<Cultivo> leerCultivosParalelo(Datos d) throws IOException {
+        return CSVHandler.leerCultivosParalelo(d.cultivos());
+    }
+
+    @Benchmark
+    public List<Parcela> leerParcelas(Datos d) {
+        return CSVHandler.leerParcelas(d.parcelas());
+    }
+
+    @Benchmark
+    public void guardarCultivos() throws IOException {
+        CSVHandler.guardarCultivos(cultivos, salida);
+    }
+
+    @Benchmark
+    public void guardarActividades() throws IOException {
+        CSVHandler.guardarActividades(salida, cultivos);
+    }
+
+    /**
+     * Lee actividades.csv y reemplaza las actividades de cada cultivo (unión
+     * por id de cultivo). Sobre una copia propia: los demás benchmarks siguen
+     * escribiendo los segmentos crudos de cultivos.csv, no actividades ya
+     * decodificadas.
+     */
+    @Benchmark
+    public List<Cultivo> vincularActividades(Datos d) throws IOException {
+        CSVHandler.vincularActividades(d.actividades(), vinculados);
+        return vinculados;
+    }
+
+    @Benchmark
+    public void guardarTemporada() throws IOException {
+        CSVHandler.guardarTemporada(salidaZip, parcelas.values(), cultivos);
+    }
+
+    /** Los tres CSV descomprimidos en streaming desde el zip. */
+    @Benchmark
+    public Temporada leerTemporada() throws IOException {
+        return CSVHandler.leerTemporada(temporada);
+    }
+
+    @Benchmark
+    public LoteImportado leerLote(Datos d) throws IOException {
+        return CSVHandler.leerLote(d.cultivos(), d.actividades(), parcelas::get);
+    }
+}
@@ -0,0 +1,86 @@
+package bench;
+
+import models.Actividad;
+import models.Cultivo;
+import models.EstadoCultivo;
+import org.openjdk.jmh.annotations.*;
+import services.ActividadService;
+import services.Agrupacion;
+import services.CultivoService;
+import services.ResumenGrupo;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.concurrent.TimeUnit;
+
+/** Búsquedas, reportes y consultas de agenda sobre los servicios ya cargados. */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+@State(Scope.Benchmark)
+public class ConsultaBench {
+
+    private static final LocalDate DESDE = LocalDate.of(2022, 3, 1);
+    private static final LocalDate HASTA = LocalDate.of(2022, 3, 31);
+    private static final LocalDate HOY   = LocalDate.of(2022, 6, 1);
+
+    private CultivoService cs;
+    private ActividadService as;
+
+    @Setup(Level.Trial)
+    public void cargar(Datos d) {
+        cs = new CultivoService(d.generador.getCultivos());
+        as = new ActividadService(cs);
+    }
+
+    @Benchmark
+    public List<Cultivo> buscarPorNombreOVariedad() {
+        return cs.buscarPorNombreOVariedad("var 3");
+    }
+
+    @Benchmark
+    public List<Cultivo> buscarSubcadena() {
+        return cs.buscarSubcadena("mate");
+    }
+
+    @Benchmark
+    public List<Cultivo> reportePorEstado() {
+        return cs.reportePorEstado(EstadoCultivo.EN_RIESGO);
+    }
+
+    @Benchmark
+    public Map<String, Double> superficiePorParcela() {
+        return cs.superficiePorParcela();
+    }
+
+    @Benchmark
+    public List<ResumenGrupo> agrupar(Criterio c) {
+        return cs.agrupar(c.agrupacion);
+    }
+
+    @Benchmark
+    public List<Actividad> pendientesEntre() {
+        return as.pendientesEntre(DESDE, HASTA);
+    }
+
+    @Benchmark
+    public List<Actividad> vencidas() {
+        return as.vencidas(HOY);
+    }
+
+    @Benchmark
+    public SortedMap<LocalDate, Integer> cargaPorDia() {
+        return as.cargaPorDia(DESDE, HASTA);
+    }
+
+    /** Sólo {@link #agrupar} recorre los criterios de agrupación. */
+    @State(Scope.Benchmark)
+    public static class Criterio {
+        @Param({"PARCELA", "VARIEDAD", "MES"})
+        public Agrupacion agrupacion;
+    }
+}
@@ -0,0 +1,42 @@
+package bench;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+/**
+ * Directorio temporal con los CSV generados para la escala y el sesgo de la
+ * corrida. Se crea una vez por trial y se borra al terminar.
+ */
+@State(Scope.Benchmark)
+public class Datos {
+
+    @Param({"10", "100"})
+    public int escala;
+
+    @Param({"0.0", "1.0"})
+    public double sesgo;
+
+    public GeneradorDatos generador;
+    public File dir;
+
+    public String cultivos()    { return new File(dir, "cultivos.csv").getPath(); }
+    public String parcelas()    { return new File(dir, "parcelas.csv").getPath(); }
+    public String actividades() { return new File(dir, "actividades.csv").getPath(); }
+
+    @Setup(Level.Trial)
+    public void generar() throws IOException {
+        dir = Files.createTempDirectory("app2-bench").toFile();
+        generador = new GeneradorDatos(escala, sesgo, GeneradorDatos.SEMILLA);
+        generador.escribir(dir);
+    }
+
+    @TearDown(Level.Trial)
+    public void borrar() {
+        File[] archivos = dir.listFiles();
+        if (archivos != null) for (File f : archivos) f.delete();
+        dir.delete();
+    }
+}
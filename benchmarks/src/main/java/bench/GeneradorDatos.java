@@ -0,0 +1,146 @@
+package bench;
+
+import models.Actividad;
+import models.Cultivo;
+import models.EstadoCultivo;
+import models.Parcela;
+import utils.CSVHandler;
+
+import java.io.File;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.SplittableRandom;
+
+/**
+ * Genera cultivos.csv, parcelas.csv y actividades.csv sintéticos.
+ *
+ * Con la misma escala, sesgo y semilla los archivos son idénticos byte a
+ * byte, de modo que dos corridas de benchmarks miden exactamente los mismos
+ * datos. La escala 1 equivale a 1.000 cultivos sobre 50 parcelas; el sesgo
+ * es el exponente Zipf con que se reparten parcelas y variedades (0 =
+ * uniforme, 1 = unas pocas parcelas concentran la mayoría de los cultivos).
+ *
+ * Uso: {@code java -cp target/benchmarks.jar bench.GeneradorDatos <dir> [escala] [sesgo] [semilla]}
+ */
+public final class GeneradorDatos {
+
+    public static final long SEMILLA = 20240501L;
+
+    private static final String[] ESPECIES = {
+        "Maíz", "Trigo", "Tomate", "Papa", "Uva", "Lechuga", "Cebolla", "Zanahoria",
+        "Palta", "Manzana", "Cereza", "Arándano", "Poroto", "Avena", "Cebada", "Frutilla"
+    };
+    private static final String[] ZONAS = {
+        "Talca", "Curicó", "Rancagua", "Chillán", "Linares", "San Fernando", "Los Ángeles", "Osorno"
+    };
+    private static final LocalDate INICIO = LocalDate.of(2020, 1, 1);
+    private static final int DIAS = 4 * 365;
+
+    private final int escala;
+    private final double sesgo;
+    private final long semilla;
+
+    private List<Parcela> parcelas;
+    private List<Cultivo> cultivos;
+
+    public GeneradorDatos(int escala, double sesgo, long semilla) {
+        if (escala < 1) throw new IllegalArgumentException("escala debe ser >= 1");
+        if (sesgo < 0) throw new IllegalArgumentException("sesgo debe ser >= 0");
+        this.escala = escala;
+        this.sesgo = sesgo;
+        this.semilla = semilla;
+    }
+
+    public int cantidadCultivos()  { return escala * 1_000; }
+    public int cantidadParcelas()  { return escala * 50; }
+    public int cantidadVariedades() { return 20 + escala * 5; }
+
+    public List<Parcela> getParcelas() { generar(); return parcelas; }
+    public List<Cultivo> getCultivos() { generar(); return cultivos; }
+
+    /** Escribe los tres CSV en {@code dir} (que se crea si no existe). */
+    public void escribir(File dir) throws IOException {
+        generar();
+        if (!dir.isDirectory() && !dir.mkdirs()) throw new IOException("no se pudo crear " + dir);
+        CSVHandler.guardarParcelas(parcelas, new File(dir, "parcelas.csv").getPath());
+        CSVHandler.guardarCultivos(cultivos, new File(dir, "cultivos.csv").getPath());
+        CSVHandler.guardarActividades(new File(dir, "actividades.csv").getPath(), cultivos);
+    }
+
+    private void generar() {
+        if (cultivos != null) return;
+        SplittableRandom rnd = new SplittableRandom(semilla);
+
+        parcelas = new ArrayList<>(cantidadParcelas());
+        for (int i = 0; i < cantidadParcelas(); i++) {
+            double area = 5 + rnd.nextInt(19_500) / 100.0;
+            parcelas.add(new Parcela(String.format("PARCELA-%05d", i), area,
+                                     ZONAS[rnd.nextInt(ZONAS.length)] + ", Chile"));
+        }
+
+        double[] zipfParcelas = zipf(parcelas.size());
+        double[] zipfVariedades = zipf(cantidadVariedades());
+        EstadoCultivo[] estados = EstadoCultivo.values();
+        Actividad.Tipo[] tipos = Actividad.Tipo.values();
+
+        cultivos = new ArrayList<>(cantidadCultivos());
+        for (int i = 0; i < cantidadCultivos(); i++) {
+            String especie = ESPECIES[rnd.nextInt(ESPECIES.length)];
+            // nombres únicos: facilitan comparar salidas entre corridas
+            String nombre = especie + " " + i;
+            String variedad = "Var " + muestra(zipfVariedades, rnd);
+            Parcela p = parcelas.get(muestra(zipfParcelas, rnd));
+            double sup = 0.5 + rnd.nextInt(9_950) / 100.0;
+            LocalDate siembra = INICIO.plusDays(rnd.nextInt(DIAS));
+            EstadoCultivo estado = estados[rnd.nextInt(estados.length)];
+
+            Cultivo c = new Cultivo(nombre, variedad, sup, p, siembra, estado);
+            int n = rnd.nextInt(5);   // 0..4 actividades, 2 en promedio
+            for (int k = 0; k < n; k++) {
+                Actividad a = new Actividad(tipos[rnd.nextInt(tipos.length)],
+                                            siembra.plusDays(rnd.nextInt(240)));
+                if (rnd.nextInt(3) == 0) a.setCompletada(true);
+                c.addActividad(a);
+            }
+            p.addCultivo(c);
+            cultivos.add(c);
+        }
+    }
+
+    /** Distribución acumulada Zipf de {@code n} elementos con exponente {@link #sesgo}. */
+    private double[] zipf(int n) {
+        double[] acum = new double[n];
+        double s = 0;
+        for (int k = 0; k < n; k++) {
+            s += 1 / Math.pow(k + 1, sesgo);
+            acum[k] = s;
+        }
+        for (int k = 0; k < n; k++) acum[k] /= s;
+        return acum;
+    }
+
+    private static int muestra(double[] acum, SplittableRandom rnd) {
+        int i = Arrays.binarySearch(acum, rnd.nextDouble());
+        return Math.min(i < 0 ? -i - 1 : i, acum.length - 1);
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Uso: GeneradorDatos <dir> [escala=100] [sesgo=0.8] [semilla]");
+            System.exit(1);
+        }
+        File dir = new File(args[0]);
+        int escala = args.length > 1 ? Integer.parseInt(args[1]) : 100;
+        double sesgo = args.length > 2 ? Double.parseDouble(args[2]) : 0.8;
+        long semilla = args.length > 3 ? Long.parseLong(args[3]) : SEMILLA;
+
+        GeneradorDatos g = new GeneradorDatos(escala, sesgo, semilla);
+        g.escribir(dir);
+        System.out.printf(Locale.US, "%d cultivos, %d parcelas (sesgo %.2f, semilla %d) en %s%n",
+                g.cantidadCultivos(), g.cantidadParcelas(), sesgo, semilla, dir.getAbsolutePath());
+    }
+}
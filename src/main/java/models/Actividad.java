@@ -1,24 +1,91 @@
 package models;
 
+import javafx.beans.property.ReadOnlyBooleanProperty;
+import javafx.beans.property.ReadOnlyBooleanWrapper;
+import javafx.beans.property.ReadOnlyStringProperty;
+import javafx.beans.property.ReadOnlyStringWrapper;
+
 import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
 
 public class Actividad implements ElementoAgricola {
     public enum Tipo { RIEGO, FERTILIZACION, COSECHA, FUMIGACION; }
 
+    // ids > 0 nuevos o leídos (cada id leído adelanta el contador); < 0 para
+    // filas de archivos sin ids: -(posición + 1) dentro del cultivo, el mismo
+    // en cada carga del mismo archivo. Sólo identifican dentro del cultivo.
+    private static final AtomicLong SIGUIENTE_ID = new AtomicLong(1);
+
+    private final long id;
     private Tipo tipo;
-    private LocalDate fecha;
+    private final int dia;   // fecha como epoch-day
     private boolean completada;
 
+    // Propiedades observables de sólo lectura: se crean al primer uso, quedan
+    // en caché y se actualizan en el hilo de JavaFX
+    private volatile ReadOnlyBooleanWrapper completadaProp;
+    private volatile ReadOnlyStringWrapper estadoProp;
+
     public Actividad(Tipo tipo, LocalDate fecha) {
+        this(tipo, (int) fecha.toEpochDay());
+    }
+
+    /** Con la fecha como epoch-day (así la interpreta el lector de CSV). */
+    public Actividad(Tipo tipo, int dia) {
+        this(SIGUIENTE_ID.getAndIncrement(), tipo, dia);
+    }
+
+    /** Con un id ya persistido (ver {@link #idPorPosicion} para archivos sin ids). */
+    public Actividad(long id, Tipo tipo, int dia) {
+        if (id == 0) throw new IllegalArgumentException("id de actividad 0");
+        if (id > 0) SIGUIENTE_ID.accumulateAndGet(id + 1, Math::max);
+        this.id = id;
         this.tipo = tipo;
-        this.fecha = fecha;
+        this.dia = dia;
         this.completada = false;
     }
 
+    /** Identificador estable dentro del cultivo; el journal lo usa en vez de la posición. */
+    public long getId() { return id; }
+
+    /** Id de la actividad en la posición {@code posicion} de un cultivo leído sin ids. */
+    public static long idPorPosicion(int posicion) {
+        return -(posicion + 1L);
+    }
+
+    /** La actividad con ese id en {@code actividades}, o null. */
+    public static Actividad buscar(List<Actividad> actividades, long id) {
+        for (Actividad a : actividades) if (a.id == id) return a;
+        return null;
+    }
+
     public Tipo getTipo() { return tipo; }
-    public LocalDate getFecha() { return fecha; }
+    public LocalDate getFecha() { return LocalDate.ofEpochDay(dia); }
+    /** Fecha como epoch-day, sin crear un LocalDate. */
+    public int getDia() { return dia; }
     public boolean isCompletada() { return completada; }
-    public void setCompletada(boolean completada) { this.completada = completada; }
+
+    public void setCompletada(boolean completada) {
+        this.completada = completada;
+        if (completadaProp != null || estadoProp != null) HiloFx.ejecutar(this::publicar);
+    }
+
+    private void publicar() {
+        if (completadaProp != null) completadaProp.set(completada);
+        if (estadoProp != null) estadoProp.set(getEstado());
+    }
+
+    public ReadOnlyBooleanProperty completadaProperty() {
+        if (completadaProp == null) completadaProp = new ReadOnlyBooleanWrapper(this, "completada", completada);
+        return completadaProp.getReadOnlyProperty();
+    }
+
+    /** "COMPLETADA" / "PENDIENTE", actualizado con cada cambio de estado. */
+    public ReadOnlyStringProperty estadoProperty() {
+        if (estadoProp == null) estadoProp = new ReadOnlyStringWrapper(this, "estado", getEstado());
+        return estadoProp.getReadOnlyProperty();
+    }
 
     @Override
     public String getNombre() { return tipo.name(); }
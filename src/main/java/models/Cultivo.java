@@ -1,17 +1,42 @@
 package models;
 
+import javafx.beans.property.*;
+
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
 
 public class Cultivo implements ElementoAgricola {
+    // ids > 0; cada id leído de un archivo adelanta el contador para no repetirlo
+    private static final AtomicLong SIGUIENTE_ID = new AtomicLong(1);
+
+    private long id;                // 0 = pendiente (fila de un CSV sin id)
     private String nombre;
     private String variedad;
     private double superficie;
     private Parcela parcela;
-    private LocalDate fechaSiembra;
+    private int diaSiembra;   // epoch-day
     private EstadoCultivo estado;
-    private List<Actividad> actividades;
+    private volatile List<Actividad> actividades;   // null mientras el segmento CSV no se decodifica
+
+    // Segmento ["TIPO:fecha:ESTADO",...] tal como venía en cultivos.csv; se
+    // decodifica al primer acceso a las actividades. Los conteos se toman al
+    // leerlo, para las columnas de reportes
+    private String actividadesCsv;
+    private Function<String, List<Actividad>> decodificador;
+    private int crudas, crudasCompletadas;
+
+    // Propiedades observables de sólo lectura (los cambios pasan por los
+    // setters, que llaman los servicios): se crean al primer uso, quedan en
+    // caché y se actualizan en el hilo de JavaFX
+    private volatile ReadOnlyStringWrapper nombreProp;
+    private volatile ReadOnlyStringWrapper variedadProp;
+    private volatile ReadOnlyDoubleWrapper superficieProp;
+    private volatile ReadOnlyObjectWrapper<Parcela> parcelaProp;
+    private volatile ReadOnlyObjectWrapper<LocalDate> fechaSiembraProp;
+    private volatile ReadOnlyObjectWrapper<EstadoCultivo> estadoProp;
 
     public Cultivo(String nombre,
                    String variedad,
@@ -19,15 +44,55 @@ public class Cultivo implements ElementoAgricola {
                    Parcela parcela,
                    LocalDate fechaSiembra,
                    EstadoCultivo estado) {
+        this(SIGUIENTE_ID.getAndIncrement(), nombre, variedad, superficie, parcela, fechaSiembra, estado);
+    }
+
+    /** Cultivo con un id ya persistido (0 = asignarlo después con {@link #asignarIdSiFalta()}). */
+    public Cultivo(long id,
+                   String nombre,
+                   String variedad,
+                   double superficie,
+                   Parcela parcela,
+                   LocalDate fechaSiembra,
+                   EstadoCultivo estado) {
+        this(id, nombre, variedad, superficie, parcela, (int) fechaSiembra.toEpochDay(), estado);
+    }
+
+    /** Con la fecha de siembra como epoch-day (así la interpreta el lector de CSV). */
+    public Cultivo(long id,
+                   String nombre,
+                   String variedad,
+                   double superficie,
+                   Parcela parcela,
+                   int diaSiembra,
+                   EstadoCultivo estado) {
+        if (id < 0) throw new IllegalArgumentException("id negativo: " + id);
+        if (id > 0) SIGUIENTE_ID.accumulateAndGet(id + 1, Math::max);
+        this.id = id;
         this.nombre = nombre;
         this.variedad = variedad;
         this.superficie = superficie;
         this.parcela = parcela;
-        this.fechaSiembra = fechaSiembra;
+        this.diaSiembra = diaSiembra;
         this.estado = estado;
         this.actividades = new ArrayList<>();
     }
 
+    /** Identificador estable: se guarda en todos los CSV y no cambia al editar. */
+    public long getId() {
+        return id;
+    }
+
+    /** Asigna un id nuevo si el cultivo no tenía (CSV antiguo). */
+    public void asignarIdSiFalta() {
+        if (id == 0) id = SIGUIENTE_ID.getAndIncrement();
+    }
+
+    /** Cambia el id por uno nuevo (p. ej. si el archivo traía un id repetido). */
+    public void reasignarId() {
+        id = SIGUIENTE_ID.getAndIncrement();
+    }
+
     @Override
     public String getNombre() {
         return nombre;
@@ -35,6 +100,12 @@ public class Cultivo implements ElementoAgricola {
 
     public void setNombre(String nombre) {
         this.nombre = nombre;
+        if (nombreProp != null) HiloFx.ejecutar(() -> nombreProp.set(this.nombre));
+    }
+
+    public ReadOnlyStringProperty nombreProperty() {
+        if (nombreProp == null) nombreProp = new ReadOnlyStringWrapper(this, "nombre", nombre);
+        return nombreProp.getReadOnlyProperty();
     }
 
     public String getVariedad() {
@@ -43,6 +114,12 @@ public class Cultivo implements ElementoAgricola {
 
     public void setVariedad(String variedad) {
         this.variedad = variedad;
+        if (variedadProp != null) HiloFx.ejecutar(() -> variedadProp.set(this.variedad));
+    }
+
+    public ReadOnlyStringProperty variedadProperty() {
+        if (variedadProp == null) variedadProp = new ReadOnlyStringWrapper(this, "variedad", variedad);
+        return variedadProp.getReadOnlyProperty();
     }
 
     public double getSuperficie() {
@@ -51,6 +128,12 @@ public class Cultivo implements ElementoAgricola {
 
     public void setSuperficie(double superficie) {
         this.superficie = superficie;
+        if (superficieProp != null) HiloFx.ejecutar(() -> superficieProp.set(this.superficie));
+    }
+
+    public ReadOnlyDoubleProperty superficieProperty() {
+        if (superficieProp == null) superficieProp = new ReadOnlyDoubleWrapper(this, "superficie", superficie);
+        return superficieProp.getReadOnlyProperty();
     }
 
     public Parcela getParcela() {
@@ -59,19 +142,38 @@ public class Cultivo implements ElementoAgricola {
 
     public void setParcela(Parcela parcela) {
         this.parcela = parcela;
+        if (parcelaProp != null) HiloFx.ejecutar(() -> parcelaProp.set(this.parcela));
+    }
+
+    public ReadOnlyObjectProperty<Parcela> parcelaProperty() {
+        if (parcelaProp == null) parcelaProp = new ReadOnlyObjectWrapper<>(this, "parcela", parcela);
+        return parcelaProp.getReadOnlyProperty();
     }
 
     @Override
     public LocalDate getFecha() {
-        return fechaSiembra;
+        return getFechaSiembra();
     }
 
     public LocalDate getFechaSiembra() {
-        return fechaSiembra;
+        return LocalDate.ofEpochDay(diaSiembra);
+    }
+
+    /** Fecha de siembra como epoch-day, sin crear un LocalDate. */
+    public int getDiaSiembra() {
+        return diaSiembra;
     }
 
     public void setFechaSiembra(LocalDate fechaSiembra) {
-        this.fechaSiembra = fechaSiembra;
+        this.diaSiembra = (int) fechaSiembra.toEpochDay();
+        if (fechaSiembraProp != null) HiloFx.ejecutar(() -> fechaSiembraProp.set(getFechaSiembra()));
+    }
+
+    public ReadOnlyObjectProperty<LocalDate> fechaSiembraProperty() {
+        if (fechaSiembraProp == null) {
+            fechaSiembraProp = new ReadOnlyObjectWrapper<>(this, "fechaSiembra", getFechaSiembra());
+        }
+        return fechaSiembraProp.getReadOnlyProperty();
     }
 
     /**
@@ -91,25 +193,80 @@ public class Cultivo implements ElementoAgricola {
 
     public void setEstado(EstadoCultivo estado) {
         this.estado = estado;
+        if (estadoProp != null) HiloFx.ejecutar(() -> estadoProp.set(this.estado));
+    }
+
+    public ReadOnlyObjectProperty<EstadoCultivo> estadoProperty() {
+        if (estadoProp == null) estadoProp = new ReadOnlyObjectWrapper<>(this, "estado", estado);
+        return estadoProp.getReadOnlyProperty();
     }
 
     public List<Actividad> getActividades() {
+        List<Actividad> l = actividades;
+        return l != null ? l : decodificar();
+    }
+
+    private synchronized List<Actividad> decodificar() {
+        if (actividades == null) {
+            actividades = new ArrayList<>(decodificador.apply(actividadesCsv));
+            actividadesCsv = null;
+            decodificador = null;
+        }
         return actividades;
     }
 
+    /** Cantidad de actividades, sin decodificar el segmento pendiente. */
+    public synchronized int contarActividades() {
+        return actividades != null ? actividades.size() : crudas;
+    }
+
+    /** Cantidad de actividades completadas, sin decodificar el segmento pendiente. */
+    public synchronized int contarCompletadas() {
+        if (actividades == null) return crudasCompletadas;
+        int n = 0;
+        for (Actividad a : actividades) if (a.isCompletada()) n++;
+        return n;
+    }
+
+    /**
+     * Deja las actividades como el segmento crudo de cultivos.csv; se
+     * decodifican con {@code decodificador} la primera vez que se piden.
+     * {@code total} y {@code completadas} son los conteos del segmento.
+     */
+    public synchronized void setActividadesCsv(String segmento, int total, int completadas,
+                                               Function<String, List<Actividad>> decodificador) {
+        this.actividadesCsv = segmento;
+        this.crudas = total;
+        this.crudasCompletadas = completadas;
+        this.decodificador = decodificador;
+        this.actividades = null;
+    }
+
+    /** Segmento crudo si las actividades nunca se decodificaron; si no, null. */
+    public synchronized String getActividadesCsv() {
+        return actividades == null ? actividadesCsv : null;
+    }
+
+    /** Reemplaza las actividades sin decodificar el segmento pendiente. */
+    public synchronized void setActividades(List<Actividad> nuevas) {
+        actividadesCsv = null;
+        decodificador = null;
+        actividades = new ArrayList<>(nuevas);
+    }
+
     public void addActividad(Actividad actividad) {
-        actividades.add(actividad);
+        getActividades().add(actividad);
     }
 
     public boolean removeActividad(Actividad actividad) {
-        return actividades.remove(actividad);
+        return getActividades().remove(actividad);
     }
 
     @Override
     public String toString() {
         return String.format(
             "Cultivo[nombre=%s, variedad=%s, superficie=%.2f, parcela=%s, fechaSiembra=%s, estado=%s, actividades=%d]",
-            nombre, variedad, superficie, parcela.getCodigo(), fechaSiembra, estado, actividades.size()
+            nombre, variedad, superficie, parcela == null ? null : parcela.getCodigo(), getFechaSiembra(), estado, contarActividades()
         );
     }
 }
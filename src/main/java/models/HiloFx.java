@@ -0,0 +1,19 @@
+package models;
+
+import javafx.application.Platform;
+
+/**
+ * Las propiedades observables sólo cambian en el hilo de JavaFX: las
+ * mutaciones que llegan desde otros hilos (importación, persistencia) se
+ * publican con {@link Platform#runLater}. Las propiedades se crean sólo al
+ * mostrarlas, así que sin interfaz esto nunca se ejecuta.
+ */
+final class HiloFx {
+
+    private HiloFx() { }
+
+    static void ejecutar(Runnable r) {
+        if (Platform.isFxApplicationThread()) r.run();
+        else Platform.runLater(r);
+    }
+}
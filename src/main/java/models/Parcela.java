@@ -1,27 +1,75 @@
 package models;
 
-import java.util.ArrayList;
+import javafx.beans.property.ReadOnlyDoubleProperty;
+import javafx.beans.property.ReadOnlyDoubleWrapper;
+import javafx.beans.property.ReadOnlyStringProperty;
+import javafx.beans.property.ReadOnlyStringWrapper;
+
+import utils.ListaIndexada;
+
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
 
 public class Parcela {
+    private static final AtomicLong SIGUIENTE_ID = new AtomicLong(1);
+
+    private final long id;
     private String codigo;
     private double area;
     private String ubicacion;
-    private List<Cultivo> cultivos;
+    private final List<Cultivo> cultivos;
+    private final List<Cultivo> vista;
+
+    // Propiedades observables de sólo lectura: se crean al primer uso, quedan
+    // en caché y se actualizan en el hilo de JavaFX
+    private volatile ReadOnlyDoubleWrapper areaProp;
+    private volatile ReadOnlyStringWrapper ubicacionProp;
 
     public Parcela(String codigo, double area, String ubicacion) {
+        this(SIGUIENTE_ID.getAndIncrement(), codigo, area, ubicacion);
+    }
+
+    /** Parcela con un id ya persistido. */
+    public Parcela(long id, String codigo, double area, String ubicacion) {
+        if (id <= 0) throw new IllegalArgumentException("id inválido: " + id);
+        SIGUIENTE_ID.accumulateAndGet(id + 1, Math::max);
+        this.id = id;
         this.codigo = codigo;
         this.area = area;
         this.ubicacion = ubicacion;
-        this.cultivos = new ArrayList<>();
+        // la modifican ambos servicios, siempre con el lock de escritura de
+        // CultivoService; quitar un cultivo no recorre la lista
+        this.cultivos = new ListaIndexada<>();
+        this.vista = Collections.unmodifiableList(cultivos);
     }
 
+    public long getId() { return id; }
     public String getCodigo() { return codigo; }
     public double getArea() { return area; }
-    public void setArea(double area) { this.area = area; }
     public String getUbicacion() { return ubicacion; }
-    public void setUbicacion(String ubicacion) { this.ubicacion = ubicacion; }
-    public List<Cultivo> getCultivos() { return cultivos; }
+    /** Sólo lectura; desde otros hilos, recorrerla dentro de {@code CultivoService.leer}. */
+    public List<Cultivo> getCultivos() { return vista; }
+
+    public void setArea(double area) {
+        this.area = area;
+        if (areaProp != null) HiloFx.ejecutar(() -> areaProp.set(this.area));
+    }
+
+    public void setUbicacion(String ubicacion) {
+        this.ubicacion = ubicacion;
+        if (ubicacionProp != null) HiloFx.ejecutar(() -> ubicacionProp.set(this.ubicacion));
+    }
+
+    public ReadOnlyDoubleProperty areaProperty() {
+        if (areaProp == null) areaProp = new ReadOnlyDoubleWrapper(this, "area", area);
+        return areaProp.getReadOnlyProperty();
+    }
+
+    public ReadOnlyStringProperty ubicacionProperty() {
+        if (ubicacionProp == null) ubicacionProp = new ReadOnlyStringWrapper(this, "ubicacion", ubicacion);
+        return ubicacionProp.getReadOnlyProperty();
+    }
 
     public void addCultivo(Cultivo cultivo) { cultivos.add(cultivo); }
     public boolean removeCultivo(Cultivo cultivo) { return cultivos.remove(cultivo); }
@@ -31,4 +79,4 @@ public class Parcela {
         return String.format("Parcela[codigo=%s, area=%.2f, ubicacion=%s, cultivos=%d]",
             codigo, area, ubicacion, cultivos.size());
     }
-}
\ No newline at end of file
+}
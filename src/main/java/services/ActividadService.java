@@ -1,15 +1,117 @@
 package services;
 
 import models.*;
+import utils.Journal;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.SortedMap;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 public class ActividadService {
     private Cultivo cultivo;
+    private CultivoService cultivoService;
+    private Journal journal;
+    private final AgendaActividades agenda;
+
+    public ActividadService(Cultivo cultivo) {
+        this.cultivo = cultivo;
+        this.agenda = new AgendaActividades();
+        agenda.agregar(cultivo);
+    }
 
-    public ActividadService(Cultivo cultivo) { this.cultivo = cultivo; }
+    /** Servicio compartido para las actividades de todos los cultivos. */
+    public ActividadService(CultivoService cultivoService) {
+        this.cultivoService = cultivoService;
+        this.agenda = cultivoService.agenda();
+    }
 
-    public void registrarActividad(Actividad a) { cultivo.addActividad(a); }
+    public void setJournal(Journal journal) { this.journal = journal; }
+
+    public void registrarActividad(Actividad a) { registrarActividad(cultivo, a); }
     public List<Actividad> listarActividades() { return cultivo.getActividades(); }
-    public boolean eliminarActividad(Actividad a) { return cultivo.removeActividad(a); }
-    public void marcarCompletada(Actividad a) { a.setCompletada(true); }
+    public boolean eliminarActividad(Actividad a) { return eliminarActividad(cultivo, a); }
+    public void marcarCompletada(Actividad a) { marcarCompletada(cultivo, a, true); }
+
+    /* ───────────────────────── operaciones sobre cualquier cultivo ───────────────────────── */
+
+    public void registrarActividad(Cultivo c, Actividad a) {
+        cambiar(c, () -> {
+            c.addActividad(a);
+            agenda.agregar(c, a);
+            if (journal != null) journal.actividadRegistrada(c.getId(), a);
+            return null;
+        });
+    }
+
+    public boolean eliminarActividad(Cultivo c, Actividad a) {
+        return cambiar(c, () -> {
+            int idx = c.getActividades().indexOf(a);
+            if (idx < 0) return false;
+            c.getActividades().remove(idx);
+            agenda.quitar(a);
+            if (journal != null) journal.actividadEliminada(c.getId(), a.getId());
+            return true;
+        });
+    }
+
+    public void marcarCompletada(Cultivo c, Actividad a, boolean completada) {
+        cambiar(c, () -> {
+            if (c.getActividades().indexOf(a) < 0) return null;   // no es de este cultivo
+            a.setCompletada(completada);
+            agenda.actualizar(a);
+            if (journal != null) journal.actividadActualizada(c.getId(), a.getId(), completada);
+            return null;
+        });
+    }
+
+    /* ───────────────────────── agenda ───────────────────────── */
+
+    /** Pendientes con fecha entre ambas (inclusive), ordenadas por fecha. */
+    public List<Actividad> pendientesEntre(LocalDate desde, LocalDate hasta) {
+        return consultar(g -> g.pendientesEntre((int) desde.toEpochDay(), (int) hasta.toEpochDay()));
+    }
+
+    /** Pendientes con fecha anterior a {@code hoy}, ordenadas por fecha. */
+    public List<Actividad> vencidas(LocalDate hoy) {
+        return consultar(g -> g.vencidas((int) hoy.toEpochDay()));
+    }
+
+    /** Cantidad de pendientes con fecha entre ambas (inclusive). */
+    public int contarPendientesEntre(LocalDate desde, LocalDate hasta) {
+        return consultar(g -> g.contarEntre((int) desde.toEpochDay(), (int) hasta.toEpochDay()));
+    }
+
+    /** Cantidad de pendientes con fecha anterior a {@code hoy}. */
+    public int contarVencidas(LocalDate hoy) {
+        return consultar(g -> g.contarVencidas((int) hoy.toEpochDay()));
+    }
+
+    /** Cantidad de actividades pendientes por día (sólo días con carga). */
+    public SortedMap<LocalDate, Integer> cargaPorDia(LocalDate desde, LocalDate hasta) {
+        return consultar(g -> g.carga((int) desde.toEpochDay(), (int) hasta.toEpochDay()));
+    }
+
+    /** El cultivo de cada actividad, en el mismo orden, resueltos en una sola consulta. */
+    public List<Cultivo> cultivosDe(List<Actividad> actividades) {
+        return consultar(g -> {
+            List<Cultivo> res = new ArrayList<>(actividades.size());
+            for (Actividad a : actividades) res.add(g.cultivoDe(a));
+            return res;
+        });
+    }
+
+    /*
+     * Con el servicio compartido, los cambios y consultas pasan por el lock de
+     * CultivoService (que también mantiene columnas y agenda al día).
+     */
+    private <R> R cambiar(Cultivo c, Supplier<R> cambio) {
+        return cultivoService != null ? cultivoService.cambiarActividades(c, cambio) : cambio.get();
+    }
+
+    private <R> R consultar(Function<AgendaActividades, R> consulta) {
+        return cultivoService != null ? cultivoService.leerAgenda(consulta) : consulta.apply(agenda);
+    }
 }
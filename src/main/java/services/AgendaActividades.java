@@ -0,0 +1,136 @@
+package services;
+
+import models.Actividad;
+import models.Cultivo;
+
+import java.time.LocalDate;
+import java.util.*;
+
+/**
+ * Índice por fecha (epoch-day) de las actividades pendientes, para responder
+ * rangos, vencidas y carga diaria en tiempo logarítmico más el tamaño del
+ * resultado. También recuerda a qué cultivo pertenece cada actividad.
+ *
+ * Los cultivos se indexan recién en la primera consulta: así cargar no
+ * decodifica las actividades crudas de cada cultivo. Los cambios llegan con
+ * el lock de escritura de CultivoService; las consultas, con el de lectura,
+ * y la primera completa el índice bajo el monitor de la agenda.
+ */
+class AgendaActividades {
+
+    private final TreeMap<Integer, Set<Actividad>> pendientes = new TreeMap<>();
+    private final Map<Actividad, Cultivo> cultivoDe = new IdentityHashMap<>();
+    private final Set<Cultivo> sinIndexar = new LinkedHashSet<>();   // Cultivo no redefine equals
+    private volatile boolean completa = true;
+
+    /* ───────────────────────── mantenimiento ───────────────────────── */
+
+    void agregar(Cultivo c) {
+        sinIndexar.add(c);
+        completa = false;
+    }
+
+    void quitar(Cultivo c) {
+        if (sinIndexar.remove(c)) return;
+        for (Actividad a : c.getActividades()) quitar(a);
+    }
+
+    // Con el cultivo aún sin indexar, agregar, quitar y actualizar no tienen
+    // nada que hacer: completar() toma sus actividades tal como estén
+    void agregar(Cultivo c, Actividad a) {
+        if (!completa && sinIndexar.contains(c)) return;
+        indexar(c, a);
+    }
+
+    private void indexar(Cultivo c, Actividad a) {
+        cultivoDe.put(a, c);
+        if (!a.isCompletada()) pendientes.computeIfAbsent(dia(a), k -> new LinkedHashSet<>()).add(a);
+    }
+
+    void quitar(Actividad a) {
+        cultivoDe.remove(a);
+        quitarPendiente(a);
+    }
+
+    /** Vuelve a ubicar la actividad tras cambiar su estado. */
+    void actualizar(Actividad a) {
+        if (a.isCompletada()) quitarPendiente(a);
+        else if (cultivoDe.containsKey(a)) pendientes.computeIfAbsent(dia(a), k -> new LinkedHashSet<>()).add(a);
+    }
+
+    private void quitarPendiente(Actividad a) {
+        Integer d = dia(a);
+        Set<Actividad> s = pendientes.get(d);
+        if (s != null && s.remove(a) && s.isEmpty()) pendientes.remove(d);
+    }
+
+    private static int dia(Actividad a) {
+        return a.getDia();
+    }
+
+    /** Indexa los cultivos agregados desde la última consulta. */
+    private void completar() {
+        if (completa) return;
+        synchronized (this) {
+            if (completa) return;
+            for (Cultivo c : sinIndexar) {
+                for (Actividad a : c.getActividades()) indexar(c, a);
+            }
+            sinIndexar.clear();
+            completa = true;
+        }
+    }
+
+    /* ───────────────────────── consultas ───────────────────────── */
+
+    Cultivo cultivoDe(Actividad a) {
+        completar();
+        return cultivoDe.get(a);
+    }
+
+    /** Pendientes con fecha en [desde, hasta], ordenadas por fecha. */
+    List<Actividad> pendientesEntre(int desde, int hasta) {
+        completar();
+        List<Actividad> res = new ArrayList<>();
+        if (desde > hasta) return res;
+        for (Set<Actividad> s : pendientes.subMap(desde, true, hasta, true).values()) res.addAll(s);
+        return res;
+    }
+
+    /** Pendientes con fecha anterior a {@code hoy}, ordenadas por fecha. */
+    List<Actividad> vencidas(int hoy) {
+        completar();
+        List<Actividad> res = new ArrayList<>();
+        for (Set<Actividad> s : pendientes.headMap(hoy, false).values()) res.addAll(s);
+        return res;
+    }
+
+    /** Cantidad de pendientes con fecha en [desde, hasta], sin armar la lista. */
+    int contarEntre(int desde, int hasta) {
+        completar();
+        return desde > hasta ? 0 : contar(pendientes.subMap(desde, true, hasta, true));
+    }
+
+    /** Cantidad de pendientes con fecha anterior a {@code hoy}. */
+    int contarVencidas(int hoy) {
+        completar();
+        return contar(pendientes.headMap(hoy, false));
+    }
+
+    private static int contar(SortedMap<Integer, Set<Actividad>> dias) {
+        int n = 0;
+        for (Set<Actividad> s : dias.values()) n += s.size();
+        return n;
+    }
+
+    /** Cantidad de pendientes por día en [desde, hasta]; sólo días con carga. */
+    SortedMap<LocalDate, Integer> carga(int desde, int hasta) {
+        completar();
+        SortedMap<LocalDate, Integer> res = new TreeMap<>();
+        if (desde > hasta) return res;
+        for (Map.Entry<Integer, Set<Actividad>> e : pendientes.subMap(desde, true, hasta, true).entrySet()) {
+            res.put(LocalDate.ofEpochDay(e.getKey()), e.getValue().size());
+        }
+        return res;
+    }
+}
@@ -0,0 +1,16 @@
+package services;
+
+/** Criterios de agrupación para {@link CultivoService#agrupar}. */
+public enum Agrupacion {
+    PARCELA("Parcela"),
+    ESTADO("Estado"),
+    VARIEDAD("Variedad"),
+    MES("Mes de siembra");
+
+    private final String etiqueta;
+
+    Agrupacion(String etiqueta) { this.etiqueta = etiqueta; }
+
+    @Override
+    public String toString() { return etiqueta; }
+}
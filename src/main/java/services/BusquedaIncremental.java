@@ -0,0 +1,38 @@
+package services;
+
+import models.Cultivo;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Búsqueda por subcadena para "buscar mientras se escribe". Si el término
+ * nuevo contiene al anterior y los cultivos no han cambiado, se filtra el
+ * resultado previo en vez de volver a consultar el índice.
+ */
+public class BusquedaIncremental {
+
+    private final CultivoService cs;
+    private String ultimo;
+    private List<Cultivo> resultados;
+    private long version = -1;
+
+    public BusquedaIncremental(CultivoService cs) { this.cs = cs; }
+
+    public List<Cultivo> buscar(String term) {
+        String t = IndiceTrigramas.normalizar(term.trim());
+        if (resultados != null && version == cs.version()
+                && !ultimo.isEmpty() && t.contains(ultimo)) {
+            List<Cultivo> acotados = new ArrayList<>();
+            for (Cultivo c : resultados) {
+                if (IndiceTrigramas.contiene(c, t)) acotados.add(c);
+            }
+            resultados = acotados;
+        } else {
+            version = cs.version();
+            resultados = cs.buscarSubcadena(t);
+        }
+        ultimo = t;
+        return resultados;
+    }
+}
@@ -0,0 +1,300 @@
+package services;
+
+import models.Cultivo;
+import models.EstadoCultivo;
+import models.Parcela;
+
+import utils.MapaIdentidad;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * Copia columnar de los datos numéricos de los cultivos: cada cultivo ocupa
+ * una fila y, al quitarlo, la última fila pasa a su lugar (las agregaciones
+ * no dependen del orden). Las agregaciones recorren arreglos primitivos
+ * contiguos en vez de seguir referencias a cada objeto Cultivo, LocalDate y
+ * Parcela.
+ *
+ * Las parcelas y variedades se guardan como un id entero (posición en
+ * {@link #codigos} / {@link #variedades}); -1 indica un cultivo sin parcela.
+ */
+class ColumnasCultivo {
+
+    private double[] superficie = new double[16];
+    private int[] siembra       = new int[16];    // epoch-day
+    private byte[] estado       = new byte[16];   // ordinal de EstadoCultivo
+    private int[] parcela       = new int[16];
+    private int[] variedad      = new int[16];
+    private int[] mes           = new int[16];    // año * 12 + (mes - 1) de la siembra
+    private int[] actividades   = new int[16];
+    private int[] completadas   = new int[16];
+    private Cultivo[] duenos    = new Cultivo[16];
+    private final MapaIdentidad<Cultivo> filaDe = new MapaIdentidad<>();
+    private int filas;
+
+    private static final int UMBRAL_PARALELO = 100_000;   // filas
+
+    private final Map<String, Integer> idParcela = new HashMap<>();
+    private final List<String> codigos = new ArrayList<>();
+    private final Map<String, Integer> idVariedad = new HashMap<>();
+    private final List<String> variedades = new ArrayList<>();
+
+    int filas() { return filas; }
+
+    /* ───────────────────────── mantenimiento ───────────────────────── */
+
+    void agregar(Cultivo c) {
+        if (filas == superficie.length) crecer();
+        duenos[filas] = c;
+        filaDe.put(c, filas);
+        escribir(filas++, c);
+    }
+
+    /** Vuelve a copiar los datos de {@code c}; false si no tiene fila. */
+    boolean actualizar(Cultivo c) {
+        int fila = filaDe.get(c);
+        if (fila < 0) return false;
+        escribir(fila, c);
+        return true;
+    }
+
+    /** La fila de {@code viejo} pasa a ser de {@code nuevo}. */
+    void reemplazar(Cultivo viejo, Cultivo nuevo) {
+        int fila = filaDe.remove(viejo);
+        if (fila < 0) return;
+        duenos[fila] = nuevo;
+        filaDe.put(nuevo, fila);
+        escribir(fila, nuevo);
+    }
+
+    void quitar(Cultivo c) {
+        int fila = filaDe.remove(c);
+        if (fila < 0) return;
+        int ultima = --filas;
+        if (fila != ultima) {
+            superficie[fila]  = superficie[ultima];
+            siembra[fila]     = siembra[ultima];
+            estado[fila]      = estado[ultima];
+            parcela[fila]     = parcela[ultima];
+            variedad[fila]    = variedad[ultima];
+            mes[fila]         = mes[ultima];
+            actividades[fila] = actividades[ultima];
+            completadas[fila] = completadas[ultima];
+            duenos[fila]      = duenos[ultima];
+            filaDe.put(duenos[fila], fila);
+        }
+        duenos[ultima] = null;
+    }
+
+    private void escribir(int fila, Cultivo c) {
+        int dia = c.getDiaSiembra();
+        superficie[fila] = c.getSuperficie();
+        siembra[fila]    = dia;
+        estado[fila]     = (byte) c.getEstadoEnum().ordinal();
+        parcela[fila]    = c.getParcela() == null ? -1 : id(idParcela, codigos, c.getParcela().getCodigo());
+        variedad[fila]   = id(idVariedad, variedades, c.getVariedad() == null ? "" : c.getVariedad());
+        mes[fila]        = mes(dia);
+        actividades[fila] = c.contarActividades();   // sin decodificar actividades crudas
+        completadas[fila] = c.contarCompletadas();
+    }
+
+    /** año * 12 + (mes - 1) del epoch-day, sin crear un LocalDate (como SalidaCsv.fecha). */
+    static int mes(int dia) {
+        long cero = dia + 719_528L - 60;   // días desde el 1 de marzo del año 0
+        if (cero < 0) {
+            LocalDate f = LocalDate.ofEpochDay(dia);
+            return f.getYear() * 12 + f.getMonthValue() - 1;
+        }
+        long anio = (400 * cero + 591) / 146_097;
+        long diaAnio = cero - (365 * anio + anio / 4 - anio / 100 + anio / 400);
+        if (diaAnio < 0) {
+            anio--;
+            diaAnio = cero - (365 * anio + anio / 4 - anio / 100 + anio / 400);
+        }
+        int mesMarzo = (int) (diaAnio * 5 + 2) / 153;
+        anio += mesMarzo / 10;
+        return (int) anio * 12 + (mesMarzo + 2) % 12;
+    }
+
+    private static int id(Map<String, Integer> ids, List<String> valores, String v) {
+        Integer id = ids.get(v);
+        if (id == null) {
+            id = valores.size();
+            ids.put(v, id);
+            valores.add(v);
+        }
+        return id;
+    }
+
+    private void crecer() {
+        int n = superficie.length * 2;
+        superficie = Arrays.copyOf(superficie, n);
+        siembra    = Arrays.copyOf(siembra, n);
+        estado     = Arrays.copyOf(estado, n);
+        parcela    = Arrays.copyOf(parcela, n);
+        variedad   = Arrays.copyOf(variedad, n);
+        mes        = Arrays.copyOf(mes, n);
+        actividades = Arrays.copyOf(actividades, n);
+        completadas = Arrays.copyOf(completadas, n);
+        duenos     = Arrays.copyOf(duenos, n);
+    }
+
+    /* ───────────────────────── agregaciones ───────────────────────── */
+
+    double superficieTotal() {
+        double s = 0;
+        for (int i = 0; i < filas; i++) s += superficie[i];
+        return s;
+    }
+
+    /** Suma de superficie por ordinal de estado. */
+    double[] superficiePorEstado(int estados) {
+        double[] s = new double[estados];
+        for (int i = 0; i < filas; i++) s[estado[i]] += superficie[i];
+        return s;
+    }
+
+    /** Cantidad de cultivos por ordinal de estado. */
+    int[] contarPorEstado(int estados) {
+        int[] n = new int[estados];
+        for (int i = 0; i < filas; i++) n[estado[i]]++;
+        return n;
+    }
+
+    /** Suma de superficie por código de parcela (sin los cultivos sin parcela). */
+    Map<String, Double> superficiePorParcela() {
+        double[] s = new double[codigos.size()];
+        int[] n = new int[codigos.size()];
+        for (int i = 0; i < filas; i++) {
+            int p = parcela[i];
+            if (p >= 0) {
+                s[p] += superficie[i];
+                n[p]++;
+            }
+        }
+        Map<String, Double> res = new LinkedHashMap<>();
+        for (int p = 0; p < s.length; p++) {
+            if (n[p] > 0) res.put(codigos.get(p), s[p]);
+        }
+        return res;
+    }
+
+    /** Superficie sembrada con fecha de siembra en [desde, hasta] (epoch-day). */
+    double superficieSembradaEntre(int desde, int hasta) {
+        double s = 0;
+        for (int i = 0; i < filas; i++) {
+            int d = siembra[i];
+            if (d >= desde && d <= hasta) s += superficie[i];
+        }
+        return s;
+    }
+
+    /* ───────────────────────── agrupación ───────────────────────── */
+
+    /**
+     * Resumen por grupo. La clave de cada fila se traduce a una posición
+     * densa ({@code clave - base}); sobre muchas filas el rango se reparte en
+     * trozos que se acumulan en paralelo y luego se suman.
+     */
+    List<ResumenGrupo> agrupar(Agrupacion g) {
+        if (filas == 0) return new ArrayList<>();
+        int[] clave;
+        int base, grupos;
+        switch (g) {
+            case PARCELA:
+                clave = parcela; base = -1; grupos = codigos.size() + 1;
+                break;
+            case ESTADO:
+                clave = null; base = 0; grupos = EstadoCultivo.values().length;
+                break;
+            case VARIEDAD:
+                clave = variedad; base = 0; grupos = variedades.size();
+                break;
+            default: {   // MES
+                clave = mes;
+                int min = Integer.MAX_VALUE, max = Integer.MIN_VALUE;
+                for (int i = 0; i < filas; i++) {
+                    min = Math.min(min, mes[i]);
+                    max = Math.max(max, mes[i]);
+                }
+                base = min; grupos = max - min + 1;
+            }
+        }
+
+        int n = filas;
+        Parcial total;
+        if (n < UMBRAL_PARALELO) {
+            total = acumular(clave, base, grupos, 0, n);
+        } else {
+            int trozos = ForkJoinPool.getCommonPoolParallelism() * 4;
+            total = IntStream.range(0, trozos).parallel()
+                .mapToObj(t -> acumular(clave, base, grupos,
+                                        (int) ((long) n * t / trozos), (int) ((long) n * (t + 1) / trozos)))
+                .reduce(Parcial::sumar)
+                .get();
+        }
+
+        EstadoCultivo[] estados = EstadoCultivo.values();
+        List<ResumenGrupo> res = new ArrayList<>();
+        for (int k = 0; k < grupos; k++) {
+            if (total.cantidad[k] == 0) continue;
+            int v = k + base;
+            String nombre;
+            switch (g) {
+                case PARCELA:  nombre = v < 0 ? "(sin parcela)" : codigos.get(v); break;
+                case ESTADO:   nombre = estados[v].name(); break;
+                case VARIEDAD: nombre = variedades.get(v); break;
+                default:       nombre = YearMonth.of(Math.floorDiv(v, 12), Math.floorMod(v, 12) + 1).toString();
+            }
+            res.add(new ResumenGrupo(nombre, total.cantidad[k], total.superficie[k],
+                                     total.actividades[k], total.completadas[k]));
+        }
+        if (g == Agrupacion.PARCELA || g == Agrupacion.VARIEDAD) {
+            res.sort(Comparator.comparing(ResumenGrupo::getGrupo));
+        }
+        return res;
+    }
+
+    /** clave == null agrupa por estado (columna byte). */
+    private Parcial acumular(int[] clave, int base, int grupos, int desde, int hasta) {
+        Parcial p = new Parcial(grupos);
+        double[] sup = superficie;
+        int[] act = actividades, hechas = completadas;
+        byte[] est = estado;
+        for (int i = desde; i < hasta; i++) {
+            int k = (clave == null ? est[i] : clave[i]) - base;
+            p.cantidad[k]++;
+            p.superficie[k] += sup[i];
+            p.actividades[k] += act[i];
+            p.completadas[k] += hechas[i];
+        }
+        return p;
+    }
+
+    private static final class Parcial {
+        final int[] cantidad;
+        final double[] superficie;
+        final long[] actividades, completadas;
+
+        Parcial(int grupos) {
+            cantidad = new int[grupos];
+            superficie = new double[grupos];
+            actividades = new long[grupos];
+            completadas = new long[grupos];
+        }
+
+        Parcial sumar(Parcial o) {
+            for (int k = 0; k < cantidad.length; k++) {
+                cantidad[k] += o.cantidad[k];
+                superficie[k] += o.superficie[k];
+                actividades[k] += o.actividades[k];
+                completadas[k] += o.completadas[k];
+            }
+            return this;
+        }
+    }
+}
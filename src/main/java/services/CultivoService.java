@@ -1,75 +1,423 @@
 package services;
 
 import models.*;
+import utils.Journal;
+import utils.ListaIndexada;
+import utils.MapaLong;
+
 import java.time.LocalDate;
-import java.util.List;
-import java.util.stream.Collectors;
+import java.util.*;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
 
 /**
- * Servicio de dominio para operaciones sobre la lista de cultivos.
+ * Servicio de dominio para operaciones sobre la lista de cultivos. La lista
+ * es una {@link ListaIndexada}: quitar o reemplazar un cultivo no la recorre.
+ * Mantiene índices secundarios por estado y por nombre/variedad (sin
+ * distinguir mayúsculas) que se actualizan en cada mutación, y una copia
+ * columnar de superficie, siembra, estado y parcela para las agregaciones.
+ *
+ * Es seguro usarlo desde varios hilos: las mutaciones toman el lock de
+ * escritura de un StampedLock y las consultas el de lectura (varias a la
+ * vez) o una lectura optimista cuando sólo leen un campo. Dentro de una
+ * mutación, el mismo hilo puede volver a consultar sin bloquearse.
  */
 public class CultivoService {
 
-    private final List<Cultivo> cultivos;
+    private final ListaIndexada<Cultivo> cultivos;
+    private final List<Cultivo> vista;
+    private volatile Journal journal;
+
+    private final StampedLock lock = new StampedLock();
+    private volatile Thread escritor;   // hilo que tiene el lock de escritura (ver conEscritura)
+
+    private final MapaLong<Cultivo> porId;
+    private final EnumMap<EstadoCultivo, Set<Cultivo>> porEstado = new EnumMap<>(EstadoCultivo.class);
+    private final Map<String, Set<Cultivo>> porNombre   = new HashMap<>();
+    private final Map<String, Set<Cultivo>> porVariedad = new HashMap<>();
+    private final IndiceTrigramas trigramas = new IndiceTrigramas();
+    private final ColumnasCultivo columnas = new ColumnasCultivo();
+    private final AgendaActividades agenda = new AgendaActividades();
+    private long version;
+
+    /** Copia {@code cultivos}; la lista viva es {@link #getCultivos()}. */
+    public CultivoService(List<Cultivo> cultivos) {
+        this.cultivos = new ListaIndexada<>(cultivos);
+        this.vista = Collections.unmodifiableList(this.cultivos);
+        this.porId = new MapaLong<>(cultivos.size());
+        for (EstadoCultivo e : EstadoCultivo.values()) porEstado.put(e, new LinkedHashSet<>());
+        for (Cultivo c : this.cultivos) {
+            // un id repetido (archivo editado a mano) no puede identificar dos cultivos
+            if (c.getId() == 0 || porId.containsKey(c.getId())) c.reasignarId();
+            indexar(c);
+            columnas.agregar(c);
+        }
+    }
+
+    /**
+     * Vista de sólo lectura de la lista. Sólo debe recorrerse desde el hilo
+     * que hace las mutaciones; otros hilos deben usar {@link #leer}.
+     */
+    public List<Cultivo> getCultivos() { return vista; }
+
+    /**
+     * Ejecuta {@code lectura} sobre la lista (sólo lectura) con el lock de
+     * lectura tomado. No debe llamar a mutaciones del servicio (ver conEscritura).
+     */
+    public <R> R leer(Function<List<Cultivo>, R> lectura) {
+        return conLectura(() -> lectura.apply(vista));
+    }
+
+    public int contar() {
+        return leerOptimista(cultivos::size);
+    }
 
-    public CultivoService(List<Cultivo> cultivos) { this.cultivos = cultivos; }
+    /** Copia de las filas [desde, desde + cantidad) para vistas paginadas. */
+    public List<Cultivo> pagina(int desde, int cantidad) {
+        return conLectura(() -> {
+            int hasta = Math.min(cultivos.size(), desde + cantidad);
+            return desde >= hasta ? List.<Cultivo>of() : new ArrayList<>(cultivos.subList(desde, hasta));
+        });
+    }
+
+    /** Copia de todas las filas ordenada con {@code cmp}, tomada bajo un solo lock de lectura. */
+    public List<Cultivo> ordenados(Comparator<? super Cultivo> cmp) {
+        return conLectura(() -> {
+            List<Cultivo> l = new ArrayList<>(cultivos);
+            l.sort(cmp);
+            return l;
+        });
+    }
 
-    public List<Cultivo> getCultivos() { return cultivos; }
+    /** Registra cada mutación posterior en el journal (null = sin journal). */
+    public void setJournal(Journal journal) { this.journal = journal; }
+
+    /** Cultivo con ese id, o null. */
+    public Cultivo buscarPorId(long id) { return leerOptimista(() -> porId.get(id)); }
 
     /* ───────────────────────── métodos YA existentes ───────────────────────── */
 
     public void agregarCultivo(String nombre, String variedad, double superficie,
                                Parcela parcela, LocalDate fechaSiembra, EstadoCultivo estado) {
-        Cultivo c = new Cultivo(nombre, variedad, superficie, parcela, fechaSiembra, estado);
-        cultivos.add(c);
-        parcela.addCultivo(c);
+        agregarCultivo(new Cultivo(nombre, variedad, superficie, parcela, fechaSiembra, estado));
     }
 
     public boolean eliminarCultivo(Cultivo c) {
-        if (c.getActividades().stream().anyMatch(a -> !a.isCompletada())) return false;
-        c.getParcela().removeCultivo(c);
-        return cultivos.remove(c);
+        return conEscritura(() -> {
+            if (c.getActividades().stream().anyMatch(a -> !a.isCompletada())) return false;
+            if (!cultivos.remove(c)) return false;
+            if (c.getParcela() != null) c.getParcela().removeCultivo(c);
+            desindexar(c);
+            columnas.quitar(c);
+            if (journal != null) journal.cultivoEliminado(c.getId());
+            return true;
+        });
     }
 
     public void editarCultivo(Cultivo c, String nombre, String variedad,
                               double sup, LocalDate fecha, EstadoCultivo est) {
-        c.setNombre(nombre); c.setVariedad(variedad);
-        c.setSuperficie(sup); c.setFechaSiembra(fecha);
-        c.setEstado(est);
+        editarCultivo(c, nombre, variedad, sup, c.getParcela(), fecha, est);
+    }
+
+    /**
+     * Edita el cultivo en su lugar (conserva sus actividades) y lo mueve de
+     * parcela si cambió. Las vistas que observan sus propiedades se
+     * actualizan solas.
+     */
+    public void editarCultivo(Cultivo c, String nombre, String variedad, double sup,
+                              Parcela parcela, LocalDate fecha, EstadoCultivo est) {
+        conEscritura(() -> {
+            desindexar(c);
+            c.setNombre(nombre); c.setVariedad(variedad);
+            c.setSuperficie(sup); c.setFechaSiembra(fecha);
+            c.setEstado(est);
+            mover(c, parcela);
+            indexar(c);
+            columnas.actualizar(c);
+            if (journal != null) journal.cultivoEditado(c);
+            return null;
+        });
+    }
+
+    /** Cambia la parcela del cultivo (ParcelaService.asignarCultivo). */
+    void moverCultivo(Cultivo c, Parcela parcela) {
+        conEscritura(() -> {
+            mover(c, parcela);
+            actualizarFila(c);
+            return null;
+        });
+    }
+
+    private static void mover(Cultivo c, Parcela parcela) {
+        if (parcela == c.getParcela()) return;
+        if (c.getParcela() != null) c.getParcela().removeCultivo(c);
+        c.setParcela(parcela);
+        if (parcela != null) parcela.addCultivo(c);
     }
 
     /* ───────────────────────── NUEVOS métodos requeridos por la UI ───────────────────────── */
 
     /** Inserta directamente un objeto Cultivo ya construido. */
     public void agregarCultivo(Cultivo c) {
-        cultivos.add(c);
-        if (c.getParcela() != null) c.getParcela().addCultivo(c);
+        conEscritura(() -> {
+            cultivos.add(c);
+            if (c.getParcela() != null) c.getParcela().addCultivo(c);
+            indexar(c);
+            columnas.agregar(c);
+            if (journal != null) journal.cultivoAgregado(c);
+            return null;
+        });
+    }
+
+    /**
+     * Agrega un lote completo con una sola toma del lock de escritura: las
+     * lecturas concurrentes ven el lote entero o nada de él. Cada cultivo se
+     * vuelve a comprobar con {@code vigente} ya con el lock tomado (las bajas
+     * de parcelas también lo toman, así que lo comprobado no cambia hasta
+     * agregarlo); los que no pasan no se agregan y se devuelven.
+     */
+    public List<Cultivo> agregarLote(List<Cultivo> lote, Predicate<Cultivo> vigente) {
+        return conEscritura(() -> {
+            List<Cultivo> rechazados = new ArrayList<>();
+            for (Cultivo c : lote) {
+                if (!vigente.test(c)) {
+                    rechazados.add(c);
+                    continue;
+                }
+                cultivos.add(c);
+                if (c.getParcela() != null) c.getParcela().addCultivo(c);
+                indexar(c);
+                columnas.agregar(c);
+                if (journal != null) journal.cultivoAgregado(c);
+            }
+            return rechazados;
+        });
     }
 
     /** Reemplaza en la lista el cultivo `oldC` por `newC`.  */
     public void reemplazarCultivo(Cultivo oldC, Cultivo newC) {
-        int idx = cultivos.indexOf(oldC);
-        if (idx >= 0) {
-            // quitar de la parcela anterior
-            if (oldC.getParcela() != null) oldC.getParcela().removeCultivo(oldC);
-            cultivos.set(idx, newC);
-            // asociar a la (posible) nueva parcela
-            if (newC.getParcela() != null) newC.getParcela().addCultivo(newC);
-        }
+        conEscritura(() -> {
+            if (cultivos.reemplazar(oldC, newC)) {
+                // quitar de la parcela anterior
+                if (oldC.getParcela() != null) oldC.getParcela().removeCultivo(oldC);
+                desindexar(oldC);
+                indexar(newC);
+                columnas.reemplazar(oldC, newC);
+                // asociar a la (posible) nueva parcela
+                if (newC.getParcela() != null) newC.getParcela().addCultivo(newC);
+                if (journal != null) journal.cultivoReemplazado(oldC.getId(), newC);
+            }
+            return null;
+        });
     }
 
     /* ───────────────────────── búsquedas / reportes ───────────────────────── */
 
+    /** Coincidencia exacta (sin distinguir mayúsculas) en nombre o variedad. */
     public List<Cultivo> buscarPorNombreOVariedad(String term) {
-        return cultivos.stream()
-                .filter(c -> c.getNombre().equalsIgnoreCase(term)
-                          || c.getVariedad().equalsIgnoreCase(term))
-                .collect(Collectors.toList());
+        String k = clave(term);
+        return conLectura(() -> {
+            Set<Cultivo> n = porNombre.getOrDefault(k, Set.of());
+            Set<Cultivo> v = porVariedad.getOrDefault(k, Set.of());
+            if (v.isEmpty()) return new ArrayList<>(n);
+            if (n.isEmpty()) return new ArrayList<>(v);
+            Set<Cultivo> union = new LinkedHashSet<>(n);
+            union.addAll(v);
+            return new ArrayList<>(union);
+        });
     }
 
     public List<Cultivo> reportePorEstado(EstadoCultivo estado) {
-        return cultivos.stream()
-                .filter(c -> c.getEstadoEnum() == estado)
-                .collect(Collectors.toList());
+        return conLectura(() -> new ArrayList<>(porEstado.get(estado)));
+    }
+
+    /**
+     * Cultivos cuyo nombre o variedad contiene {@code term} (sin distinguir
+     * mayúsculas). Términos de 3 o más caracteres usan el índice de trigramas.
+     */
+    public List<Cultivo> buscarSubcadena(String term) {
+        String t = IndiceTrigramas.normalizar(term);
+        return conLectura(() -> {
+            if (t.isEmpty()) return new ArrayList<>(cultivos);
+            List<Cultivo> res = trigramas.buscar(t);
+            if (res != null) return res;
+            res = new ArrayList<>();
+            for (Cultivo c : cultivos) {
+                if (IndiceTrigramas.contiene(c, t)) res.add(c);
+            }
+            return res;
+        });
+    }
+
+    /**
+     * Debe llamarse cuando {@code c} cambia fuera de este servicio: parcela
+     * reasignada (ParcelaService) o actividades modificadas (ActividadService).
+     */
+    public void cultivoCambiado(Cultivo c) {
+        conEscritura(() -> {
+            actualizarFila(c);
+            return null;
+        });
+    }
+
+    /** Aplica un cambio a las actividades de {@code c} con el lock de escritura tomado. */
+    <R> R cambiarActividades(Cultivo c, Supplier<R> cambio) {
+        return conEscritura(() -> {
+            R r = cambio.get();
+            actualizarFila(c);
+            return r;
+        });
+    }
+
+    /** Consulta la agenda de actividades con el lock de lectura tomado. */
+    <R> R leerAgenda(Function<AgendaActividades, R> lectura) {
+        return conLectura(() -> lectura.apply(agenda));
+    }
+
+    private void actualizarFila(Cultivo c) {
+        if (columnas.actualizar(c)) version++;
+    }
+
+    /* ───────────────────────── agregaciones (sobre columnas) ───────────────────────── */
+
+    public double superficieTotal() {
+        return conLectura(columnas::superficieTotal);
+    }
+
+    public EnumMap<EstadoCultivo, Double> superficiePorEstado() {
+        double[] s = conLectura(() -> columnas.superficiePorEstado(EstadoCultivo.values().length));
+        EnumMap<EstadoCultivo, Double> res = new EnumMap<>(EstadoCultivo.class);
+        for (EstadoCultivo e : EstadoCultivo.values()) res.put(e, s[e.ordinal()]);
+        return res;
+    }
+
+    public EnumMap<EstadoCultivo, Integer> contarPorEstado() {
+        int[] n = conLectura(() -> columnas.contarPorEstado(EstadoCultivo.values().length));
+        EnumMap<EstadoCultivo, Integer> res = new EnumMap<>(EstadoCultivo.class);
+        for (EstadoCultivo e : EstadoCultivo.values()) res.put(e, n[e.ordinal()]);
+        return res;
+    }
+
+    /** Superficie total por código de parcela. */
+    public Map<String, Double> superficiePorParcela() {
+        return conLectura(columnas::superficiePorParcela);
+    }
+
+    /** Superficie de los cultivos sembrados entre ambas fechas (inclusive). */
+    public double superficieSembradaEntre(LocalDate desde, LocalDate hasta) {
+        int d = (int) desde.toEpochDay(), h = (int) hasta.toEpochDay();
+        return conLectura(() -> columnas.superficieSembradaEntre(d, h));
+    }
+
+    /**
+     * Cantidad, superficie (total y promedio) y avance de actividades por
+     * grupo. Sobre listas grandes la acumulación se reparte en paralelo.
+     */
+    public List<ResumenGrupo> agrupar(Agrupacion g) {
+        return conLectura(() -> columnas.agrupar(g));
+    }
+
+    /** Cambia con cada mutación; permite invalidar resultados en caché. */
+    public long version() {
+        return leerOptimista(() -> version);
+    }
+
+    /** Índice de actividades pendientes; ActividadService lo mantiene al día. */
+    AgendaActividades agenda() { return agenda; }
+
+    /* ───────────────────────── locks ───────────────────────── */
+
+    /**
+     * Ejecuta {@code cambio} con el lock de escritura. También lo toma
+     * ParcelaService antes que su propio lock (ver allí).
+     *
+     * Reentrada: mientras dura el cambio, {@link #escritor} es el hilo dueño
+     * del lock; sólo ese hilo lo asigna y lo borra, siempre con el lock
+     * tomado, así que ningún otro hilo puede verse a sí mismo ahí. Si el
+     * dueño vuelve a pedir escritura o lectura (p. ej. asignarCultivo de
+     * ParcelaService llama a moverCultivo), la llamada anidada corre sin
+     * tocar el lock. Lo inverso no está permitido: StampedLock no
+     * sube de lectura a escritura, así que una mutación dentro de
+     * {@link #leer} se bloquearía para siempre.
+     */
+    <R> R conEscritura(Supplier<R> cambio) {
+        if (escritor == Thread.currentThread()) return cambio.get();
+        long st = lock.writeLock();
+        escritor = Thread.currentThread();
+        try {
+            return cambio.get();
+        } finally {
+            escritor = null;
+            lock.unlockWrite(st);
+        }
+    }
+
+    /**
+     * Para consultas cortas de pocos campos: las lee sin lock y sólo si hubo
+     * una escritura en el medio repite con el lock de lectura. {@code lectura}
+     * no debe tener efectos ni crear objetos que escapen: puede ver un estado
+     * a medio escribir (hasta lanzar una excepción), que se descarta.
+     */
+    private <R> R leerOptimista(Supplier<R> lectura) {
+        long st = lock.tryOptimisticRead();   // 0 con el lock de escritura tomado
+        if (st != 0) {
+            try {
+                R r = lectura.get();
+                if (lock.validate(st)) return r;
+            } catch (RuntimeException ex) {
+                if (lock.validate(st)) throw ex;   // no vino de una escritura concurrente
+            }
+        }
+        return conLectura(lectura);
+    }
+
+    private <R> R conLectura(Supplier<R> lectura) {
+        if (escritor == Thread.currentThread()) return lectura.get();
+        long st = lock.readLock();
+        try {
+            return lectura.get();
+        } finally {
+            lock.unlockRead(st);
+        }
+    }
+
+    /* ───────────────────────── índices ───────────────────────── */
+
+    private void indexar(Cultivo c) {
+        version++;
+        porId.put(c.getId(), c);
+        trigramas.agregar(c);
+        agenda.agregar(c);
+        porEstado.get(c.getEstadoEnum()).add(c);
+        porNombre.computeIfAbsent(clave(c.getNombre()), k -> new LinkedHashSet<>()).add(c);
+        porVariedad.computeIfAbsent(clave(c.getVariedad()), k -> new LinkedHashSet<>()).add(c);
+    }
+
+    private void desindexar(Cultivo c) {
+        version++;
+        porId.remove(c.getId());
+        trigramas.quitar(c);
+        agenda.quitar(c);
+        porEstado.get(c.getEstadoEnum()).remove(c);
+        quitar(porNombre, clave(c.getNombre()), c);
+        quitar(porVariedad, clave(c.getVariedad()), c);
+    }
+
+    private static void quitar(Map<String, Set<Cultivo>> indice, String k, Cultivo c) {
+        Set<Cultivo> s = indice.get(k);
+        if (s != null && s.remove(c) && s.isEmpty()) indice.remove(k);
+    }
+
+    /**
+     * Clave sin mayúsculas con la misma regla carácter a carácter que
+     * {@link String#equalsIgnoreCase}.
+     */
+    static String clave(String s) {
+        if (s == null) return "";
+        char[] a = s.toCharArray();
+        for (int i = 0; i < a.length; i++) a[i] = Character.toLowerCase(Character.toUpperCase(a[i]));
+        return new String(a);
     }
 }
@@ -0,0 +1,48 @@
+package services;
+
+import models.Cultivo;
+import models.Parcela;
+import utils.CSVHandler;
+import utils.LoteImportado;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Importación masiva de cultivos (y actividades) desde CSV externos. Las
+ * filas se validan en paralelo contra las parcelas existentes; las válidas
+ * entran como un solo lote y las inválidas se devuelven como errores.
+ */
+public class Importador {
+    private final CultivoService cs;
+    private final ParcelaService ps;
+
+    public Importador(CultivoService cs, ParcelaService ps) {
+        this.cs = cs;
+        this.ps = ps;
+    }
+
+    /**
+     * @param actividadesCsv CSV de actividades ({@code nombre,TIPO,fecha,ESTADO})
+     *                       o null si el lote no trae actividades aparte
+     */
+    public LoteImportado importar(String cultivosCsv, String actividadesCsv) throws IOException {
+        // el mapa de parcelas es concurrente: se puede consultar desde los hilos de validación
+        return agregar(CSVHandler.leerLote(cultivosCsv, actividadesCsv, ps.getParcelas()::get));
+    }
+
+    /**
+     * Agrega los cultivos válidos de {@code leido}. Una parcela pudo
+     * eliminarse mientras se validaba el archivo: se vuelve a comprobar con
+     * el lock de escritura tomado y esos cultivos pasan a ser errores.
+     */
+    LoteImportado agregar(LoteImportado leido) {
+        List<Cultivo> rechazados = cs.agregarLote(leido.getCultivos(), this::parcelaVigente);
+        return leido.sin(rechazados, c -> "parcela inexistente: " + c.getParcela().getCodigo());
+    }
+
+    private boolean parcelaVigente(Cultivo c) {
+        Parcela p = c.getParcela();
+        return p == null || ps.getParcelas().get(p.getCodigo()) == p;
+    }
+}
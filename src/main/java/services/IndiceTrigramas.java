@@ -0,0 +1,79 @@
+package services;
+
+import models.Cultivo;
+
+import java.util.*;
+
+/**
+ * Índice de trigramas sobre nombre y variedad (en minúsculas) para responder
+ * búsquedas por subcadena sin recorrer todos los cultivos. Los candidatos
+ * se obtienen intersectando las listas de cada trigrama del término y luego
+ * se verifican con {@code contains}.
+ */
+class IndiceTrigramas {
+
+    private final Map<Long, Set<Cultivo>> postings = new HashMap<>();
+
+    void agregar(Cultivo c) {
+        for (long t : trigramas(c)) {
+            postings.computeIfAbsent(t, k -> new LinkedHashSet<>()).add(c);
+        }
+    }
+
+    void quitar(Cultivo c) {
+        for (long t : trigramas(c)) {
+            Set<Cultivo> s = postings.get(t);
+            if (s != null && s.remove(c) && s.isEmpty()) postings.remove(t);
+        }
+    }
+
+    /**
+     * Cultivos cuyo nombre o variedad contiene {@code term} (ya normalizado).
+     * Devuelve null si el término es demasiado corto para usar el índice.
+     */
+    List<Cultivo> buscar(String term) {
+        if (term.length() < 3) return null;
+
+        List<Set<Cultivo>> listas = new ArrayList<>();
+        for (int i = 0; i + 3 <= term.length(); i++) {
+            Set<Cultivo> s = postings.get(clave(term, i));
+            if (s == null) return new ArrayList<>();
+            listas.add(s);
+        }
+        listas.sort(Comparator.comparingInt(Set::size));
+
+        List<Cultivo> res = new ArrayList<>();
+        candidatos:
+        for (Cultivo c : listas.get(0)) {
+            for (int i = 1; i < listas.size(); i++) {
+                if (!listas.get(i).contains(c)) continue candidatos;
+            }
+            if (contiene(c, term)) res.add(c);
+        }
+        return res;
+    }
+
+    static boolean contiene(Cultivo c, String term) {
+        return normalizar(c.getNombre()).contains(term)
+            || normalizar(c.getVariedad()).contains(term);
+    }
+
+    static String normalizar(String s) {
+        return s == null ? "" : s.toLowerCase(Locale.ROOT);
+    }
+
+    private static Set<Long> trigramas(Cultivo c) {
+        Set<Long> ts = new HashSet<>();
+        agregarTrigramas(normalizar(c.getNombre()), ts);
+        agregarTrigramas(normalizar(c.getVariedad()), ts);
+        return ts;
+    }
+
+    private static void agregarTrigramas(String s, Set<Long> ts) {
+        for (int i = 0; i + 3 <= s.length(); i++) ts.add(clave(s, i));
+    }
+
+    private static long clave(String s, int i) {
+        return ((long) s.charAt(i) << 32) | ((long) s.charAt(i + 1) << 16) | s.charAt(i + 2);
+    }
+}
@@ -1,43 +1,177 @@
 package services;
 
 import models.*;
+import utils.Journal;
+import utils.ListaIndexada;
+import utils.MapaLong;
+
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Supplier;
 
+/**
+ * Servicio de parcelas. El mapa por código es concurrente (lecturas sin
+ * lock); altas, bajas y ediciones toman el lock de escritura, que también
+ * protege el orden de alta usado por las vistas paginadas.
+ *
+ * Orden de locks: con un CultivoService conectado, cada mutación toma
+ * primero el lock de escritura de éste y luego el propio. Así la baja de una
+ * parcela vacía no se cruza con un cultivo que se le asigna, el journal
+ * recibe los registros en el orden en que se aplicaron y una compactación
+ * (lock de lectura de CultivoService) ve parcelas y cultivos del mismo
+ * instante.
+ */
 public class ParcelaService {
-    private Map<String, Parcela> parcelas;
+    private final Map<String, Parcela> parcelas;
+    private final Map<String, Parcela> vista;
+    private final List<Parcela> orden = new ListaIndexada<>();   // acceso por posición para vistas paginadas
+    private final MapaLong<Parcela> porId = new MapaLong<>();   // con el lock
+    private final StampedLock lock = new StampedLock();
+    private volatile Journal journal;
+    private volatile CultivoService cultivoService;
 
     public ParcelaService(Collection<Parcela> lista) {
-        this.parcelas = new HashMap<>();
-        for (Parcela p : lista) parcelas.put(p.getCodigo(), p);
+        this.parcelas = new ConcurrentHashMap<>();
+        this.vista = Collections.unmodifiableMap(parcelas);
+        for (Parcela p : lista) {
+            if (parcelas.putIfAbsent(p.getCodigo(), p) == null) {
+                orden.add(p);
+                porId.put(p.getId(), p);
+            }
+        }
+    }
+
+    /** Vista de sólo lectura del mapa por código (se puede leer desde cualquier hilo). */
+    public Map<String, Parcela> getParcelas() { return vista; }
+
+    public int contar() {
+        return leerOptimista(orden::size);
+    }
+
+    /** Parcela con ese id, o null. */
+    public Parcela buscarPorId(long id) {
+        return leerOptimista(() -> porId.get(id));
+    }
+
+    /** Copia de las parcelas [desde, desde + cantidad) en orden de alta. */
+    public List<Parcela> pagina(int desde, int cantidad) {
+        long st = lock.readLock();
+        try {
+            int hasta = Math.min(orden.size(), desde + cantidad);
+            return desde >= hasta ? List.of() : new ArrayList<>(orden.subList(desde, hasta));
+        } finally {
+            lock.unlockRead(st);
+        }
+    }
+
+    /** Copia de todas las parcelas ordenada con {@code cmp}, tomada bajo un solo lock de lectura. */
+    public List<Parcela> ordenadas(Comparator<? super Parcela> cmp) {
+        long st = lock.readLock();
+        try {
+            List<Parcela> l = new ArrayList<>(orden);
+            l.sort(cmp);
+            return l;
+        } finally {
+            lock.unlockRead(st);
+        }
     }
 
-    public Map<String, Parcela> getParcelas() { return parcelas; }
+    /** Registra cada mutación posterior en el journal (null = sin journal). */
+    public void setJournal(Journal journal) { this.journal = journal; }
+
+    /** Servicio a avisar cuando se reasigna la parcela de un cultivo. */
+    public void setCultivoService(CultivoService cs) { this.cultivoService = cs; }
 
     public boolean agregarParcela(String codigo, double area, String ubicacion) {
-        if (parcelas.containsKey(codigo)) return false;
-        parcelas.put(codigo, new Parcela(codigo, area, ubicacion));
-        return true;
+        return agregarParcela(0, codigo, area, ubicacion);
+    }
+
+    /** Con el id ya asignado (al reproducir el journal); 0 o uno en uso: id nuevo. */
+    public boolean agregarParcela(long id, String codigo, double area, String ubicacion) {
+        return conEscritura(() -> {
+            if (parcelas.containsKey(codigo)) return false;
+            Parcela p = id > 0 && porId.get(id) == null ? new Parcela(id, codigo, area, ubicacion)
+                                                        : new Parcela(codigo, area, ubicacion);
+            parcelas.put(codigo, p);
+            orden.add(p);
+            porId.put(p.getId(), p);
+            if (journal != null) journal.parcelaAgregada(p);
+            return true;
+        });
     }
 
+    /** Sólo elimina parcelas sin cultivos; la comprobación y la baja son atómicas. */
     public boolean eliminarParcela(String codigo) {
-        Parcela p = parcelas.get(codigo);
-        if (p == null || !p.getCultivos().isEmpty()) return false;
-        parcelas.remove(codigo);
-        return true;
+        return conEscritura(() -> {
+            Parcela p = parcelas.get(codigo);
+            if (p == null || !p.getCultivos().isEmpty()) return false;
+            parcelas.remove(codigo);
+            orden.remove(p);
+            porId.remove(p.getId());
+            if (journal != null) journal.parcelaEliminada(codigo);
+            return true;
+        });
     }
 
     public boolean editarParcela(String codigo, double area, String ubicacion) {
-        Parcela p = parcelas.get(codigo);
-        if (p == null) return false;
-        p.setArea(area); p.setUbicacion(ubicacion);
-        return true;
+        return conEscritura(() -> {
+            Parcela p = parcelas.get(codigo);
+            if (p == null) return false;
+            p.setArea(area); p.setUbicacion(ubicacion);
+            if (journal != null) journal.parcelaEditada(p);
+            return true;
+        });
     }
 
     public boolean asignarCultivo(String codigo, Cultivo c) {
-        Parcela p = parcelas.get(codigo);
-        if (p == null) return false;
-        c.setParcela(p);
-        p.addCultivo(c);
-        return true;
+        return conEscritura(() -> {
+            Parcela p = parcelas.get(codigo);
+            if (p == null) return false;
+            CultivoService cs = cultivoService;
+            if (cs != null) {
+                cs.moverCultivo(c, p);   // el lock de CultivoService ya está tomado
+            } else {
+                c.setParcela(p);
+                p.addCultivo(c);
+            }
+            if (journal != null) journal.cultivoAsignado(codigo, c);
+            return true;
+        });
+    }
+
+    /* ───────────────────────── locks ───────────────────────── */
+
+    private <R> R conEscritura(Supplier<R> cambio) {
+        CultivoService cs = cultivoService;
+        return cs != null ? cs.conEscritura(() -> propio(cambio)) : propio(cambio);
+    }
+
+    private <R> R propio(Supplier<R> cambio) {
+        long st = lock.writeLock();
+        try {
+            return cambio.get();
+        } finally {
+            lock.unlockWrite(st);
+        }
+    }
+
+    /** Lectura optimista de pocos campos, como en CultivoService: si hubo una escritura, repite con lock. */
+    private <R> R leerOptimista(Supplier<R> lectura) {
+        long st = lock.tryOptimisticRead();
+        if (st != 0) {
+            try {
+                R r = lectura.get();
+                if (lock.validate(st)) return r;
+            } catch (RuntimeException ex) {
+                if (lock.validate(st)) throw ex;
+            }
+        }
+        st = lock.readLock();
+        try {
+            return lectura.get();
+        } finally {
+            lock.unlockRead(st);
+        }
     }
-}
\ No newline at end of file
+}
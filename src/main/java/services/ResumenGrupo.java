@@ -0,0 +1,34 @@
+package services;
+
+/** Fila de un reporte agrupado: totales de superficie y avance de actividades. */
+public class ResumenGrupo {
+    private final String grupo;
+    private final int cantidad;
+    private final double superficieTotal;
+    private final long actividades;
+    private final long completadas;
+
+    public ResumenGrupo(String grupo, int cantidad, double superficieTotal,
+                        long actividades, long completadas) {
+        this.grupo = grupo;
+        this.cantidad = cantidad;
+        this.superficieTotal = superficieTotal;
+        this.actividades = actividades;
+        this.completadas = completadas;
+    }
+
+    public String getGrupo() { return grupo; }
+    public int getCantidad() { return cantidad; }
+    public double getSuperficieTotal() { return superficieTotal; }
+    public double getSuperficiePromedio() { return cantidad == 0 ? 0 : superficieTotal / cantidad; }
+    public long getActividades() { return actividades; }
+    public long getCompletadas() { return completadas; }
+
+    /** Fracción de actividades completadas (0 si el grupo no tiene actividades). */
+    public double getAvance() { return actividades == 0 ? 0 : (double) completadas / actividades; }
+
+    @Override
+    public String toString() {
+        return "ResumenGrupo[" + grupo + ", n=" + cantidad + ", sup=" + superficieTotal + "]";
+    }
+}
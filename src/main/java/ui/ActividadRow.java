@@ -10,6 +10,7 @@ import java.time.LocalDate;
 public class ActividadRow {
     private final Cultivo cultivo;
     private final Actividad actividad;
+    private ReadOnlyStringWrapper tipo;   // el tipo no cambia: se crea una sola vez
 
     public ActividadRow(Cultivo cultivo, Actividad actividad) {
         this.cultivo   = cultivo;
@@ -20,13 +21,12 @@ public class ActividadRow {
     public Actividad getActividad() { return actividad; }
     public LocalDate getFecha() { return actividad.getFecha(); }
 
-    // Exponer propiedades para TableView
-    public StringProperty tipoProperty() {
-        return new SimpleStringProperty(actividad.getTipo().name());
+    // Exponer propiedades para TableView (cacheadas; el estado sigue a la Actividad)
+    public ReadOnlyStringProperty tipoProperty() {
+        if (tipo == null) tipo = new ReadOnlyStringWrapper(this, "tipo", actividad.getTipo().name());
+        return tipo.getReadOnlyProperty();
     }
-    public StringProperty estadoProperty() {
-        return new SimpleStringProperty(
-            actividad.isCompletada() ? "COMPLETADA" : "PENDIENTE"
-        );
+    public ReadOnlyStringProperty estadoProperty() {
+        return actividad.estadoProperty();
     }
 }
@@ -1,8 +1,8 @@
 package ui;
 
+import javafx.application.Platform;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
-import javafx.collections.transformation.FilteredList;
 import javafx.beans.property.ReadOnlyObjectWrapper;
 import javafx.beans.property.ReadOnlyStringWrapper;
 import javafx.geometry.Insets;
@@ -14,29 +14,35 @@ import javafx.scene.layout.HBox;
 import javafx.stage.Stage;
 import models.Cultivo;
 import models.Actividad;
+import services.ActividadService;
 import services.CultivoService;
-import utils.CSVHandler;
 
-import java.io.IOException;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
-import java.util.Map;
 import java.util.stream.Collectors;
 
 public class ActividadWindow extends Stage {
-    private static final String ACTIVIDADES_FILE = "actividades.csv";
-
     private final CultivoService cultivoService;
-    private final List<Cultivo> cultivos;
+    private final ActividadService actividadService;
     private final ObservableList<ActividadRow> masterData;
-    private final FilteredList<ActividadRow> filteredData;
     private final TableView<ActividadRow> table;
-
-    public ActividadWindow(CultivoService cultivoService) {
+    private final FiltroAsincrono<ActividadRow> filtro;
+    private ComboBox<String> cultivoFilter;
+    private List<Cultivo> cultivosFiltro;   // en el orden del combo, después de "Todos"
+    private ComboBox<String> tipoFilter;
+    private ComboBox<String> vistaFilter;
+    private Label lblCarga;
+
+    private static final String TODAS = "Todas";
+    private static final String PROXIMAS = "Pendientes próximos 7 días";
+    private static final String VENCIDAS = "Vencidas";
+
+    public ActividadWindow(CultivoService cultivoService, ActividadService actividadService) {
         this.cultivoService = cultivoService;
-        this.cultivos = cultivoService.getCultivos();
+        this.actividadService = actividadService;
         this.masterData = FXCollections.observableArrayList();
-        this.filteredData = new FilteredList<>(masterData, p -> true);
 
         setTitle("Gestión de Actividades");
         BorderPane root = new BorderPane();
@@ -46,7 +52,8 @@ public class ActividadWindow extends Stage {
         root.setTop(filterBox);
 
         // Tabla central
-        table = new TableView<>(filteredData);
+        table = new TableView<>();
+        filtro = new FiltroAsincrono<>(table);
         setupTableColumns(table);
         setupRowEditing(table);
         root.setCenter(table);
@@ -66,37 +73,70 @@ public class ActividadWindow extends Stage {
         HBox box = new HBox(10);
         box.setPadding(new Insets(10));
 
-        ComboBox<String> cultivoFilter = new ComboBox<>();
+        cultivoFilter = new ComboBox<>();
         cultivoFilter.getItems().add("Todos");
-        cultivos.forEach(c -> cultivoFilter.getItems().add(c.getNombre()));
+        cultivosFiltro = cultivoService.leer(ArrayList<Cultivo>::new);
+        List<String> nombres = new ArrayList<>(cultivosFiltro.size());
+        for (Cultivo c : cultivosFiltro) nombres.add(c.getNombre());
+        cultivoFilter.getItems().addAll(nombres);
         cultivoFilter.setValue("Todos");
 
-        ComboBox<String> tipoFilter = new ComboBox<>();
+        tipoFilter = new ComboBox<>();
         tipoFilter.getItems().add("Todos");
         for (Actividad.Tipo t : Actividad.Tipo.values()) {
             tipoFilter.getItems().add(t.name());
         }
         tipoFilter.setValue("Todos");
 
-        cultivoFilter.setOnAction(e -> applyFilters(cultivoFilter, tipoFilter));
-        tipoFilter.setOnAction(e -> applyFilters(cultivoFilter, tipoFilter));
+        vistaFilter = new ComboBox<>(FXCollections.observableArrayList(TODAS, PROXIMAS, VENCIDAS));
+        vistaFilter.setValue(TODAS);
+
+        cultivoFilter.setOnAction(e -> filtro.solicitar(applyFilters()));
+        tipoFilter.setOnAction(e -> filtro.solicitar(applyFilters()));
+        vistaFilter.setOnAction(e -> filtro.ejecutar(applyFilters()));
+
+        lblCarga = new Label();
 
         box.getChildren().addAll(
             new Label("Cultivo:"), cultivoFilter,
-            new Label("Tipo:"), tipoFilter
+            new Label("Tipo:"), tipoFilter,
+            new Label("Vista:"), vistaFilter,
+            lblCarga
         );
         return box;
     }
 
-    private void applyFilters(ComboBox<String> cultivoFilter, ComboBox<String> tipoFilter) {
-        String selCult = cultivoFilter.getValue();
+    /**
+     * Filtro con los valores actuales de los combos, para correr fuera del
+     * hilo de JavaFX. Las vistas por fecha toman sus filas del índice de
+     * pendientes del servicio, y los contadores de la barra se calculan en
+     * el mismo hilo de fondo.
+     */
+    private FiltroAsincrono.Consulta<ActividadRow> applyFilters() {
+        // por id: dos cultivos pueden llamarse igual
+        int i = cultivoFilter.getSelectionModel().getSelectedIndex();
+        long selCult = i > 0 ? cultivosFiltro.get(i - 1).getId() : 0;
         String selTipo = tipoFilter.getValue();
-        filteredData.setPredicate(row -> {
-            boolean matchCult = selCult.equals("Todos") || row.getCultivo().getNombre().equals(selCult);
-            String rowTipo = row.tipoProperty().get();
-            boolean matchTipo = selTipo.equals("Todos") || rowTipo.equals(selTipo);
-            return matchCult && matchTipo;
-        });
+        String vista = vistaFilter.getValue();
+        List<ActividadRow> todas = vista.equals(TODAS) ? new ArrayList<>(masterData) : null;
+        LocalDate hoy = LocalDate.now();
+        return cancelada -> {
+            actualizarCarga(hoy);
+            List<ActividadRow> filas;
+            switch (vista) {
+                case PROXIMAS: filas = filas(actividadService.pendientesEntre(hoy, hoy.plusDays(7))); break;
+                case VENCIDAS: filas = filas(actividadService.vencidas(hoy)); break;
+                default:       filas = todas;
+            }
+            List<ActividadRow> res = new ArrayList<>();
+            for (ActividadRow row : filas) {
+                if (cancelada.getAsBoolean()) break;
+                boolean matchCult = selCult == 0 || row.getCultivo().getId() == selCult;
+                boolean matchTipo = selTipo.equals("Todos") || row.getActividad().getTipo().name().equals(selTipo);
+                if (matchCult && matchTipo) res.add(row);
+            }
+            return res;
+        };
     }
 
     private void setupTableColumns(TableView<ActividadRow> table) {
@@ -143,23 +183,19 @@ public class ActividadWindow extends Stage {
                 new Alert(Alert.AlertType.WARNING, "Seleccione una actividad").showAndWait();
                 return;
             }
-            sel.getActividad().setCompletada(true);
-            table.refresh();
-            saveActivities();
+            marcar(sel, true);
         });
-        Button saveBtn = new Button("Guardar");
-        saveBtn.setOnAction(e -> saveActivities());
         Button exitBtn = new Button("Salir");
         exitBtn.setOnAction(e -> close());
-        box.getChildren().addAll(addBtn, completeBtn, saveBtn, exitBtn);
+        box.getChildren().addAll(addBtn, completeBtn, exitBtn);
         return box;
     }
 
     private void showAddDialog() {
         // Mostrar solo cultivos sin actividades previas
-        List<Cultivo> disponibles = cultivos.stream()
+        List<Cultivo> disponibles = cultivoService.leer(l -> l.stream()
             .filter(c -> c.getActividades().isEmpty())
-            .collect(Collectors.toList());
+            .collect(Collectors.toList()));
 
         Dialog<ActividadRow> dlg = new Dialog<>();
         dlg.setTitle("Agregar Actividad");
@@ -184,13 +220,20 @@ public class ActividadWindow extends Stage {
         dlg.setResultConverter(bt -> {
             if (bt == ButtonType.OK && cbCult.getValue() != null && cbTipo.getValue() != null) {
                 Actividad a = new Actividad(cbTipo.getValue(), dp.getValue());
-                cbCult.getValue().addActividad(a);
+                actividadService.registrarActividad(cbCult.getValue(), a);
                 return new ActividadRow(cbCult.getValue(), a);
             }
             return null;
         });
 
-        dlg.showAndWait().ifPresent(r -> masterData.add(r));
+        dlg.showAndWait().ifPresent(r -> {
+            // mantener masterData ordenada por fecha
+            int i = 0;
+            int dia = r.getActividad().getDia();
+            while (i < masterData.size() && masterData.get(i).getActividad().getDia() <= dia) i++;
+            masterData.add(i, r);
+            filtro.ejecutar(applyFilters());
+        });
     }
 
     private void showEditDialog(ActividadRow rowData) {
@@ -204,34 +247,54 @@ public class ActividadWindow extends Stage {
 
         dlg.setResultConverter(bt -> bt == ButtonType.OK ? cbEst.getValue().equals("COMPLETADA") : null);
         dlg.showAndWait().ifPresent(completed -> {
-            rowData.getActividad().setCompletada(completed);
-            table.refresh();
+            marcar(rowData, completed);
         });
     }
 
-    private void saveActivities() {
-        try {
-            CSVHandler.guardarActividades(ACTIVIDADES_FILE, cultivos);
-            new Alert(Alert.AlertType.INFORMATION, "Actividades guardadas").showAndWait();
-        } catch (IOException e) {
-            new Alert(Alert.AlertType.ERROR, "Error al guardar: " + e.getMessage()).showAndWait();
-        }
+    /**
+     * Cambia el estado sin volver a filtrar: la celda de estado sigue a la
+     * actividad. En las vistas de pendientes, una fila completada ya no
+     * corresponde y se quita.
+     */
+    private void marcar(ActividadRow row, boolean completada) {
+        actividadService.marcarCompletada(row.getCultivo(), row.getActividad(), completada);
+        if (completada && !vistaFilter.getValue().equals(TODAS)) table.getItems().remove(row);
+        LocalDate hoy = LocalDate.now();
+        filtro.enSegundoPlano(() -> actualizarCarga(hoy));
     }
 
+    private List<ActividadRow> filas(List<Actividad> actividades) {
+        List<Cultivo> cultivos = actividadService.cultivosDe(actividades);
+        List<ActividadRow> res = new ArrayList<>(actividades.size());
+        for (int i = 0; i < actividades.size(); i++) res.add(new ActividadRow(cultivos.get(i), actividades.get(i)));
+        return res;
+    }
+
+    /** Contadores de la barra; se consultan fuera del hilo de JavaFX. */
+    private void actualizarCarga(LocalDate hoy) {
+        int vencidas = actividadService.contarVencidas(hoy);
+        int proximas = actividadService.contarPendientesEntre(hoy, hoy.plusDays(7));
+        Platform.runLater(() -> lblCarga.setText("Vencidas: " + vencidas + "   Próximos 7 días: " + proximas));
+    }
+
+    // Las actividades viven en memoria (vinculadas una vez al iniciar) y cada
+    // cambio queda en el journal a través de ActividadService. Las filas se
+    // arman en el hilo de las consultas, recorriendo los cultivos una vez
+    // bajo un solo lock de lectura.
     private void loadData() {
-        masterData.clear();
-        try {
-            Map<String, List<Actividad>> map = CSVHandler.leerActividades(ACTIVIDADES_FILE, cultivos);
-            for (Cultivo c : cultivos) {
-                List<Actividad> acts = map.getOrDefault(c.getNombre(), List.of());
-                c.getActividades().clear();
-                c.getActividades().addAll(acts);
-                for (Actividad a : acts) {
-                    masterData.add(new ActividadRow(c, a));
+        filtro.enSegundoPlano(() -> {
+            List<ActividadRow> filas = cultivoService.leer(cultivos -> {
+                List<ActividadRow> res = new ArrayList<>();
+                for (Cultivo c : cultivos) {
+                    for (Actividad a : c.getActividades()) res.add(new ActividadRow(c, a));
                 }
-            }
-        } catch (IOException e) {
-            new Alert(Alert.AlertType.ERROR, "Error al cargar: " + e.getMessage()).showAndWait();
-        }
+                return res;
+            });
+            filas.sort(Comparator.comparingInt(f -> f.getActividad().getDia()));
+            Platform.runLater(() -> {
+                masterData.setAll(filas);
+                filtro.ejecutar(applyFilters());
+            });
+        });
     }
 }
@@ -4,33 +4,34 @@ import javafx.application.Application;
 import javafx.application.Platform;
 import javafx.geometry.Insets;
 import javafx.scene.Scene;
+import javafx.scene.control.Alert;
 import javafx.scene.control.Button;
+import javafx.scene.control.Label;
 import javafx.scene.layout.VBox;
 import javafx.stage.Stage;
 import javafx.stage.WindowEvent;
-import models.Cultivo;
-import models.Parcela;
+import services.ActividadService;
 import services.CultivoService;
 import services.ParcelaService;
-import utils.CSVHandler;
-
-import java.io.IOException;
-import java.util.LinkedHashMap;
-import java.util.List;
-import java.util.Map;
+import utils.Journal;
+import utils.Persistencia;
 
 public class App2 extends Application {
     private static String cultCsv;
-    private static final String parcCsv = "parcelas.csv";
+    private static final String parcCsv = Modelo.PARCELAS;
+    private static final String actCsv  = Modelo.ACTIVIDADES;
 
-    private List<Cultivo> cultivos;
-    private Map<String, Parcela> parcelas;
     private CultivoService cs;
     private ParcelaService ps;
+    private ActividadService as;
+    private Journal journal;
+    private final Persistencia persistencia = new Persistencia();
 
     public static void main(String[] args) {
         if (args.length != 1) {
+            // el launcher ya inició JavaFX al llegar aquí: el modo por lotes es ui.Consola
             System.err.println("Uso: java -jar App2.jar <cultivos.csv>");
+            System.err.println("     java -cp App2.jar ui.Consola <cultivos.csv> <comando> (sin interfaz)");
             System.exit(1);
         }
         cultCsv = args[0];
@@ -39,26 +40,11 @@ public class App2 extends Application {
 
     @Override
     public void init() throws Exception {
-        // 1) Leer cultivos
-        cultivos = CSVHandler.leerCultivos(cultCsv);
-
-        // 2) Leer o inicializar parcelas.csv
-        parcelas = new LinkedHashMap<>();
-        for (Parcela p : CSVHandler.leerParcelas(parcCsv)) {
-            parcelas.put(p.getCodigo(), p);
-        }
-
-        // 3) Garantizar todas las parcelas de cultivos
-        for (Cultivo c : cultivos) {
-            parcelas.putIfAbsent(c.getParcela().getCodigo(), c.getParcela());
-        }
-
-        // 4) Guardar estado actualizado
-        CSVHandler.guardarParcelas(parcelas.values(), parcCsv);
-
-        // 5) Crear servicios
-        cs = new CultivoService(cultivos);
-        ps = new ParcelaService(parcelas.values());
+        Modelo m = Modelo.cargar(cultCsv, parcCsv, actCsv, persistencia);
+        cs = m.cs;
+        ps = m.ps;
+        as = m.as;
+        journal = m.journal;
     }
 
     @Override
@@ -74,33 +60,52 @@ public class App2 extends Application {
 
         Button btnPar = new Button("Gestión de Parcelas");
         btnPar.setMaxWidth(Double.MAX_VALUE);
-        btnPar.setOnAction(e -> new ParcelaWindow(ps, parcCsv).show());
+        btnPar.setOnAction(e -> new ParcelaWindow(ps).show());
 
         Button btnAct = new Button("Gestión de Actividades");
         btnAct.setMaxWidth(Double.MAX_VALUE);
-        btnAct.setOnAction(e -> new ActividadWindow(cs).show());
+        btnAct.setOnAction(e -> new ActividadWindow(cs, as).show());
 
         Button btnRep = new Button("Búsqueda / Reporte");
         btnRep.setMaxWidth(Double.MAX_VALUE);
         btnRep.setOnAction(e -> new ReporteWindow(cs).show());
 
+        Label lblEstado = new Label();
+        persistencia.setOyente(new Persistencia.Oyente() {
+            @Override
+            public void guardado() {
+                Platform.runLater(() -> lblEstado.setText("Cambios guardados"));
+            }
+
+            @Override
+            public void fallo(Throwable ex) {
+                Platform.runLater(() -> lblEstado.setText("Error al guardar: " + ex.getMessage()));
+            }
+        });
+
         Button btnSalir = new Button("Salir");
         btnSalir.setMaxWidth(Double.MAX_VALUE);
         btnSalir.setOnAction(e -> {
-            // Guardar ambos CSV y salir
-            try {
-                CSVHandler.guardarCultivos(cultivos, cultCsv);
-                CSVHandler.guardarParcelas(ps.getParcelas().values(), parcCsv);
-            } catch (IOException ex) {
-                ex.printStackTrace();
-            }
-            Platform.exit();
-            System.exit(0);
+            // La última compactación copia el modelo (CSV e instantánea) bajo
+            // un mismo lock; se sale cuando todo quedó en disco
+            btnSalir.setDisable(true);
+            lblEstado.setText("Guardando…");
+            journal.cerrar()
+                .handle((v, ex) -> ex)
+                .thenCombine(persistencia.terminar(), (ex, v) -> ex)
+                .thenAccept(ex -> Platform.runLater(() -> {
+                    if (ex != null) {
+                        new Alert(Alert.AlertType.ERROR,
+                            "No se pudo guardar: " + Persistencia.causa(ex).getMessage()).showAndWait();
+                    }
+                    Platform.exit();
+                    System.exit(0);
+                }));
         });
 
-        VBox root = new VBox(10, btnCult, btnPar, btnAct, btnRep, btnSalir);
+        VBox root = new VBox(10, btnCult, btnPar, btnAct, btnRep, btnSalir, lblEstado);
         root.setPadding(new Insets(15));
-        stage.setScene(new Scene(root, 300, 280));
+        stage.setScene(new Scene(root, 300, 310));
         stage.show();
     }
 }
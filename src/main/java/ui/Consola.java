@@ -0,0 +1,222 @@
+package ui;
+
+import models.Cultivo;
+import models.EstadoCultivo;
+import services.CultivoService;
+import utils.CSVHandler;
+import utils.Persistencia;
+import utils.Temporada;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Modo por lotes: carga los datos igual que la interfaz gráfica pero sin
+ * iniciar JavaFX, ejecuta un comando y termina. La salida va a stdout en
+ * columnas separadas por tabulador con una fila de encabezado; los errores
+ * van a stderr con código de salida distinto de 0.
+ *
+ * Es una clase aparte a propósito: si la clase principal extiende
+ * {@code Application} el launcher de Java inicia el toolkit antes de main.
+ * Los modelos usan las propiedades de javafx-base (no el toolkit), así que
+ * ese jar sí debe estar en el classpath. Sólo {@code guardar} escribe en
+ * los archivos cargados; el resto de los comandos los deja intactos.
+ *
+ * <pre>
+ * java -cp App2.jar:javafx-base-17.0.7-&lt;so&gt;.jar ui.Consola &lt;cultivos.csv&gt; &lt;comando&gt; [args]
+ *   cargar                         totales del modelo cargado
+ *   buscar &lt;texto&gt;                 cultivos por nombre o variedad
+ *   reporte [ESTADO]               resumen por estado, o los cultivos de ESTADO
+ *   exportar-actividades &lt;csv&gt;     actividades de todos los cultivos
+ *   guardar [directorio]           reescribe los CSV (o los copia a directorio)
+ *   archivar &lt;zip&gt;                 guarda la temporada comprimida en zip
+ *   temporada &lt;zip&gt;                totales de una temporada archivada
+ * </pre>
+ */
+public final class Consola {
+
+    private static final String USO =
+        "Uso: ui.Consola <cultivos.csv> cargar | buscar <texto> | reporte [ESTADO]"
+        + " | exportar-actividades <csv> | guardar [directorio] | archivar <zip> | temporada <zip>";
+
+    private Consola() { }
+
+    public static void main(String[] args) {
+        System.exit(ejecutar(args));
+    }
+
+    /** Ejecuta el comando y devuelve el código de salida. */
+    public static int ejecutar(String[] args) {
+        if (args.length < 2) {
+            System.err.println(USO);
+            return 2;
+        }
+        PrintWriter out = new PrintWriter(new BufferedWriter(
+                new OutputStreamWriter(System.out, StandardCharsets.UTF_8)));
+        Persistencia persistencia = new Persistencia();
+        try {
+            Modelo m = Modelo.cargar(args[0], Modelo.PARCELAS, Modelo.ACTIVIDADES, persistencia);
+            return comando(m, args, out);
+        } catch (IOException | RuntimeException ex) {
+            System.err.println("error: " + Persistencia.causa(ex).getMessage());
+            return 1;
+        } finally {
+            out.flush();
+            persistencia.terminar().join();
+        }
+    }
+
+    private static int comando(Modelo m, String[] args, PrintWriter out) throws IOException {
+        String cmd = args[1];
+        switch (cmd) {
+            case "cargar":
+                out.println("clave\tvalor");
+                out.println("cultivos\t" + m.cs.contar());
+                out.println("parcelas\t" + m.ps.contar());
+                out.println("actividades\t" + contarActividades(m.cs));
+                out.println("superficie\t" + numero(m.cs.superficieTotal()));
+                return 0;
+
+            case "buscar":
+                if (args.length < 3) break;
+                filas(m.cs.buscarPorNombreOVariedad(args[2]), out);
+                return 0;
+
+            case "reporte":
+                if (args.length < 3) {
+                    EnumMap<EstadoCultivo, Integer> n = m.cs.contarPorEstado();
+                    EnumMap<EstadoCultivo, Double> sup = m.cs.superficiePorEstado();
+                    out.println("estado\tcantidad\tsuperficie");
+                    for (EstadoCultivo e : EstadoCultivo.values()) {
+                        out.println(e.name() + "\t" + n.getOrDefault(e, 0) + "\t"
+                                    + numero(sup.getOrDefault(e, 0.0)));
+                    }
+                    return 0;
+                }
+                EstadoCultivo estado;
+                try {
+                    estado = EstadoCultivo.valueOf(args[2].toUpperCase(Locale.ROOT));
+                } catch (IllegalArgumentException ex) {
+                    System.err.println("estado desconocido: " + args[2]);
+                    return 2;
+                }
+                filas(m.cs.reportePorEstado(estado), out);
+                return 0;
+
+            case "exportar-actividades":
+                if (args.length < 3) break;
+                m.cs.leer(l -> {
+                    try {
+                        CSVHandler.guardarActividades(args[2], l);
+                    } catch (IOException ex) {
+                        throw new UncheckedIOException(ex);
+                    }
+                    return null;
+                });
+                out.println("clave\tvalor");
+                out.println("actividades\t" + contarActividades(m.cs));
+                out.println("archivo\t" + args[2]);
+                return 0;
+
+            case "guardar":
+                if (args.length < 3) {
+                    m.journal.compactar();   // CSV en su lugar, journal vacío
+                    out.println("clave\tvalor");
+                    out.println("archivo\t" + m.cultCsv);
+                } else {
+                    File dir = new File(args[2]);
+                    if (!dir.isDirectory() && !dir.mkdirs()) throw new IOException("no se pudo crear " + dir);
+                    String cult = new File(dir, new File(m.cultCsv).getName()).getPath();
+                    m.cs.leer(l -> {
+                        try {
+                            CSVHandler.guardarCultivos(l, cult);
+                            CSVHandler.guardarActividades(new File(dir, m.actCsv).getPath(), l);
+                        } catch (IOException ex) {
+                            throw new UncheckedIOException(ex);
+                        }
+                        return null;
+                    });
+                    CSVHandler.guardarParcelas(m.ps.pagina(0, m.ps.contar()), new File(dir, m.parcCsv).getPath());
+                    out.println("clave\tvalor");
+                    out.println("archivo\t" + cult);
+                }
+                out.println("cultivos\t" + m.cs.contar());
+                return 0;
+
+            case "archivar":
+                if (args.length < 3) break;
+                m.cs.leer(l -> {
+                    try {
+                        CSVHandler.guardarTemporada(args[2], m.ps.pagina(0, m.ps.contar()), l);
+                    } catch (IOException ex) {
+                        throw new UncheckedIOException(ex);
+                    }
+                    return null;
+                });
+                out.println("clave\tvalor");
+                out.println("archivo\t" + args[2]);
+                out.println("cultivos\t" + m.cs.contar());
+                return 0;
+
+            case "temporada":
+                if (args.length < 3) break;
+                Temporada t = CSVHandler.leerTemporada(args[2]);
+                double superficie = 0;
+                long actividades = 0;
+                for (Cultivo c : t.getCultivos()) {
+                    superficie += c.getSuperficie();
+                    actividades += c.contarActividades();
+                }
+                out.println("clave\tvalor");
+                out.println("cultivos\t" + t.getCultivos().size());
+                out.println("parcelas\t" + t.getParcelas().size());
+                out.println("actividades\t" + actividades);
+                out.println("superficie\t" + numero(superficie));
+                return 0;
+
+            default:
+                System.err.println("comando desconocido: " + cmd);
+                System.err.println(USO);
+                return 2;
+        }
+        System.err.println(USO);
+        return 2;
+    }
+
+    private static void filas(List<Cultivo> cultivos, PrintWriter out) {
+        out.println("nombre\tvariedad\tsuperficie\tparcela\tfechaSiembra\testado\tactividades");
+        for (Cultivo c : cultivos) {
+            out.println(texto(c.getNombre()) + "\t" + texto(c.getVariedad()) + "\t"
+                        + numero(c.getSuperficie()) + "\t"
+                        + (c.getParcela() == null ? "" : texto(c.getParcela().getCodigo())) + "\t"
+                        + c.getFechaSiembra() + "\t" + c.getEstadoEnum().name() + "\t"
+                        + c.contarActividades());
+        }
+    }
+
+    private static long contarActividades(CultivoService cs) {
+        return cs.leer(l -> {
+            long n = 0;
+            for (Cultivo c : l) n += c.contarActividades();
+            return n;
+        });
+    }
+
+    /** Punto decimal fijo, sin separador de miles. */
+    private static String numero(double v) {
+        return String.format(Locale.ROOT, "%.2f", v);
+    }
+
+    /** Un tabulador o salto de línea dentro de un campo rompería la fila. */
+    private static String texto(String s) {
+        return s == null ? "" : s.replace('\t', ' ').replace('\n', ' ').replace('\r', ' ');
+    }
+}
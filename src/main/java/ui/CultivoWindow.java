@@ -1,22 +1,24 @@
 package ui;
 
-import javafx.beans.property.ReadOnlyStringWrapper;
 import javafx.collections.FXCollections;
-import javafx.collections.ObservableList;
+import javafx.concurrent.Task;
 import javafx.geometry.Insets;
 import javafx.scene.Scene;
 import javafx.scene.control.*;
-import javafx.scene.control.cell.PropertyValueFactory;
 import javafx.scene.layout.BorderPane;
 import javafx.scene.layout.GridPane;
 import javafx.scene.layout.HBox;
+import javafx.stage.FileChooser;
 import javafx.stage.Stage;
 import models.*;
 import services.CultivoService;
+import services.Importador;
 import services.ParcelaService;
-import utils.CSVHandler;
+import utils.LoteImportado;
 
+import java.io.File;
 import java.time.LocalDate;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Optional;
 
@@ -48,31 +50,39 @@ public class CultivoWindow extends Stage {
         Button bNew  = new Button("Nuevo");
         Button bEdit = new Button("Editar");
         Button bDel  = new Button("Eliminar");
+        Button bImp  = new Button("Importar");
         Button bExit = new Button("Cerrar");
-        bar.getChildren().addAll(bList, bNew, bEdit, bDel, bExit);
+        bar.getChildren().addAll(bList, bNew, bEdit, bDel, bImp, bExit);
         root.setTop(bar);
 
         /* tabla */
         TableColumn<Cultivo, String> cNom = new TableColumn<>("Nombre");
-        cNom.setCellValueFactory(c -> new ReadOnlyStringWrapper(c.getValue().getNombre()));
+        cNom.setCellValueFactory(ListaPaginada.valor(Cultivo::nombreProperty));
 
         TableColumn<Cultivo, String> cVar = new TableColumn<>("Variedad");
-        cVar.setCellValueFactory(c -> new ReadOnlyStringWrapper(c.getValue().getVariedad()));
-
-        TableColumn<Cultivo, Double> cSup = new TableColumn<>("Superficie");
-        cSup.setCellValueFactory(new PropertyValueFactory<>("superficie"));
-
-        TableColumn<Cultivo, String> cPar = new TableColumn<>("Parcela");
-        cPar.setCellValueFactory(c -> new ReadOnlyStringWrapper(
-                c.getValue().getParcela() != null ? c.getValue().getParcela().getCodigo() : "—"));
+        cVar.setCellValueFactory(ListaPaginada.valor(Cultivo::variedadProperty));
+
+        TableColumn<Cultivo, Number> cSup = new TableColumn<>("Superficie");
+        cSup.setCellValueFactory(ListaPaginada.valor(Cultivo::superficieProperty));
+
+        TableColumn<Cultivo, Parcela> cPar = new TableColumn<>("Parcela");
+        cPar.setCellValueFactory(ListaPaginada.valor(Cultivo::parcelaProperty));
+        cPar.setCellFactory(col -> new TableCell<>() {
+            @Override
+            protected void updateItem(Parcela p, boolean empty) {
+                super.updateItem(p, empty);
+                setText(empty ? null : p != null ? p.getCodigo() : "—");
+            }
+        });
 
         TableColumn<Cultivo, LocalDate> cFec = new TableColumn<>("Fecha Siembra");
-        cFec.setCellValueFactory(new PropertyValueFactory<>("fechaSiembra"));
+        cFec.setCellValueFactory(ListaPaginada.valor(Cultivo::fechaSiembraProperty));
 
-        TableColumn<Cultivo, String> cEst = new TableColumn<>("Estado");
-        cEst.setCellValueFactory(c -> new ReadOnlyStringWrapper(c.getValue().getEstado()));
+        TableColumn<Cultivo, EstadoCultivo> cEst = new TableColumn<>("Estado");
+        cEst.setCellValueFactory(ListaPaginada.valor(Cultivo::estadoProperty));
 
         table.getColumns().addAll(cNom, cVar, cSup, cPar, cFec, cEst);
+        ListaPaginada.permitirOrden(table);
         root.setCenter(table);
 
         /* wiring */
@@ -80,6 +90,7 @@ public class CultivoWindow extends Stage {
         bNew .setOnAction(e -> crear());
         bEdit.setOnAction(e -> editar());
         bDel .setOnAction(e -> eliminar());
+        bImp .setOnAction(e -> importar(bImp));
         bExit.setOnAction(e -> close());
 
         setScene(new Scene(root, 760, 420));
@@ -88,15 +99,22 @@ public class CultivoWindow extends Stage {
     /* ═════════════════════ operaciones ═════════════════════ */
 
     private void listar() {
-        ObservableList<Cultivo> data = FXCollections.observableArrayList(cs.getCultivos());
-        table.setItems(data);
+        table.setItems(new ListaPaginada<>(fuente(cs)));
+    }
+
+    static ListaPaginada.Fuente<Cultivo> fuente(CultivoService cs) {
+        return new ListaPaginada.Fuente<>() {
+            public int contar() { return cs.contar(); }
+            public List<Cultivo> pagina(int desde, int n) { return cs.pagina(desde, n); }
+            public List<Cultivo> ordenadas(Comparator<? super Cultivo> cmp) { return cs.ordenados(cmp); }
+        };
     }
 
     private void crear() {
         Dialog<Cultivo> dlg = dialogoCultivo(null);
         dlg.showAndWait().ifPresent(c -> {
             cs.agregarCultivo(c);   // usa nuevo método
-            listar(); salvar();
+            listar();
         });
     }
 
@@ -105,10 +123,10 @@ public class CultivoWindow extends Stage {
         if (sel == null) return;
 
         Dialog<Cultivo> dlg = dialogoCultivo(sel);
-        dlg.showAndWait().ifPresent(c -> {
-            cs.reemplazarCultivo(sel, c);   // usa nuevo método
-            listar(); salvar();
-        });
+        // edición en el mismo objeto: las celdas observan sus propiedades
+        dlg.showAndWait().ifPresent(c -> cs.editarCultivo(sel,
+                c.getNombre(), c.getVariedad(), c.getSuperficie(),
+                c.getParcela(), c.getFechaSiembra(), c.getEstadoEnum()));
     }
 
     private void eliminar() {
@@ -119,7 +137,63 @@ public class CultivoWindow extends Stage {
                 "¿Eliminar cultivo \"" + sel.getNombre() + "\"?",
                 ButtonType.YES, ButtonType.NO);
         a.showAndWait().filter(b -> b == ButtonType.YES)
-                       .ifPresent(b -> { cs.eliminarCultivo(sel); listar(); salvar(); });
+                       .ifPresent(b -> { cs.eliminarCultivo(sel); listar(); });
+    }
+
+    /** Importa un CSV externo de cultivos (y opcionalmente otro de actividades). */
+    private void importar(Button boton) {
+        FileChooser fc = new FileChooser();
+        fc.getExtensionFilters().add(new FileChooser.ExtensionFilter("CSV", "*.csv"));
+        fc.setTitle("CSV de cultivos");
+        File cultivos = fc.showOpenDialog(this);
+        if (cultivos == null) return;
+
+        File actividades = null;
+        Alert preg = new Alert(Alert.AlertType.CONFIRMATION,
+                "¿Importar también un CSV de actividades?", ButtonType.YES, ButtonType.NO);
+        if (preg.showAndWait().filter(b -> b == ButtonType.YES).isPresent()) {
+            fc.setTitle("CSV de actividades");
+            actividades = fc.showOpenDialog(this);
+        }
+        String act = actividades == null ? null : actividades.getPath();
+
+        Importador imp = new Importador(cs, ps);
+        Task<LoteImportado> task = new Task<>() {
+            @Override
+            protected LoteImportado call() throws Exception {
+                return imp.importar(cultivos.getPath(), act);
+            }
+        };
+        task.setOnSucceeded(e -> {
+            boton.setDisable(false);
+            mostrarResultado(task.getValue());
+            listar();
+        });
+        task.setOnFailed(e -> {
+            boton.setDisable(false);
+            new Alert(Alert.AlertType.ERROR,
+                    "No se pudo importar: " + task.getException().getMessage()).showAndWait();
+        });
+        boton.setDisable(true);
+        Thread t = new Thread(task, "importacion");
+        t.setDaemon(true);
+        t.start();
+    }
+
+    private void mostrarResultado(LoteImportado lote) {
+        List<LoteImportado.ErrorFila> errores = lote.getErrores();
+        StringBuilder sb = new StringBuilder()
+                .append(lote.getCultivos().size()).append(" cultivos y ")
+                .append(lote.getActividades()).append(" actividades importados.");
+        if (!errores.isEmpty()) {
+            sb.append("\n").append(errores.size()).append(" filas rechazadas:");
+            errores.stream().limit(20).forEach(err -> sb.append("\n").append(err));
+            if (errores.size() > 20) sb.append("\n…");
+        }
+        Alert a = new Alert(errores.isEmpty() ? Alert.AlertType.INFORMATION : Alert.AlertType.WARNING,
+                sb.toString());
+        a.setHeaderText("Importación");
+        a.showAndWait();
     }
 
     /* ═════════════ diálogo de alta / edición ═════════════ */
@@ -155,7 +229,9 @@ public class CultivoWindow extends Stage {
 
         dlg.setResultConverter(bt -> {
             if (bt != OK) return null;
-            return new Cultivo(
+            // al editar, el resultado sólo transporta los valores: conserva el id
+            Cultivo c = new Cultivo(
+                    edit ? base.getId() : 0,
                     tfNom.getText().trim(),
                     tfVar.getText().trim(),
                     Double.parseDouble(tfSup.getText()),
@@ -163,15 +239,9 @@ public class CultivoWindow extends Stage {
                     dpFec.getValue(),
                     cbEst.getValue()
             );
+            c.asignarIdSiFalta();
+            return c;
         });
         return dlg;
     }
-
-    /* ═════════════════════ persistencia ═══════════════════ */
-
-    private void salvar() {
-        try {
-            CSVHandler.guardarCultivos(cs.getCultivos(), "cultivos.csv");
-        } catch (Exception ex) { ex.printStackTrace(); }
-    }
 }
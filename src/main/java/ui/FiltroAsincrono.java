@@ -0,0 +1,94 @@
+package ui;
+
+import javafx.animation.PauseTransition;
+import javafx.collections.FXCollections;
+import javafx.concurrent.Task;
+import javafx.scene.control.Alert;
+import javafx.scene.control.TableView;
+import javafx.util.Duration;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Ejecuta el filtrado de una tabla en un hilo de fondo.
+ *
+ * Las solicitudes por teclado se agrupan (debounce); cada consulta nueva
+ * cancela la anterior y el resultado llega a la tabla en un solo cambio de
+ * items en el hilo de JavaFX. Si la consulta vigente falla la tabla queda
+ * como estaba y el error se muestra en un diálogo.
+ */
+class FiltroAsincrono<T> {
+
+    /** Consulta que debe revisar {@code cancelada} en sus ciclos largos. */
+    interface Consulta<T> {
+        List<T> ejecutar(BooleanSupplier cancelada);
+    }
+
+    private static final Duration ESPERA = Duration.millis(200);
+
+    // un solo hilo: las consultas nunca corren en paralelo entre sí
+    private static final ExecutorService HILO = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "filtro-tabla");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private final TableView<T> table;
+    private final PauseTransition espera = new PauseTransition(ESPERA);
+    private Consulta<T> pendiente;
+    private Task<List<T>> actual;
+
+    FiltroAsincrono(TableView<T> table) {
+        this.table = table;
+        espera.setOnFinished(e -> lanzar());
+    }
+
+    /** Programa la consulta tras una pausa sin nuevas solicitudes (entrada por teclado). */
+    void solicitar(Consulta<T> consulta) {
+        pendiente = consulta;
+        cancelarActual();
+        espera.playFromStart();
+    }
+
+    /** Lanza la consulta de inmediato (botones, selección en combos). */
+    void ejecutar(Consulta<T> consulta) {
+        pendiente = consulta;
+        espera.stop();
+        lanzar();
+    }
+
+    /** Ejecuta {@code tarea} en el hilo de las consultas, después de las ya encoladas. */
+    void enSegundoPlano(Runnable tarea) {
+        HILO.execute(tarea);
+    }
+
+    private void lanzar() {
+        cancelarActual();
+        Consulta<T> consulta = pendiente;
+        Task<List<T>> task = new Task<>() {
+            @Override
+            protected List<T> call() {
+                return consulta.ejecutar(this::isCancelled);
+            }
+        };
+        task.setOnSucceeded(e -> {
+            if (task == actual) table.setItems(FXCollections.observableList(task.getValue()));
+        });
+        task.setOnFailed(e -> {
+            Throwable ex = task.getException();
+            ex.printStackTrace();
+            if (task == actual) {
+                new Alert(Alert.AlertType.ERROR, "Error al filtrar: " + ex.getMessage()).showAndWait();
+            }
+        });
+        actual = task;
+        HILO.execute(task);
+    }
+
+    private void cancelarActual() {
+        if (actual != null) actual.cancel();
+    }
+}
@@ -0,0 +1,117 @@
+package ui;
+
+import javafx.application.Platform;
+import javafx.beans.value.ObservableValue;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableListBase;
+import javafx.scene.control.TableColumn;
+import javafx.scene.control.TableView;
+import javafx.util.Callback;
+
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * ObservableList de sólo lectura que materializa filas por páginas a medida
+ * que la tabla las pide, con una caché acotada de páginas (LRU). Abrir una
+ * ventana no copia la colección: cuesta lo mismo con diez filas que con un
+ * millón. El tamaño se fija al crearla; tras una mutación la ventana crea
+ * una lista nueva. Si la fuente se achica por una mutación hecha en otra
+ * ventana, las filas que faltan se leen como null (ver {@link #valor}) y la
+ * lista se vuelve a sincronizar con la fuente en el siguiente pulso.
+ */
+class ListaPaginada<T> extends ObservableListBase<T> {
+
+    /** Origen de datos paginado (normalmente un servicio). */
+    interface Fuente<T> {
+        int contar();
+        List<T> pagina(int desde, int cantidad);
+        /** Todas las filas ordenadas, copiadas y ordenadas de una vez en la fuente. */
+        List<T> ordenadas(Comparator<? super T> cmp);
+    }
+
+    private static final int TAM_PAGINA = 256;
+    private static final int MAX_PAGINAS = 64;
+
+    private final Fuente<T> fuente;
+    private int total;
+    private boolean resincronizando;
+    private final Map<Integer, List<T>> paginas =
+        new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, List<T>> e) {
+                return size() > MAX_PAGINAS;
+            }
+        };
+
+    ListaPaginada(Fuente<T> fuente) {
+        this.fuente = fuente;
+        this.total = fuente.contar();
+    }
+
+    @Override
+    public T get(int index) {
+        if (index < 0 || index >= total) throw new IndexOutOfBoundsException(index);
+        int n = index / TAM_PAGINA;
+        List<T> pag = paginas.computeIfAbsent(n, k -> fuente.pagina(k * TAM_PAGINA, TAM_PAGINA));
+        int i = index - n * TAM_PAGINA;
+        if (i < pag.size()) return pag.get(i);
+        // la fuente se achicó desde que se creó la lista: no se notifica un
+        // cambio en medio de la lectura de la tabla, sino en el próximo pulso
+        if (!resincronizando) {
+            resincronizando = true;
+            Platform.runLater(this::resincronizar);
+        }
+        return null;
+    }
+
+    /** Vuelve a leer el tamaño de la fuente y avisa que todas las filas cambiaron. */
+    private void resincronizar() {
+        resincronizando = false;
+        int antes = total;
+        paginas.clear();
+        total = fuente.contar();
+        beginChange();
+        nextRemove(0, Collections.nCopies(antes, null));   // las anteriores ya no se conocen
+        nextAdd(0, total);
+        endChange();
+    }
+
+    @Override
+    public int size() {
+        return total;
+    }
+
+    /**
+     * Fábrica de valores de columna para tablas sobre una ListaPaginada: una
+     * fila null (la fuente se achicó) se muestra vacía en vez de fallar.
+     */
+    static <S, V> Callback<TableColumn.CellDataFeatures<S, V>, ObservableValue<V>> valor(
+            Function<S, ? extends ObservableValue<V>> f) {
+        return c -> c.getValue() == null ? null : f.apply(c.getValue());
+    }
+
+    /**
+     * La lista es de sólo lectura, así que la política de orden por defecto de
+     * TableView fallaría. Al pedir un orden la fuente entrega sus filas
+     * ordenadas de una vez (bajo el lock del servicio, sin pasar por las
+     * páginas ni la caché) y la tabla pasa a mostrar esa lista.
+     */
+    static <T> void permitirOrden(TableView<T> table) {
+        table.setSortPolicy(tv -> {
+            Comparator<T> cmp = tv.getComparator();
+            if (cmp == null) return true;
+            if (tv.getItems() instanceof ListaPaginada) {
+                ListaPaginada<T> lista = (ListaPaginada<T>) tv.getItems();
+                tv.setItems(FXCollections.observableList(lista.fuente.ordenadas(cmp)));
+            } else {
+                FXCollections.sort(tv.getItems(), cmp);
+            }
+            return true;
+        });
+    }
+}
@@ -0,0 +1,98 @@
+package ui;
+
+import models.Cultivo;
+import models.Parcela;
+import services.ActividadService;
+import services.CultivoService;
+import services.ParcelaService;
+import utils.CSVHandler;
+import utils.Instantanea;
+import utils.Journal;
+import utils.Persistencia;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Datos y servicios cargados al iniciar: instantánea binaria si está al
+ * día (si no, los CSV) más el journal pendiente. Lo usan tanto la interfaz
+ * gráfica como el modo por lotes.
+ */
+final class Modelo {
+    static final String PARCELAS    = "parcelas.csv";
+    static final String ACTIVIDADES = "actividades.csv";
+
+    final String cultCsv, parcCsv, actCsv;
+    final Map<String, Parcela> parcelas;
+    final CultivoService cs;
+    final ParcelaService ps;
+    final ActividadService as;
+    final Journal journal;
+
+    private Modelo(String cultCsv, String parcCsv, String actCsv, List<Cultivo> cultivos,
+                   Map<String, Parcela> parcelas, Journal journal) throws IOException {
+        this.cultCsv = cultCsv;
+        this.parcCsv = parcCsv;
+        this.actCsv = actCsv;
+        this.parcelas = parcelas;
+
+        // Crear servicios
+        cs = new CultivoService(cultivos);
+        ps = new ParcelaService(parcelas.values());
+        as = new ActividadService(cs);
+        ps.setCultivoService(cs);
+
+        // Reproducir los cambios del journal
+        this.journal = journal;
+        journal.reproducir(cs, ps, as);
+        cs.setJournal(journal);
+        ps.setJournal(journal);
+        as.setJournal(journal);
+    }
+
+    static Modelo cargar(String cultCsv, String parcCsv, String actCsv,
+                         Persistencia persistencia) throws IOException {
+        // Terminar (o descartar) una compactación interrumpida antes de leer
+        Journal journal = new Journal(cultCsv + ".journal", cultCsv, parcCsv, actCsv, persistencia);
+        journal.setInstantanea(snapBin(cultCsv));
+        journal.recuperar();
+
+        // Instantánea binaria si está al día; si no, los CSV
+        Instantanea snap = Instantanea.leerSiVigente(snapBin(cultCsv), cultCsv, parcCsv, actCsv);
+        if (snap != null) {
+            return new Modelo(cultCsv, parcCsv, actCsv, snap.getCultivos(), snap.getParcelas(), journal);
+        }
+
+        // Leer o inicializar parcelas.csv (antes que los cultivos: las parcelas
+        // provisorias de cultivos.csv reciben ids posteriores a los guardados)
+        Map<String, Parcela> parcelas = new LinkedHashMap<>();
+        for (Parcela p : CSVHandler.leerParcelas(parcCsv)) {
+            parcelas.put(p.getCodigo(), p);
+        }
+
+        // Leer cultivos (en paralelo si el archivo es grande)
+        List<Cultivo> cultivos = CSVHandler.leerCultivosParalelo(cultCsv);
+
+        // Garantizar todas las parcelas de cultivos (una sola instancia por código)
+        for (Cultivo c : cultivos) {
+            if (c.getParcela() == null) continue;
+            Parcela p = parcelas.putIfAbsent(c.getParcela().getCodigo(), c.getParcela());
+            if (p != null && p != c.getParcela()) {
+                c.setParcela(p);
+                p.addCultivo(c);
+            }
+        }
+
+        // Vincular actividades.csv. Cargar no escribe nada: las parcelas
+        // provisorias y las actividades embebidas llegan a disco en la
+        // próxima compactación (o nunca, si nada cambia)
+        CSVHandler.vincularActividades(actCsv, cultivos, !CSVHandler.cultivosConId(cultCsv));
+        return new Modelo(cultCsv, parcCsv, actCsv, cultivos, parcelas, journal);
+    }
+
+    static String snapBin(String cultCsv) {
+        return cultCsv + ".bin";
+    }
+}
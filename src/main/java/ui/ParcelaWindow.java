@@ -1,8 +1,6 @@
 package ui;
 
-import javafx.beans.property.ReadOnlyDoubleWrapper;
 import javafx.beans.property.ReadOnlyStringWrapper;
-import javafx.collections.FXCollections;
 import javafx.geometry.Insets;
 import javafx.scene.Scene;
 import javafx.scene.control.*;
@@ -11,18 +9,15 @@ import javafx.scene.layout.HBox;
 import javafx.stage.Stage;
 import models.Parcela;
 import services.ParcelaService;
-import utils.CSVHandler;
 
 import java.util.*;
 
 public class ParcelaWindow extends Stage {
     private final ParcelaService ps;
-    private final String parcCsv;
     private final TableView<Parcela> table = new TableView<>();
 
-    public ParcelaWindow(ParcelaService ps, String parcCsv) {
+    public ParcelaWindow(ParcelaService ps) {
         this.ps = ps;
-        this.parcCsv = parcCsv;
         setTitle("Gestión de Parcelas");
         initUI();
         listar();
@@ -49,25 +44,25 @@ public class ParcelaWindow extends Stage {
         root.setTop(bar);
 
         TableColumn<Parcela, String> c1 = new TableColumn<>("Código");
-        c1.setCellValueFactory(c -> 
-            new ReadOnlyStringWrapper(c.getValue().getCodigo()));
+        c1.setCellValueFactory(ListaPaginada.valor(p -> new ReadOnlyStringWrapper(p.getCodigo())));
         TableColumn<Parcela, Number> c2 = new TableColumn<>("Área");
-        c2.setCellValueFactory(c -> 
-            new ReadOnlyDoubleWrapper(c.getValue().getArea()));
+        c2.setCellValueFactory(ListaPaginada.valor(Parcela::areaProperty));
         TableColumn<Parcela, String> c3 = new TableColumn<>("Ubicación");
-        c3.setCellValueFactory(c -> 
-            new ReadOnlyStringWrapper(c.getValue().getUbicacion()));
+        c3.setCellValueFactory(ListaPaginada.valor(Parcela::ubicacionProperty));
 
         table.getColumns().addAll(c1, c2, c3);
+        ListaPaginada.permitirOrden(table);
         root.setCenter(table);
 
         setScene(new Scene(root, 600, 400));
     }
 
     private void listar() {
-        table.setItems(FXCollections.observableArrayList(
-            new ArrayList<>(ps.getParcelas().values())
-        ));
+        table.setItems(new ListaPaginada<>(new ListaPaginada.Fuente<>() {
+            public int contar() { return ps.contar(); }
+            public List<Parcela> pagina(int desde, int n) { return ps.pagina(desde, n); }
+            public List<Parcela> ordenadas(Comparator<? super Parcela> cmp) { return ps.ordenadas(cmp); }
+        }));
     }
 
     private void agregar() {
@@ -94,7 +89,7 @@ public class ParcelaWindow extends Stage {
         if (!ps.agregarParcela(co.get(), area, uo.get())) {
             new Alert(Alert.AlertType.ERROR, "Ya existe esa parcela").showAndWait();
         }
-        guardarYListar();
+        listar();
     }
 
     private void editar() {
@@ -120,10 +115,10 @@ public class ParcelaWindow extends Stage {
         d3.setHeaderText(null); d3.setContentText("Nueva Ubicación:");
         Optional<String> uo = d3.showAndWait(); if (uo.isEmpty()) return;
 
+        // la fila observa área y ubicación: no hace falta volver a listar
         if (!ps.editarParcela(sel.getCodigo(), area, uo.get())) {
             new Alert(Alert.AlertType.ERROR, "Error al editar").showAndWait();
         }
-        guardarYListar();
     }
 
     private void eliminar() {
@@ -133,16 +128,10 @@ public class ParcelaWindow extends Stage {
             return;
         }
         if (ps.eliminarParcela(sel.getCodigo())) {
-            guardarYListar();
+            listar();
         } else {
             new Alert(Alert.AlertType.ERROR,
                 "No se puede eliminar: tiene cultivos asignados").showAndWait();
         }
     }
-
-    // Ya no usa try/catch de IOException porque guardarParcelas no lanza excepción
-    private void guardarYListar() {
-        CSVHandler.guardarParcelas(ps.getParcelas().values(), parcCsv);
-        listar();
-    }
 }
@@ -1,38 +1,56 @@
 package ui;
 
-import javafx.beans.property.ReadOnlyStringWrapper;
-import javafx.collections.FXCollections;
+import javafx.beans.property.ReadOnlyObjectWrapper;
+import javafx.beans.value.ObservableValue;
 import javafx.geometry.Insets;
+import javafx.geometry.Orientation;
 import javafx.scene.Scene;
 import javafx.scene.control.Button;
 import javafx.scene.control.ChoiceBox;
+import javafx.scene.control.Label;
 import javafx.scene.control.SplitPane;
+import javafx.scene.control.TableCell;
 import javafx.scene.control.TableColumn;
 import javafx.scene.control.TableView;
 import javafx.scene.control.TextField;
-import javafx.scene.control.cell.PropertyValueFactory;
 import javafx.scene.layout.BorderPane;
 import javafx.scene.layout.HBox;
+import javafx.scene.layout.Priority;
+import javafx.scene.layout.VBox;
 import javafx.stage.Stage;
+import javafx.util.Callback;
 import models.Cultivo;
 import models.EstadoCultivo;
+import services.Agrupacion;
+import services.BusquedaIncremental;
 import services.CultivoService;
+import services.ResumenGrupo;
 
+import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Locale;
+import java.util.function.Function;
 
 public class ReporteWindow extends Stage {
     private final CultivoService cs;
+    private final BusquedaIncremental busqueda;
     private TableView<Cultivo> table;
+    private FiltroAsincrono<Cultivo> filtro;
     private TextField tfBuscar;
     private ChoiceBox<EstadoCultivo> cbEstado;
     private Button btnFiltrar, btnCerrar;
+    private TableView<ResumenGrupo> tablaGrupos;
+    private FiltroAsincrono<ResumenGrupo> resumen;
+    private ChoiceBox<Agrupacion> cbAgrupar;
 
     public ReporteWindow(CultivoService cs) {
         this.cs = cs;
+        this.busqueda = new BusquedaIncremental(cs);
         setTitle("Búsqueda / Reporte");
         initUI();
         cargarInicial();
+        resumen.ejecutar(consultaAgrupada());
     }
 
     private void initUI() {
@@ -41,7 +59,7 @@ public class ReporteWindow extends Stage {
         // Barra de filtros
         tfBuscar = new TextField();
         tfBuscar.setPromptText("Nombre o variedad");
-        tfBuscar.setOnKeyReleased(e -> filtrar());
+        tfBuscar.setOnKeyReleased(e -> filtro.solicitar(consulta()));
 
         cbEstado = new ChoiceBox<>();
         cbEstado.getItems().add(null);                      // null = todos los estados
@@ -49,7 +67,7 @@ public class ReporteWindow extends Stage {
         cbEstado.setValue(null);
 
         btnFiltrar = new Button("Filtrar");
-        btnFiltrar.setOnAction(e -> filtrar());
+        btnFiltrar.setOnAction(e -> filtro.ejecutar(consulta()));
 
         btnCerrar = new Button("Cerrar");
         btnCerrar.setOnAction(e -> close());
@@ -60,46 +78,122 @@ public class ReporteWindow extends Stage {
 
         // Tabla única
         table = new TableView<>();
+        filtro = new FiltroAsincrono<>(table);
 
         TableColumn<Cultivo, String> colNom = new TableColumn<>("Nombre");
-        colNom.setCellValueFactory(new PropertyValueFactory<>("nombre"));
+        colNom.setCellValueFactory(ListaPaginada.valor(Cultivo::nombreProperty));
 
         TableColumn<Cultivo, String> colVar = new TableColumn<>("Variedad");
-        colVar.setCellValueFactory(new PropertyValueFactory<>("variedad"));
+        colVar.setCellValueFactory(ListaPaginada.valor(Cultivo::variedadProperty));
 
-        TableColumn<Cultivo, Double> colSup = new TableColumn<>("Superficie");
-        colSup.setCellValueFactory(new PropertyValueFactory<>("superficie"));
+        TableColumn<Cultivo, Number> colSup = new TableColumn<>("Superficie");
+        colSup.setCellValueFactory(ListaPaginada.valor(Cultivo::superficieProperty));
 
-        TableColumn<Cultivo, ?> colFec = new TableColumn<>("Fecha Siembra");
-        colFec.setCellValueFactory(new PropertyValueFactory<>("fechaSiembra"));
+        TableColumn<Cultivo, LocalDate> colFec = new TableColumn<>("Fecha Siembra");
+        colFec.setCellValueFactory(ListaPaginada.valor(Cultivo::fechaSiembraProperty));
 
-        TableColumn<Cultivo, String> colEst = new TableColumn<>("Estado");
-        colEst.setCellValueFactory(c ->
-            new ReadOnlyStringWrapper(c.getValue().getEstado())
-        );
+        TableColumn<Cultivo, EstadoCultivo> colEst = new TableColumn<>("Estado");
+        colEst.setCellValueFactory(ListaPaginada.valor(Cultivo::estadoProperty));
 
         table.getColumns().addAll(colNom, colVar, colSup, colFec, colEst);
-        root.setCenter(table);
+        ListaPaginada.permitirOrden(table);
 
-        setScene(new Scene(root, 800, 500));
+        SplitPane split = new SplitPane(table, crearResumen());
+        split.setOrientation(Orientation.VERTICAL);
+        split.setDividerPositions(0.6);
+        root.setCenter(split);
+
+        setScene(new Scene(root, 800, 650));
+    }
+
+    /* ───────────────────────── reporte agrupado ───────────────────────── */
+
+    private VBox crearResumen() {
+        cbAgrupar = new ChoiceBox<>();
+        cbAgrupar.getItems().addAll(Agrupacion.values());
+        cbAgrupar.setValue(Agrupacion.ESTADO);
+        cbAgrupar.setOnAction(e -> resumen.ejecutar(consultaAgrupada()));
+
+        Button btnActualizar = new Button("Actualizar");
+        btnActualizar.setOnAction(e -> resumen.ejecutar(consultaAgrupada()));
+
+        HBox barra = new HBox(8, new Label("Agrupar por:"), cbAgrupar, btnActualizar);
+        barra.setPadding(new Insets(6, 10, 6, 10));
+
+        tablaGrupos = new TableView<>();
+        resumen = new FiltroAsincrono<>(tablaGrupos);
+
+        TableColumn<ResumenGrupo, String> colGrupo = new TableColumn<>("Grupo");
+        colGrupo.setCellValueFactory(campo(ResumenGrupo::getGrupo));
+
+        TableColumn<ResumenGrupo, Integer> colCant = new TableColumn<>("Cultivos");
+        colCant.setCellValueFactory(campo(ResumenGrupo::getCantidad));
+
+        TableColumn<ResumenGrupo, Double> colTotal = new TableColumn<>("Superficie total");
+        colTotal.setCellValueFactory(campo(ResumenGrupo::getSuperficieTotal));
+        colTotal.setCellFactory(c -> celda("%.2f"));
+
+        TableColumn<ResumenGrupo, Double> colProm = new TableColumn<>("Superficie promedio");
+        colProm.setCellValueFactory(campo(ResumenGrupo::getSuperficiePromedio));
+        colProm.setCellFactory(c -> celda("%.2f"));
+
+        TableColumn<ResumenGrupo, Long> colAct = new TableColumn<>("Actividades");
+        colAct.setCellValueFactory(campo(ResumenGrupo::getActividades));
+
+        TableColumn<ResumenGrupo, Double> colAvance = new TableColumn<>("% completadas");
+        colAvance.setCellValueFactory(campo(ResumenGrupo::getAvance));
+        colAvance.setCellFactory(c -> celda("%.1f %%", 100));
+
+        tablaGrupos.getColumns().setAll(List.of(colGrupo, colCant, colTotal, colProm, colAct, colAvance));
+        VBox.setVgrow(tablaGrupos, Priority.ALWAYS);
+        return new VBox(barra, tablaGrupos);
+    }
+
+    /** ResumenGrupo es inmutable: cada celda muestra el valor del getter, sin observarlo. */
+    private static <V> Callback<TableColumn.CellDataFeatures<ResumenGrupo, V>, ObservableValue<V>> campo(
+            Function<ResumenGrupo, V> getter) {
+        return c -> new ReadOnlyObjectWrapper<>(getter.apply(c.getValue()));
+    }
+
+    private static TableCell<ResumenGrupo, Double> celda(String formato) {
+        return celda(formato, 1);
+    }
+
+    private static TableCell<ResumenGrupo, Double> celda(String formato, double escala) {
+        return new TableCell<>() {
+            @Override
+            protected void updateItem(Double v, boolean empty) {
+                super.updateItem(v, empty);
+                setText(empty || v == null ? null : String.format(Locale.US, formato, v * escala));
+            }
+        };
+    }
+
+    private FiltroAsincrono.Consulta<ResumenGrupo> consultaAgrupada() {
+        Agrupacion g = cbAgrupar.getValue();
+        return cancelada -> cs.agrupar(g);
     }
 
     private void cargarInicial() {
         // Muestra todos al abrir
-        table.setItems(FXCollections.observableArrayList(cs.getCultivos()));
+        table.setItems(new ListaPaginada<>(CultivoWindow.fuente(cs)));
     }
 
-    private void filtrar() {
-        String term = tfBuscar.getText().trim().toLowerCase();
+    /**
+     * Consulta con los valores actuales de los controles; se ejecuta fuera
+     * del hilo de JavaFX. El índice acota por nombre/variedad y al seguir
+     * escribiendo se filtra el resultado anterior.
+     */
+    private FiltroAsincrono.Consulta<Cultivo> consulta() {
+        String term = tfBuscar.getText();
         EstadoCultivo sel = cbEstado.getValue();
-
-        List<Cultivo> filtrados = cs.getCultivos().stream()
-            .filter(c -> term.isEmpty()
-                     || c.getNombre().toLowerCase().contains(term)
-                     || c.getVariedad().toLowerCase().contains(term))
-            .filter(c -> sel == null || c.getEstadoEnum() == sel)
-            .collect(Collectors.toList());
-
-        table.setItems(FXCollections.observableArrayList(filtrados));
+        return cancelada -> {
+            List<Cultivo> filtrados = new ArrayList<>();
+            for (Cultivo c : busqueda.buscar(term)) {
+                if (cancelada.getAsBoolean()) break;
+                if (sel == null || c.getEstadoEnum() == sel) filtrados.add(c);
+            }
+            return filtrados;
+        };
     }
 }
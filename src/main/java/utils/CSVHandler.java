@@ -6,216 +6,875 @@ import models.Actividad;
 import models.EstadoCultivo;
 
 import java.io.*;
-import java.time.LocalDate;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.DateTimeException;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
 
 public class CSVHandler {
 
-    // ——————————————————————————————————————————————————————————————————————
-    //    Métodos auxiliares para partir y limpiar líneas CSV con comillas
-    // ——————————————————————————————————————————————————————————————————————
-    private static String[] splitCSV(String line) {
-        List<String> parts = new ArrayList<>();
-        StringBuilder cur = new StringBuilder();
-        boolean inQuotes = false;
-        for (char c : line.toCharArray()) {
-            if (c == '"') {
-                inQuotes = !inQuotes;
-                cur.append(c);
-            } else if (c == ',' && !inQuotes) {
-                parts.add(cur.toString());
-                cur.setLength(0);
-            } else {
-                cur.append(c);
-            }
-        }
-        parts.add(cur.toString());
-        return parts.toArray(new String[0]);
-    }
-
-    private static String trimQuotes(String s) {
-        if (s == null) return null;
-        s = s.trim();
-        if (s.startsWith("\"") && s.endsWith("\"") && s.length() >= 2) {
-            return s.substring(1, s.length() - 1);
-        }
-        return s;
-    }
-
     // ——————————————————————————————————————————————————————————————————————
     //    LECTURA/ESCRITURA DE PARCELAS
     // ——————————————————————————————————————————————————————————————————————
+    //
+    // Formato: codigo,area,"ubicacion",id. Las filas antiguas (codigo,area,ubicacion
+    // sin comillas, que puede contener comas) reciben un id nuevo.
+
     public static List<Parcela> leerParcelas(String filePath) {
         List<Parcela> lista = new ArrayList<>();
         File f = new File(filePath);
         if (!f.exists()) return lista;
-        try (BufferedReader br = new BufferedReader(new FileReader(f))) {
-            String line;
-            while ((line = br.readLine()) != null) {
-                String[] p = line.split(",", 3);
-                String cod = p[0].trim();
-                double area = Double.parseDouble(p[1].trim().replace(',', '.'));
-                String ubic = (p.length > 2 ? p[2].trim() : "");
-                lista.add(new Parcela(cod, area, ubic));
-            }
+        try (BufferedReader br = new BufferedReader(new FileReader(f, StandardCharsets.UTF_8))) {
+            leerParcelas(br, lista);
         } catch (IOException ex) {
             ex.printStackTrace();
         }
         return lista;
     }
 
-    public static void guardarParcelas(Collection<Parcela> parcelas, String filePath) {
-        try (BufferedWriter bw = new BufferedWriter(new FileWriter(filePath))) {
-            for (Parcela p : parcelas) {
-                bw.write(String.format(Locale.US, "%s,%.2f,%s",
-                    p.getCodigo(),
-                    p.getArea(),
-                    p.getUbicacion() == null ? "" : p.getUbicacion()
-                ));
-                bw.newLine();
+    private static void leerParcelas(BufferedReader br, List<Parcela> lista) throws IOException {
+        MapaLong<Parcela> ids = new MapaLong<>();
+        Diccionario ubicaciones = new Diccionario();
+        String line;
+        while ((line = br.readLine()) != null) {
+            String[] p = line.split(",", 3);
+            String cod = p[0].trim();
+            double area = Double.parseDouble(p[1].trim().replace(',', '.'));
+            String ubic = (p.length > 2 ? p[2].trim() : "");
+            long id = 0;
+            int k = ubic.lastIndexOf("\",");
+            if (ubic.startsWith("\"") && k > 0 && esEntero(ubic, k + 2)) {
+                id = Long.parseLong(ubic.substring(k + 2));
+                ubic = ubic.substring(1, k);
             }
+            ubic = ubicaciones.compartir(ubic);
+            Parcela par = id > 0 && !ids.containsKey(id) ? new Parcela(id, cod, area, ubic)
+                                                         : new Parcela(cod, area, ubic);
+            ids.put(par.getId(), par);
+            lista.add(par);
+        }
+    }
+
+    public static void guardarParcelas(Collection<Parcela> parcelas, String filePath) {
+        try (SalidaCsv out = SalidaCsv.archivo(filePath)) {
+            escribirParcelas(parcelas, out);
         } catch (IOException ex) {
             ex.printStackTrace();
         }
     }
 
+    private static boolean esEntero(String s, int desde) {
+        if (desde >= s.length() || s.length() - desde > 18) return false;
+        for (int i = desde; i < s.length(); i++) {
+            if (s.charAt(i) < '0' || s.charAt(i) > '9') return false;
+        }
+        return true;
+    }
+
+    static void escribirParcelas(Collection<Parcela> parcelas, SalidaCsv out) throws IOException {
+        for (Parcela p : parcelas) {
+            out.texto(p.getCodigo()).caracter(',')
+               .dosDecimales(p.getArea()).caracter(',')
+               .entreComillas(p.getUbicacion(), true).caracter(',')
+               .entero(p.getId())
+               .finLinea();
+        }
+    }
+
     // ——————————————————————————————————————————————————————————————————————
     //    LECTURA/ESCRITURA DE CULTIVOS (incluye actividades embebidas)
     // ——————————————————————————————————————————————————————————————————————
     public static List<Cultivo> leerCultivos(String filePath) throws IOException {
+        try (CSVTokenizer tk = new CSVTokenizer(new FileInputStream(filePath))) {
+            return leerCultivos(tk);
+        } catch (FilaInvalida ex) {
+            throw ex.enArchivo(filePath, 0);
+        }
+    }
+
+    /**
+     * Recorre el tokenizador construyendo el grafo Cultivo/Parcela/Actividad.
+     * Los valores se interpretan directamente desde el buffer de la línea.
+     */
+    static List<Cultivo> leerCultivos(CSVTokenizer tk) throws IOException {
+        return asignarIds(leerCultivos(tk, new HashMap<>(), new Diccionario()));
+    }
+
+    /**
+     * Da un id a las filas que no traían (CSV antiguo), en el orden del
+     * archivo; los ids leídos ya adelantaron el contador, así que no chocan.
+     */
+    private static List<Cultivo> asignarIds(List<Cultivo> cultivos) {
+        for (Cultivo c : cultivos) c.asignarIdSiFalta();
+        return cultivos;
+    }
+
+    private static List<Cultivo> leerCultivos(CSVTokenizer tk, Map<String, Parcela> parcelasMap,
+                                              Diccionario dic) throws IOException {
         List<Cultivo> cultivos = new ArrayList<>();
-        Map<String, Parcela> parcelasMap = new HashMap<>();
-
-        try (BufferedReader br = new BufferedReader(new FileReader(filePath))) {
-            String line;
-            while ((line = br.readLine()) != null) {
-                String[] parts = splitCSV(line);
-                if (parts.length < 7 || !parts[0].equalsIgnoreCase("Cultivo")) continue;
-
-                String nombre     = trimQuotes(parts[1]);
-                String variedad   = trimQuotes(parts[2]);
-                double superficie = Double.parseDouble(parts[3]);
-                String codPar     = trimQuotes(parts[4]);
-                LocalDate fecha   = LocalDate.parse(trimQuotes(parts[5]));
-                EstadoCultivo est = EstadoCultivo.valueOf(trimQuotes(parts[6]));
-
-                Parcela parc = parcelasMap.computeIfAbsent(
-                    codPar,
-                    k -> new Parcela(k, 0.0, "")
-                );
-
-                Cultivo c = new Cultivo(nombre, variedad, superficie, parc, fecha, est);
-                parc.addCultivo(c);
-
-                // actividades embebidas en el CSV
-                if (parts.length > 7) {
-                    String raw = parts[7].trim();
-                    if (raw.startsWith("[") && raw.endsWith("]")) {
-                        raw = raw.substring(1, raw.length() - 1);
-                        if (!raw.isEmpty()) {
-                            String[] items = raw.split("\",\"");
-                            for (String it : items) {
-                                String seg = trimQuotes(it);
-                                String[] f = seg.split(":", 3);
-                                Actividad.Tipo t = Actividad.Tipo.valueOf(f[0]);
-                                LocalDate d    = LocalDate.parse(f[1]);
-                                Actividad a    = new Actividad(t, d);
-                                if (f.length == 3 && f[2].equalsIgnoreCase("COMPLETADA")) {
-                                    a.setCompletada(true);
-                                }
-                                c.addActividad(a);
-                            }
-                        }
+        EstadoCultivo[] estados = EstadoCultivo.values();
+
+        while (tk.siguienteLinea()) {
+            if (tk.campos() < 7 || !tk.igualIgnorandoMayusculas(0, "Cultivo")) continue;
+
+            Cultivo c;
+            try {
+                c = cultivoDesdeCampos(tk, 0, estados,
+                    cod -> parcelasMap.computeIfAbsent(cod, k -> new Parcela(k, 0.0, "")), dic);
+            } catch (RuntimeException ex) {
+                throw new FilaInvalida(tk.numeroLinea(), ex);
+            }
+            if (c.getParcela() != null) c.getParcela().addCultivo(c);
+            cultivos.add(c);
+        }
+
+        return cultivos;
+    }
+
+    /** Fila de cultivos.csv que no se pudo leer; {@code linea} es relativa al trozo leído. */
+    private static final class FilaInvalida extends RuntimeException {
+        final int linea;
+
+        FilaInvalida(int linea, RuntimeException causa) {
+            super(causa.getMessage(), causa);
+            this.linea = linea;
+        }
+
+        /** El error con el archivo y la línea absoluta ({@code base} líneas de trozos anteriores). */
+        IOException enArchivo(String origen, int base) {
+            return new IOException(origen + ":" + (base + linea) + ": " + getMessage(), getCause());
+        }
+    }
+
+    /**
+     * Variante paralela de {@link #leerCultivos(String)}: mapea el archivo en
+     * memoria, lo corta en trozos en límites de línea y los interpreta en el
+     * pool fork-join común. Los resultados se fusionan en el orden del archivo,
+     * así que el grafo (una Parcela por código y el orden de sus cultivos) es
+     * idéntico al de la lectura secuencial. Archivos pequeños se leen en serie.
+     */
+    public static List<Cultivo> leerCultivosParalelo(String filePath) throws IOException {
+        try (FileChannel ch = FileChannel.open(Paths.get(filePath), StandardOpenOption.READ)) {
+            long size = ch.size();
+            int hilos = ForkJoinPool.getCommonPoolParallelism();
+            if (size < UMBRAL_PARALELO || hilos < 2) return leerCultivos(filePath);
+
+            long[] cortes = cortesDeLinea(ch, size, hilos * 4);
+            Diccionario comun = new Diccionario();
+            List<ForkJoinTask<Trozo>> tareas = new ArrayList<>();
+            for (int i = 0; i + 1 < cortes.length; i++) {
+                MappedByteBuffer buf = ch.map(FileChannel.MapMode.READ_ONLY,
+                                              cortes[i], cortes[i + 1] - cortes[i]);
+                tareas.add(ForkJoinPool.commonPool().submit(() -> {
+                    Map<String, Parcela> locales = new LinkedHashMap<>();
+                    CSVTokenizer tk = new CSVTokenizer(buf);
+                    List<Cultivo> cs = leerCultivos(tk, locales, new Diccionario(comun));
+                    return new Trozo(cs, locales, tk.numeroLinea());
+                }));
+            }
+
+            // fusión en orden fijo: trozo 0, 1, 2, ...
+            List<Cultivo> cultivos = new ArrayList<>();
+            Map<String, Parcela> parcelasMap = new HashMap<>();
+            int lineas = 0;
+            for (ForkJoinTask<Trozo> t : tareas) {
+                Trozo trozo;
+                try {
+                    trozo = esperar(t);
+                } catch (FilaInvalida ex) {
+                    throw ex.enArchivo(filePath, lineas);
+                }
+                lineas += trozo.lineas;
+                for (Parcela local : trozo.parcelas.values()) {
+                    Parcela canon = parcelasMap.putIfAbsent(local.getCodigo(), local);
+                    if (canon == null) continue;
+                    for (Cultivo c : local.getCultivos()) {
+                        c.setParcela(canon);
+                        canon.addCultivo(c);
                     }
                 }
+                cultivos.addAll(trozo.cultivos);
+            }
+            return asignarIds(cultivos);
+        }
+    }
+
+    private static final long UMBRAL_PARALELO = 4L * 1024 * 1024;
+    private static final long MAX_TROZO = 1L << 30;
+
+    private static final class Trozo {
+        final List<Cultivo> cultivos;
+        final Map<String, Parcela> parcelas;
+        final int lineas;
+        Trozo(List<Cultivo> cultivos, Map<String, Parcela> parcelas, int lineas) {
+            this.cultivos = cultivos;
+            this.parcelas = parcelas;
+            this.lineas = lineas;
+        }
+    }
 
-                cultivos.add(c);
+    /** Posiciones de corte, cada una justo después de un salto de línea. */
+    private static long[] cortesDeLinea(FileChannel ch, long size, int trozos) throws IOException {
+        trozos = (int) Math.max(trozos, size / MAX_TROZO + 1);
+        long[] cortes = new long[trozos + 1];
+        int n = 1;
+        ByteBuffer buf = ByteBuffer.allocate(8192);
+        for (int k = 1; k < trozos; k++) {
+            long pos = Math.max(size * k / trozos, cortes[n - 1]);
+            long corte = size;
+            buscar:
+            while (pos < size) {
+                buf.clear();
+                int leidos = ch.read(buf, pos);
+                if (leidos <= 0) break;
+                for (int i = 0; i < leidos; i++) {
+                    if (buf.get(i) == '\n') { corte = pos + i + 1; break buscar; }
+                }
+                pos += leidos;
             }
+            if (corte > cortes[n - 1] && corte < size) cortes[n++] = corte;
         }
+        cortes[n++] = size;
+        return Arrays.copyOf(cortes, n);
+    }
 
-        return cultivos;
+    private static <T> T esperar(ForkJoinTask<T> t) throws IOException {
+        try {
+            return t.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Lectura paralela interrumpida");
+        } catch (ExecutionException ex) {
+            Throwable causa = ex.getCause();
+            if (causa instanceof IOException) throw (IOException) causa;
+            if (causa instanceof RuntimeException) throw (RuntimeException) causa;
+            throw new IOException(causa);
+        }
     }
 
-    public static void guardarCultivos(List<Cultivo> cultivos, String filePath) throws IOException {
-        try (BufferedWriter bw = new BufferedWriter(new FileWriter(filePath))) {
-            for (Cultivo c : cultivos) {
-                StringBuilder sb = new StringBuilder();
-                sb.append("Cultivo,")
-                  .append("\"").append(c.getNombre()).append("\",")
-                  .append("\"").append(c.getVariedad()).append("\",")
-                  .append(c.getSuperficie()).append(",")
-                  .append("\"").append(c.getParcela().getCodigo()).append("\",")
-                  .append("\"").append(c.getFechaSiembra()).append("\",")
-                  .append("\"").append(c.getEstadoEnum().name()).append("\",");
-
-                // embebe actividades
-                sb.append("[");
-                List<Actividad> acts = c.getActividades();
-                for (int i = 0; i < acts.size(); i++) {
-                    Actividad a = acts.get(i);
-                    sb.append("\"")
-                      .append(a.getTipo().name()).append(":")
-                      .append(a.getFecha()).append(":")
-                      .append(a.isCompletada() ? "COMPLETADA" : "PENDIENTE")
-                      .append("\"");
-                    if (i < acts.size() - 1) sb.append(",");
+    /**
+     * Construye un Cultivo a partir de la fila {@code Cultivo,nombre,...} que
+     * comienza en el campo {@code base}. No lo agrega a la parcela; un código
+     * de parcela vacío es un cultivo sin parcela. Variedad y código de
+     * parcela se comparten a través de {@code dic} (puede ser null).
+     */
+    static Cultivo cultivoDesdeCampos(CSVTokenizer tk, int base, EstadoCultivo[] estados,
+                                      Function<String, Parcela> parcelas, Diccionario dic) {
+        String nombre     = tk.texto(base + 1);
+        String variedad   = tk.texto(base + 2, dic);
+        double superficie = tk.decimal(base + 3);
+        String codPar     = tk.texto(base + 4, dic);
+        int siembra       = tk.dia(base + 5);
+        EstadoCultivo est = tk.enumeracion(base + 6, estados);
+        long id = tk.campos() > base + 8 ? tk.enteroLargo(base + 8) : 0;   // 0: sin id (CSV antiguo)
+
+        Parcela parcela   = codPar.isEmpty() ? null : parcelas.apply(codPar);
+        Cultivo c = new Cultivo(id, nombre, variedad, superficie, parcela, siembra, est);
+
+        // actividades embebidas: se guardan crudas y se decodifican al primer uso
+        // (al cargar la app se reemplazan por las de actividades.csv); la
+        // sintaxis se comprueba ya, para que un error señale esta fila
+        if (tk.campos() > base + 7) {
+            int ini = tk.inicio(base + 7), fin = tk.fin(base + 7);
+            if (fin - ini > 2) {
+                long n;
+                try {
+                    n = contarEmbebidas(tk.buffer(), ini, fin);
+                } catch (RuntimeException ex) {
+                    throw new IllegalArgumentException("actividades embebidas: " + ex.getMessage());
+                }
+                c.setActividadesCsv(new String(tk.buffer(), ini, fin - ini),
+                                    (int) (n >>> 32), (int) n, DECODIFICADOR);
+            }
+        }
+        return c;
+    }
+
+    private static final Function<String, List<Actividad>> DECODIFICADOR = CSVHandler::decodificarActividades;
+
+    /** Actividades del segmento {@code ["TIPO:fecha:ESTADO:id",...]} de una fila de cultivos.csv. */
+    public static List<Actividad> decodificarActividades(String segmento) {
+        List<Actividad> res = new ArrayList<>();
+        leerActividadesEmbebidas(segmento.toCharArray(), 0, segmento.length(), res);
+        return res;
+    }
+
+    /**
+     * Decodifica {@code ["TIPO:fecha:ESTADO:id",...]} en el rango [desde, hasta).
+     * Ítems sin id (archivos anteriores) reciben el de su posición.
+     */
+    private static void leerActividadesEmbebidas(char[] a, int desde, int hasta, List<Actividad> destino) {
+        if (hasta - desde < 2 || a[desde] != '[' || a[hasta - 1] != ']') return;
+        Actividad.Tipo[] tipos = Actividad.Tipo.values();
+        int i = desde + 1, fin = hasta - 1;
+        while (i < fin) {
+            // delimitar el ítem: hasta la próxima coma fuera de comillas
+            int j = i;
+            boolean enComillas = false;
+            while (j < fin && (enComillas || a[j] != ',')) {
+                if (a[j] == '"') enComillas = !enComillas;
+                j++;
+            }
+            int ini = i, ter = j;
+            while (ini < ter && a[ini] <= ' ') ini++;
+            while (ter > ini && a[ter - 1] <= ' ') ter--;
+            if (ter - ini >= 2 && a[ini] == '"' && a[ter - 1] == '"') { ini++; ter--; }
+
+            if (ter > ini) {
+                int p1 = indice(a, ini, ter, ':');
+                if (p1 < 0) throw new IllegalArgumentException(
+                    "Actividad mal formada: " + new String(a, ini, ter - ini));
+                int p2 = indice(a, p1 + 1, ter, ':');
+                int p3 = p2 < 0 ? -1 : indice(a, p2 + 1, ter, ':');
+                int finFecha = p2 < 0 ? ter : p2;
+                int finEstado = p3 < 0 ? ter : p3;
+
+                Actividad.Tipo t = CSVTokenizer.parseEnum(tipos, a, ini, p1);
+                int d            = CSVTokenizer.parseDia(a, p1 + 1, finFecha);
+                long id          = p3 < 0 ? Actividad.idPorPosicion(destino.size())
+                                          : idActividad(a, p3 + 1, ter);
+                Actividad act    = new Actividad(id, t, d);
+                if (p2 >= 0 && CSVTokenizer.igualIgnorandoMayusculas(a, p2 + 1, finEstado, "COMPLETADA")) {
+                    act.setCompletada(true);
                 }
-                sb.append("]");
+                destino.add(act);
+            }
+            i = j + 1;
+        }
+    }
 
-                bw.write(sb.toString());
-                bw.newLine();
+    /**
+     * Cuenta los ítems de {@code ["TIPO:fecha:ESTADO:id",...]} en [desde, hasta)
+     * sin construirlos: total en los 32 bits altos, completadas en los bajos.
+     * Interpreta tipo, fecha e id como {@link #leerActividadesEmbebidas} (sin
+     * crear objetos), así que lanza por los mismos ítems mal formados.
+     */
+    private static long contarEmbebidas(char[] a, int desde, int hasta) {
+        if (hasta - desde < 2 || a[desde] != '[' || a[hasta - 1] != ']') return 0;
+        Actividad.Tipo[] tipos = Actividad.Tipo.values();
+        int total = 0, hechas = 0;
+        int i = desde + 1, fin = hasta - 1;
+        while (i < fin) {
+            int j = i;
+            boolean enComillas = false;
+            while (j < fin && (enComillas || a[j] != ',')) {
+                if (a[j] == '"') enComillas = !enComillas;
+                j++;
+            }
+            int ini = i, ter = j;
+            while (ini < ter && a[ini] <= ' ') ini++;
+            while (ter > ini && a[ter - 1] <= ' ') ter--;
+            if (ter - ini >= 2 && a[ini] == '"' && a[ter - 1] == '"') { ini++; ter--; }
+            if (ter > ini) {
+                total++;
+                int p1 = indice(a, ini, ter, ':');
+                if (p1 < 0) throw new IllegalArgumentException(
+                    "Actividad mal formada: " + new String(a, ini, ter - ini));
+                int p2 = indice(a, p1 + 1, ter, ':');
+                int p3 = p2 < 0 ? -1 : indice(a, p2 + 1, ter, ':');
+                CSVTokenizer.parseEnum(tipos, a, ini, p1);
+                CSVTokenizer.parseDia(a, p1 + 1, p2 < 0 ? ter : p2);
+                if (p3 >= 0) idActividad(a, p3 + 1, ter);
+                if (p2 >= 0 && CSVTokenizer.igualIgnorandoMayusculas(a, p2 + 1, p3 < 0 ? ter : p3, "COMPLETADA")) hechas++;
             }
+            i = j + 1;
+        }
+        return (long) total << 32 | hechas;
+    }
+
+    /** Id de actividad; los de posición (archivos sin ids) son negativos. */
+    static long idActividad(char[] a, int desde, int hasta) {
+        if (desde < hasta && a[desde] == '-') return -CSVTokenizer.parseEnteroLargo(a, desde + 1, hasta);
+        return CSVTokenizer.parseEnteroLargo(a, desde, hasta);
+    }
+
+    static long idActividad(CSVTokenizer tk, int campo) {
+        return idActividad(tk.buffer(), tk.inicio(campo), tk.fin(campo));
+    }
+
+    private static int indice(char[] a, int desde, int hasta, char buscado) {
+        for (int i = desde; i < hasta; i++) if (a[i] == buscado) return i;
+        return -1;
+    }
+
+    public static void guardarCultivos(List<Cultivo> cultivos, String filePath) throws IOException {
+        try (SalidaCsv out = SalidaCsv.archivo(filePath)) {
+            escribirCultivos(cultivos, out);
+        }
+    }
+
+    static void escribirCultivos(List<Cultivo> cultivos, SalidaCsv out) throws IOException {
+        for (Cultivo c : cultivos) {
+            escribirFila(c, out);
+            out.finLinea();
+        }
+    }
+
+    /** Fila {@code Cultivo,...,[actividades],id} tal como se guarda en cultivos.csv. */
+    static String filaCultivo(Cultivo c, Diccionario dic) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        try (SalidaCsv out = new SalidaCsv(bytes, 256, dic)) {
+            escribirFila(c, out);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);   // en memoria: no ocurre
+        }
+        return bytes.toString(StandardCharsets.UTF_8);
+    }
+
+    private static void escribirFila(Cultivo c, SalidaCsv out) throws IOException {
+        out.texto("Cultivo,")
+           .entreComillas(c.getNombre(), false).caracter(',')
+           .entreComillas(c.getVariedad(), true).caracter(',')
+           .decimal(c.getSuperficie()).caracter(',')
+           .entreComillas(c.getParcela() == null ? "" : c.getParcela().getCodigo(), true).caracter(',')
+           .caracter('"').fecha(c.getDiaSiembra()).texto("\",")
+           .entreComillas(c.getEstadoEnum().name(), true).caracter(',');
+
+        // embebe actividades (el segmento original si nunca se decodificó)
+        String crudo = c.getActividadesCsv();
+        if (crudo != null) {
+            out.texto(crudo).caracter(',').entero(c.getId());
+            return;
         }
+        out.caracter('[');
+        List<Actividad> acts = c.getActividades();
+        for (int i = 0; i < acts.size(); i++) {
+            Actividad a = acts.get(i);
+            out.caracter('"')
+               .repetido(a.getTipo().name()).caracter(':')
+               .fecha(a.getDia()).caracter(':')
+               .repetido(a.isCompletada() ? "COMPLETADA" : "PENDIENTE").caracter(':')
+               .entero(a.getId())
+               .caracter('"');
+            if (i < acts.size() - 1) out.caracter(',');
+        }
+        out.texto("],").entero(c.getId());
     }
 
     // ——————————————————————————————————————————————————————————————————————
     //    LECTURA/ESCRITURA DE ACTIVIDADES (CSV aparte)
     // ——————————————————————————————————————————————————————————————————————
-    public static Map<String, List<Actividad>> leerActividades(
-            String actPath, List<Cultivo> memoria) throws IOException {
+    //
+    // Formato: idCultivo,"nombre",TIPO,fecha,ESTADO,idActividad. El nombre sólo
+    // sirve de verificación. Archivos anteriores traen la fila del cultivo en
+    // lugar del id, o sólo el nombre, y no traen id de actividad; se siguen
+    // aceptando.
+
+    public static void guardarActividades(String actPath, List<Cultivo> cultos) throws IOException {
+        try (SalidaCsv out = SalidaCsv.archivo(actPath)) {
+            escribirActividades(cultos, out);
+        }
+    }
+
+    static void escribirActividades(List<Cultivo> cultos, SalidaCsv out) throws IOException {
+        for (Cultivo c : cultos) {
+            for (Actividad a : c.getActividades()) {
+                out.entero(c.getId()).caracter(',')
+                   .entreComillas(c.getNombre(), false).caracter(',')
+                   .repetido(a.getTipo().name()).caracter(',')
+                   .fecha(a.getDia()).caracter(',')
+                   .repetido(a.isCompletada() ? "COMPLETADA" : "PENDIENTE").caracter(',')
+                   .entero(a.getId())
+                   .finLinea();
+            }
+        }
+    }
+
+    /**
+     * Reemplaza las actividades de cada cultivo por las de actividades.csv.
+     * Cada fila va al cultivo con su id si el nombre coincide y, si no (o sin
+     * número), al primer cultivo con ese nombre. Con {@code porFila} el número
+     * es la fila en cultivos.csv (archivos de antes de los ids de cultivo).
+     * Las filas que no se pueden unir se informan y se saltan. Si el archivo
+     * no existe se conservan las actividades embebidas en cultivos.csv (no se
+     * escribe).
+     */
+    public static void vincularActividades(String actPath, List<Cultivo> cultivos,
+                                           boolean porFila) throws IOException {
         File f = new File(actPath);
-        Map<String, List<Actividad>> map = new HashMap<>();
-
-        if (f.exists()) {
-            try (BufferedReader br = new BufferedReader(new FileReader(f))) {
-                String line;
-                while ((line = br.readLine()) != null) {
-                    String[] p = line.split(",", 4);
-                    String nom = p[0].trim();
-                    Actividad.Tipo t = Actividad.Tipo.valueOf(p[1].trim());
-                    LocalDate d     = LocalDate.parse(p[2].trim());
-                    boolean done    = p[3].trim().equalsIgnoreCase("COMPLETADA");
-                    Actividad a     = new Actividad(t, d);
-                    if (done) a.setCompletada(true);
-                    map.computeIfAbsent(nom, k -> new ArrayList<>()).add(a);
+        if (!f.exists()) return;
+        vincularActividades(new FileInputStream(f), actPath, cultivos, porFila);
+    }
+
+    /** Como la anterior, para un actividades.csv con ids de cultivo. */
+    public static void vincularActividades(String actPath, List<Cultivo> cultivos) throws IOException {
+        vincularActividades(actPath, cultivos, false);
+    }
+
+    /**
+     * Si las filas de cultivos.csv traen id (columna 9). Sin ids, el
+     * actividades.csv que lo acompaña numera los cultivos por fila.
+     */
+    public static boolean cultivosConId(String cultivosCsv) throws IOException {
+        File f = new File(cultivosCsv);
+        if (!f.exists()) return true;
+        try (CSVTokenizer tk = new CSVTokenizer(new FileInputStream(f))) {
+            while (tk.siguienteLinea()) {
+                if (tk.campos() >= 7 && tk.igualIgnorandoMayusculas(0, "Cultivo")) return tk.campos() > 8;
+            }
+        }
+        return true;
+    }
+
+    private static void vincularActividades(InputStream in, String origen, List<Cultivo> cultivos,
+                                            boolean porFila) throws IOException {
+        MapaLong<Cultivo> porId = new MapaLong<>(cultivos.size());
+        for (Cultivo c : cultivos) {
+            c.asignarIdSiFalta();
+            porId.put(c.getId(), c);
+        }
+        MapaLong<List<Actividad>> porCultivo = new MapaLong<>(cultivos.size());
+        Map<String, Cultivo> porNombre = null;   // sólo si alguna fila no calza por número
+        Actividad.Tipo[] tipos = Actividad.Tipo.values();
+
+        try (CSVTokenizer tk = new CSVTokenizer(in)) {
+            int linea = 0;
+            while (tk.siguienteLinea()) {
+                linea++;
+                int n = tk.campos();
+                if (n == 1 && tk.fin(0) == tk.inicio(0)) continue;   // línea en blanco
+                try {
+                    if (n < 4) throw new IllegalArgumentException("se esperaba [cultivo,]nombre,tipo,fecha,estado");
+                    int base = n >= 5 ? 1 : 0;          // 4 campos = formato antiguo (nombre,...)
+
+                    Cultivo c = null;
+                    if (base == 1) {
+                        long num = tk.enteroLargo(0);   // un negativo no es un entero válido
+                        c = porFila ? (num < cultivos.size() ? cultivos.get((int) num) : null)
+                                    : porId.get(num);
+                        if (c != null && !tk.igual(1, c.getNombre())) c = null;
+                    }
+                    if (c == null) {
+                        if (porNombre == null) {
+                            porNombre = new HashMap<>();
+                            for (Cultivo x : cultivos) porNombre.putIfAbsent(x.getNombre(), x);
+                        }
+                        c = porNombre.get(tk.texto(base));
+                        if (c == null) throw new IllegalArgumentException("cultivo inexistente: " + tk.texto(base));
+                    }
+
+                    List<Actividad> l = porCultivo.get(c.getId());
+                    if (l == null) porCultivo.put(c.getId(), l = new ArrayList<>());
+                    long id = n > base + 4 ? idActividad(tk, base + 4) : Actividad.idPorPosicion(l.size());
+                    Actividad a = new Actividad(id, tk.enumeracion(base + 1, tipos), tk.dia(base + 2));
+                    if (tk.igualIgnorandoMayusculas(base + 3, "COMPLETADA")) a.setCompletada(true);
+                    l.add(a);
+                } catch (RuntimeException ex) {
+                    System.err.println(origen + ": línea " + linea + " ignorada (" + ex.getMessage() + ")");
                 }
             }
-        } else {
-            for (Cultivo c : memoria) {
-                for (Actividad a : c.getActividades()) {
-                    map.computeIfAbsent(c.getNombre(), k -> new ArrayList<>()).add(a);
+        }
+
+        for (Cultivo c : cultivos) {
+            List<Actividad> l = porCultivo.remove(c.getId());   // un id repetido no comparte la lista
+            c.setActividades(l == null ? List.of() : l);
+        }
+    }
+
+    // ——————————————————————————————————————————————————————————————————————
+    //    ARCHIVO DE TEMPORADA (zip con los tres CSV)
+    // ——————————————————————————————————————————————————————————————————————
+    //
+    // Un .zip con parcelas.csv, cultivos.csv y actividades.csv, en ese orden y
+    // en el mismo formato que los archivos sueltos, comprimidos con Deflater.
+    // Se escribe y se lee en streaming: cada entrada se comprime o
+    // descomprime a medida que pasa por el tokenizador, sin tocar el disco.
+
+    public static final String ENTRADA_PARCELAS    = "parcelas.csv";
+    public static final String ENTRADA_CULTIVOS    = "cultivos.csv";
+    public static final String ENTRADA_ACTIVIDADES = "actividades.csv";
+
+    public static void guardarTemporada(String archivo, Collection<Parcela> parcelas,
+                                        List<Cultivo> cultivos) throws IOException {
+        // las parcelas del servicio más cualquiera referida sólo por un cultivo
+        Map<String, Parcela> todas = new LinkedHashMap<>();
+        for (Parcela p : parcelas) todas.putIfAbsent(p.getCodigo(), p);
+        for (Cultivo c : cultivos) {
+            if (c.getParcela() != null) todas.putIfAbsent(c.getParcela().getCodigo(), c.getParcela());
+        }
+
+        try (ZipOutputStream zip = new ZipOutputStream(
+                new BufferedOutputStream(new FileOutputStream(archivo), 1 << 16), StandardCharsets.UTF_8)) {
+            OutputStream entrada = new SinCerrar(zip);
+            Diccionario dic = new Diccionario();   // códigos y estados se repiten entre entradas
+            zip.putNextEntry(new ZipEntry(ENTRADA_PARCELAS));
+            try (SalidaCsv out = new SalidaCsv(entrada, dic)) {
+                escribirParcelas(todas.values(), out);
+            }
+            zip.putNextEntry(new ZipEntry(ENTRADA_CULTIVOS));
+            try (SalidaCsv out = new SalidaCsv(entrada, dic)) {
+                escribirCultivos(cultivos, out);
+            }
+            zip.putNextEntry(new ZipEntry(ENTRADA_ACTIVIDADES));
+            try (SalidaCsv out = new SalidaCsv(entrada, dic)) {
+                escribirActividades(cultivos, out);
+            }
+            zip.closeEntry();
+        }
+    }
+
+    /**
+     * Lee un archivo de temporada entrada por entrada. Las parcelas deben
+     * venir antes que los cultivos y éstos antes que las actividades; si falta
+     * actividades.csv quedan las actividades embebidas en cultivos.csv.
+     */
+    public static Temporada leerTemporada(String archivo) throws IOException {
+        Map<String, Parcela> parcelas = new LinkedHashMap<>();
+        List<Cultivo> cultivos = null;
+
+        try (ZipInputStream zip = new ZipInputStream(
+                new BufferedInputStream(new FileInputStream(archivo), 1 << 16), StandardCharsets.UTF_8)) {
+            InputStream entrada = new FilterInputStream(zip) {
+                @Override public void close() { }   // cierra sólo la entrada, no el zip
+            };
+            for (ZipEntry e; (e = zip.getNextEntry()) != null; ) {
+                switch (e.getName()) {
+                    case ENTRADA_PARCELAS:
+                        if (cultivos != null) throw new IOException(archivo + ": parcelas.csv después de cultivos.csv");
+                        List<Parcela> lista = new ArrayList<>();
+                        leerParcelas(new BufferedReader(new InputStreamReader(entrada, StandardCharsets.UTF_8)), lista);
+                        for (Parcela p : lista) parcelas.putIfAbsent(p.getCodigo(), p);
+                        break;
+                    case ENTRADA_CULTIVOS:
+                        try (CSVTokenizer tk = new CSVTokenizer(entrada)) {
+                            cultivos = asignarIds(leerCultivos(tk, parcelas, new Diccionario()));
+                        } catch (FilaInvalida ex) {
+                            throw ex.enArchivo(archivo + "!" + ENTRADA_CULTIVOS, 0);
+                        }
+                        break;
+                    case ENTRADA_ACTIVIDADES:
+                        if (cultivos == null) throw new IOException(archivo + ": actividades.csv antes de cultivos.csv");
+                        vincularActividades(entrada, archivo + "!" + ENTRADA_ACTIVIDADES, cultivos, false);
+                        break;
+                    default:
+                        break;   // otras entradas se ignoran
                 }
             }
-            guardarActividades(actPath, memoria);
         }
+        if (cultivos == null) throw new IOException(archivo + ": no contiene " + ENTRADA_CULTIVOS);
+        return new Temporada(parcelas, cultivos);
+    }
+
+    /** Deja abierto el zip al cerrar la salida de una entrada. */
+    private static final class SinCerrar extends FilterOutputStream {
+        SinCerrar(OutputStream out) { super(out); }
 
-        return map;
+        @Override
+        public void write(byte[] b, int desde, int largo) throws IOException {
+            out.write(b, desde, largo);   // FilterOutputStream escribiría byte a byte
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.flush();
+        }
     }
 
-    public static void guardarActividades(String actPath, List<Cultivo> cultos) throws IOException {
-        try (BufferedWriter bw = new BufferedWriter(new FileWriter(actPath))) {
-            for (Cultivo c : cultos) {
-                for (Actividad a : c.getActividades()) {
-                    bw.write(String.join(",",
-                        c.getNombre(),
-                        a.getTipo().name(),
-                        a.getFecha().toString(),
-                        a.isCompletada() ? "COMPLETADA" : "PENDIENTE"
-                    ));
-                    bw.newLine();
+    // ——————————————————————————————————————————————————————————————————————
+    //    IMPORTACIÓN POR LOTES (validación en paralelo)
+    // ——————————————————————————————————————————————————————————————————————
+
+    /**
+     * Lee un lote externo de cultivos y, opcionalmente, uno de actividades
+     * ({@code nombre,TIPO,fecha,ESTADO}, unidas por nombre a los cultivos del
+     * lote). Las filas se validan en paralelo por trozos del archivo; cada
+     * fila inválida se informa con su línea y no detiene la lectura.
+     *
+     * @param parcelas búsqueda de parcelas existentes (debe admitir llamadas
+     *                 concurrentes); null indica parcela inexistente
+     */
+    public static LoteImportado leerLote(String cultivosCsv, String actividadesCsv,
+                                         Function<String, Parcela> parcelas) throws IOException {
+        EstadoCultivo[] estados = EstadoCultivo.values();
+        Validado<Cultivo> cult = validarEnParalelo(cultivosCsv,
+            (tk, dic) -> validarCultivo(tk, estados, parcelas, dic));
+        asignarIds(cult.filas);   // ya unidas en orden de archivo: ids deterministas
+
+        List<LoteImportado.ErrorFila> errores = new ArrayList<>(cult.errores);
+        int[] unidas = new int[cult.filas.size()];
+        if (actividadesCsv != null) {
+            Actividad.Tipo[] tipos = Actividad.Tipo.values();
+            Validado<FilaActividad> act = validarEnParalelo(actividadesCsv,
+                (tk, dic) -> validarActividad(tk, tipos));
+            int desde = errores.size();
+            errores.addAll(act.errores);
+
+            // unión por nombre, sólo con cultivos de este lote
+            Map<String, Integer> porNombre = new HashMap<>();
+            Set<String> repetidos = new HashSet<>();
+            for (int k = 0; k < cult.filas.size(); k++) {
+                String nombre = cult.filas.get(k).getNombre();
+                if (porNombre.putIfAbsent(nombre, k) != null) repetidos.add(nombre);
+            }
+            for (int i = 0; i < act.filas.size(); i++) {
+                FilaActividad f = act.filas.get(i);
+                Integer k = porNombre.get(f.cultivo);
+                String error = k == null ? "el cultivo '" + f.cultivo + "' no está en el lote"
+                             : repetidos.contains(f.cultivo) ? "nombre de cultivo repetido en el lote: " + f.cultivo
+                             : null;
+                if (error != null) {
+                    errores.add(new LoteImportado.ErrorFila(actividadesCsv, act.lineas.get(i), error));
+                } else {
+                    cult.filas.get(k).addActividad(f.actividad);
+                    unidas[k]++;
+                }
+            }
+            errores.subList(desde, errores.size())
+                   .sort(Comparator.comparingInt(LoteImportado.ErrorFila::getLinea));
+        }
+        return new LoteImportado(cultivosCsv, cult.filas, cult.lineas, unidas, errores);
+    }
+
+    private static Cultivo validarCultivo(CSVTokenizer tk, EstadoCultivo[] estados,
+                                          Function<String, Parcela> parcelas, Diccionario dic) {
+        if (tk.campos() < 7 || !tk.igualIgnorandoMayusculas(0, "Cultivo")) {
+            throw new IllegalArgumentException(
+                "se esperaba Cultivo,nombre,variedad,superficie,parcela,fecha,estado");
+        }
+        String nombre = tk.texto(1);
+        if (nombre.isEmpty()) throw new IllegalArgumentException("nombre vacío");
+        double sup = superficie(tk, 3);
+        String codPar = tk.texto(4);
+        Parcela p = parcelas.apply(codPar);
+        if (p == null) throw new IllegalArgumentException("parcela inexistente: " + codPar);
+        int siembra = dia(tk, 5);
+        EstadoCultivo est = enumeracion(tk, 6, estados, "estado");
+
+        Cultivo c = new Cultivo(0, nombre, tk.texto(2, dic), sup, p, siembra, est);
+        if (tk.campos() > 7) {
+            try {
+                leerActividadesEmbebidas(tk.buffer(), tk.inicio(7), tk.fin(7), c.getActividades());
+            } catch (RuntimeException ex) {
+                throw new IllegalArgumentException("actividades embebidas: " + ex.getMessage());
+            }
+        }
+        return c;
+    }
+
+    private static FilaActividad validarActividad(CSVTokenizer tk, Actividad.Tipo[] tipos) {
+        if (tk.campos() < 4) throw new IllegalArgumentException("se esperaba nombre,tipo,fecha,estado");
+        int b = tk.campos() >= 5 ? 1 : 0;   // con ids (como lo escribe guardarActividades): se ignoran
+        String nombre = tk.texto(b);
+        if (nombre.isEmpty()) throw new IllegalArgumentException("nombre de cultivo vacío");
+        Actividad a = new Actividad(enumeracion(tk, b + 1, tipos, "tipo"), dia(tk, b + 2));
+        if (tk.igualIgnorandoMayusculas(b + 3, "COMPLETADA")) a.setCompletada(true);
+        else if (!tk.igualIgnorandoMayusculas(b + 3, "PENDIENTE")) {
+            throw new IllegalArgumentException("estado de actividad desconocido: " + tk.texto(b + 3));
+        }
+        return new FilaActividad(nombre, a);
+    }
+
+    private static double superficie(CSVTokenizer tk, int campo) {
+        double d;
+        try {
+            d = tk.decimal(campo);
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException("superficie no numérica: " + tk.texto(campo));
+        }
+        if (!(d > 0) || Double.isInfinite(d)) {
+            throw new IllegalArgumentException("superficie debe ser positiva: " + tk.texto(campo));
+        }
+        return d;
+    }
+
+    private static int dia(CSVTokenizer tk, int campo) {
+        try {
+            return tk.dia(campo);
+        } catch (DateTimeException ex) {
+            throw new IllegalArgumentException("fecha inválida: " + tk.texto(campo));
+        }
+    }
+
+    private static <E extends Enum<E>> E enumeracion(CSVTokenizer tk, int campo, E[] valores, String que) {
+        try {
+            return tk.enumeracion(campo, valores);
+        } catch (IllegalArgumentException ex) {
+            throw new IllegalArgumentException(que + " desconocido: " + tk.texto(campo));
+        }
+    }
+
+    private static final class FilaActividad {
+        final String cultivo;
+        final Actividad actividad;
+        FilaActividad(String cultivo, Actividad actividad) {
+            this.cultivo = cultivo;
+            this.actividad = actividad;
+        }
+    }
+
+    private interface Validador<T> { T validar(CSVTokenizer tk, Diccionario dic); }
+
+    /** Filas válidas (con su línea) y errores de un trozo o del archivo completo. */
+    private static final class Validado<T> {
+        final List<T> filas = new ArrayList<>();
+        final List<Integer> lineas = new ArrayList<>();
+        final List<LoteImportado.ErrorFila> errores = new ArrayList<>();
+        int totalLineas;
+    }
+
+    private static <T> Validado<T> validarEnParalelo(String path, Validador<T> validador)
+            throws IOException {
+        try (FileChannel ch = FileChannel.open(Paths.get(path), StandardOpenOption.READ)) {
+            long size = ch.size();
+            int hilos = ForkJoinPool.getCommonPoolParallelism();
+            if (size < UMBRAL_PARALELO || hilos < 2) {
+                return validarTrozo(path, ch.map(FileChannel.MapMode.READ_ONLY, 0, size),
+                                    validador, new Diccionario());
+            }
+
+            long[] cortes = cortesDeLinea(ch, size, hilos * 4);
+            Diccionario comun = new Diccionario();
+            List<ForkJoinTask<Validado<T>>> tareas = new ArrayList<>();
+            for (int i = 0; i + 1 < cortes.length; i++) {
+                MappedByteBuffer buf = ch.map(FileChannel.MapMode.READ_ONLY,
+                                              cortes[i], cortes[i + 1] - cortes[i]);
+                tareas.add(ForkJoinPool.commonPool().submit(
+                    () -> validarTrozo(path, buf, validador, new Diccionario(comun))));
+            }
+
+            // fusión en orden del archivo; las líneas de cada trozo se desplazan
+            Validado<T> total = new Validado<>();
+            for (ForkJoinTask<Validado<T>> t : tareas) {
+                Validado<T> v = esperar(t);
+                int base = total.totalLineas;
+                total.filas.addAll(v.filas);
+                for (int l : v.lineas) total.lineas.add(base + l);
+                for (LoteImportado.ErrorFila e : v.errores) {
+                    total.errores.add(new LoteImportado.ErrorFila(path, base + e.getLinea(), e.getMensaje()));
+                }
+                total.totalLineas += v.totalLineas;
+            }
+            return total;
+        }
+    }
+
+    private static <T> Validado<T> validarTrozo(String path, ByteBuffer buf, Validador<T> validador,
+                                                Diccionario dic) throws IOException {
+        Validado<T> v = new Validado<>();
+        try (CSVTokenizer tk = new CSVTokenizer(buf)) {
+            while (tk.siguienteLinea()) {
+                int linea = ++v.totalLineas;
+                if (tk.campos() == 1 && tk.fin(0) == tk.inicio(0)) continue;   // línea en blanco
+                try {
+                    v.filas.add(validador.validar(tk, dic));
+                    v.lineas.add(linea);
+                } catch (RuntimeException ex) {
+                    v.errores.add(new LoteImportado.ErrorFila(path, linea, ex.getMessage()));
                 }
             }
         }
+        return v;
     }
 }
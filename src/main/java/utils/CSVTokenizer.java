@@ -0,0 +1,387 @@
+package utils;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.util.Arrays;
+
+/**
+ * Tokenizador CSV en streaming.
+ *
+ * Decodifica UTF-8 sobre buffers reutilizables y deja cada línea en un único
+ * arreglo de caracteres; los campos se exponen como rangos de ese arreglo, de
+ * modo que números, fechas ISO y nombres de enum se interpretan sin crear
+ * Strings intermedios. Las comas dentro de comillas o de corchetes no separan
+ * campos, así la lista embebida {@code [...]} llega completa como un solo campo.
+ */
+public final class CSVTokenizer implements Closeable {
+
+    private static final int TAM_BUFFER = 64 * 1024;
+
+    private static final double[] POTENCIAS_10 = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10,
+        1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+    private static final long MAX_MANTISA_EXACTA = 1L << 53;
+
+    private final ReadableByteChannel in;      // null cuando la fuente es un ByteBuffer completo
+    private final ByteBuffer bytes;
+    private final CharBuffer chars = CharBuffer.allocate(TAM_BUFFER);
+    private final CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    private boolean finEntrada;
+    private boolean terminado;
+
+    private char[] linea = new char[256];
+    private int largo;
+
+    private int[] inicios = new int[16];
+    private int[] fines   = new int[16];
+    private int campos;
+    private int lineas;
+
+    /** Lee desde un stream (se consume con un canal y un buffer propio). */
+    public CSVTokenizer(InputStream is) {
+        this.in = Channels.newChannel(is);
+        this.bytes = ByteBuffer.allocate(TAM_BUFFER);
+        this.bytes.flip();
+    }
+
+    /** Lee el contenido restante de {@code src} (por ejemplo, un archivo mapeado). */
+    public CSVTokenizer(ByteBuffer src) {
+        this.in = null;
+        this.bytes = src;
+        this.finEntrada = true;
+    }
+
+    // ——————————————————————————————————————————————————————————————————————
+    //    Líneas
+    // ——————————————————————————————————————————————————————————————————————
+
+    /**
+     * Avanza a la siguiente línea y la divide en campos.
+     * @return false al llegar al final de la entrada
+     */
+    public boolean siguienteLinea() throws IOException {
+        largo = 0;
+        campos = 0;
+        while (true) {
+            if (!chars.hasRemaining() && !rellenar()) {
+                if (largo == 0) return false;
+                break;
+            }
+            char[] a = chars.array();
+            int p = chars.position(), lim = chars.limit(), i = p;
+            while (i < lim && a[i] != '\n') i++;
+            agregar(a, p, i - p);
+            if (i < lim) {
+                chars.position(i + 1);
+                break;
+            }
+            chars.position(lim);
+        }
+        if (largo > 0 && linea[largo - 1] == '\r') largo--;
+        lineas++;
+        dividir();
+        return true;
+    }
+
+    /** Número de la línea actual (desde 1); al terminar, cantidad de líneas leídas. */
+    public int numeroLinea() { return lineas; }
+
+    private boolean rellenar() throws IOException {
+        chars.clear();
+        while (!terminado) {
+            CoderResult r = decoder.decode(bytes, chars, finEntrada);
+            if (r.isError()) r.throwException();
+            if (chars.position() > 0) break;
+            if (finEntrada) {
+                decoder.flush(chars);
+                terminado = true;
+                break;
+            }
+            bytes.compact();
+            int n = in.read(bytes);
+            bytes.flip();
+            if (n < 0) finEntrada = true;
+        }
+        chars.flip();
+        return chars.hasRemaining();
+    }
+
+    private void agregar(char[] a, int desde, int n) {
+        if (largo + n > linea.length) {
+            char[] nueva = new char[Math.max(linea.length * 2, largo + n)];
+            System.arraycopy(linea, 0, nueva, 0, largo);
+            linea = nueva;
+        }
+        System.arraycopy(a, desde, linea, largo, n);
+        largo += n;
+    }
+
+    // ——————————————————————————————————————————————————————————————————————
+    //    Campos
+    // ——————————————————————————————————————————————————————————————————————
+
+    private void dividir() {
+        boolean enComillas = false;
+        int corchetes = 0, ini = 0;
+        for (int i = 0; i < largo; i++) {
+            char c = linea[i];
+            if (c == '"') {
+                enComillas = !enComillas;
+            } else if (!enComillas) {
+                if (c == '[') corchetes++;
+                else if (c == ']' && corchetes > 0) corchetes--;
+                else if (c == ',' && corchetes == 0) {
+                    marcarCampo(ini, i);
+                    ini = i + 1;
+                }
+            }
+        }
+        marcarCampo(ini, largo);
+    }
+
+    /** Guarda el rango del campo sin espacios externos ni comillas envolventes. */
+    private void marcarCampo(int ini, int fin) {
+        while (ini < fin && linea[ini] <= ' ') ini++;
+        while (fin > ini && linea[fin - 1] <= ' ') fin--;
+        if (fin - ini >= 2 && linea[ini] == '"' && linea[fin - 1] == '"') {
+            ini++;
+            fin--;
+        }
+        if (campos == inicios.length) {
+            inicios = Arrays.copyOf(inicios, campos * 2);
+            fines   = Arrays.copyOf(fines, campos * 2);
+        }
+        inicios[campos] = ini;
+        fines[campos]   = fin;
+        campos++;
+    }
+
+    public int campos() { return campos; }
+
+    /** Buffer de la línea actual; válido hasta la próxima llamada a {@link #siguienteLinea()}. */
+    public char[] buffer() { return linea; }
+
+    /** Un campo que la línea no tiene (p. ej. cortada) es un error, no el de una línea anterior. */
+    public int inicio(int campo) {
+        if (campo >= campos) throw new IllegalArgumentException("falta el campo " + (campo + 1));
+        return inicios[campo];
+    }
+    public int fin(int campo) { return fines[campo]; }
+
+    public String texto(int campo) {
+        int ini = inicio(campo);
+        return new String(linea, ini, fines[campo] - ini);
+    }
+
+    /** Como {@link #texto(int)}, pero un valor ya visto se toma de {@code dic} (null = sin diccionario). */
+    public String texto(int campo, Diccionario dic) {
+        return dic == null ? texto(campo) : dic.texto(linea, inicio(campo), fines[campo]);
+    }
+
+    public boolean igual(int campo, String s) {
+        int ini = inicio(campo);
+        if (fines[campo] - ini != s.length()) return false;
+        for (int i = 0; i < s.length(); i++) if (linea[ini + i] != s.charAt(i)) return false;
+        return true;
+    }
+
+    public boolean igualIgnorandoMayusculas(int campo, String s) {
+        return igualIgnorandoMayusculas(linea, inicio(campo), fines[campo], s);
+    }
+
+    public int entero(int campo) {
+        return parseEntero(linea, inicio(campo), fines[campo]);
+    }
+
+    public long enteroLargo(int campo) {
+        return parseEnteroLargo(linea, inicio(campo), fines[campo]);
+    }
+
+    public double decimal(int campo) {
+        return parseDecimal(linea, inicio(campo), fines[campo]);
+    }
+
+    public LocalDate fecha(int campo) {
+        return parseFecha(linea, inicio(campo), fines[campo]);
+    }
+
+    /** Fecha del campo como epoch-day. */
+    public int dia(int campo) {
+        return parseDia(linea, inicio(campo), fines[campo]);
+    }
+
+    public <E extends Enum<E>> E enumeracion(int campo, E[] valores) {
+        return parseEnum(valores, linea, inicio(campo), fines[campo]);
+    }
+
+    // ——————————————————————————————————————————————————————————————————————
+    //    Interpretación directa sobre rangos de caracteres
+    // ——————————————————————————————————————————————————————————————————————
+
+    /** Misma regla que {@link String#equalsIgnoreCase}, sin copiar el rango. */
+    public static boolean igualIgnorandoMayusculas(char[] a, int desde, int hasta, String s) {
+        if (hasta - desde != s.length()) return false;
+        for (int i = 0; i < s.length(); i++) {
+            char x = a[desde + i], y = s.charAt(i);
+            if (x == y) continue;
+            char ux = Character.toUpperCase(x), uy = Character.toUpperCase(y);
+            if (ux != uy && Character.toLowerCase(ux) != Character.toLowerCase(uy)) return false;
+        }
+        return true;
+    }
+
+    /** Entero decimal no negativo, sin signo ni separadores. */
+    public static int parseEntero(char[] a, int desde, int hasta) {
+        if (desde >= hasta || hasta - desde > 9) {
+            throw new NumberFormatException("Entero inválido: " + new String(a, desde, hasta - desde));
+        }
+        int v = 0;
+        for (int i = desde; i < hasta; i++) {
+            int d = a[i] - '0';
+            if (d < 0 || d > 9) {
+                throw new NumberFormatException("Entero inválido: " + new String(a, desde, hasta - desde));
+            }
+            v = v * 10 + d;
+        }
+        return v;
+    }
+
+    /** Como {@link #parseEntero} para valores de hasta 18 dígitos. */
+    public static long parseEnteroLargo(char[] a, int desde, int hasta) {
+        if (desde >= hasta || hasta - desde > 18) {
+            throw new NumberFormatException("Entero inválido: " + new String(a, desde, hasta - desde));
+        }
+        long v = 0;
+        for (int i = desde; i < hasta; i++) {
+            int d = a[i] - '0';
+            if (d < 0 || d > 9) {
+                throw new NumberFormatException("Entero inválido: " + new String(a, desde, hasta - desde));
+            }
+            v = v * 10 + d;
+        }
+        return v;
+    }
+
+    /**
+     * Decimal simple ({@code -12.345}). Si la mantisa cabe en 53 bits y hay a lo
+     * sumo 22 decimales la división es exacta y coincide con
+     * {@link Double#parseDouble}; cualquier otro caso se delega en él.
+     */
+    public static double parseDecimal(char[] a, int desde, int hasta) {
+        int i = desde;
+        boolean negativo = false;
+        if (i < hasta && (a[i] == '-' || a[i] == '+')) {
+            negativo = a[i] == '-';
+            i++;
+        }
+        long mantisa = 0;
+        int decimales = 0;
+        boolean punto = false, digitos = false;
+        for (; i < hasta; i++) {
+            char c = a[i];
+            if (c >= '0' && c <= '9') {
+                if (mantisa > MAX_MANTISA_EXACTA) return lento(a, desde, hasta);
+                mantisa = mantisa * 10 + (c - '0');
+                if (punto) decimales++;
+                digitos = true;
+            } else if (c == '.' && !punto) {
+                punto = true;
+            } else {
+                return lento(a, desde, hasta);
+            }
+        }
+        if (!digitos || mantisa > MAX_MANTISA_EXACTA || decimales >= POTENCIAS_10.length) {
+            return lento(a, desde, hasta);
+        }
+        double d = decimales == 0 ? (double) mantisa : mantisa / POTENCIAS_10[decimales];
+        return negativo ? -d : d;
+    }
+
+    private static double lento(char[] a, int desde, int hasta) {
+        return Double.parseDouble(new String(a, desde, hasta - desde));
+    }
+
+    /** Fecha ISO {@code yyyy-MM-dd}; otros formatos se delegan en {@link LocalDate#parse}. */
+    public static LocalDate parseFecha(char[] a, int desde, int hasta) {
+        return LocalDate.ofEpochDay(parseDia(a, desde, hasta));
+    }
+
+    /**
+     * Fecha ISO {@code yyyy-MM-dd} como epoch-day, calculada directamente de
+     * los dígitos. Rechaza las mismas fechas que {@link LocalDate#of}; otros
+     * formatos se delegan en {@link LocalDate#parse}.
+     */
+    public static int parseDia(char[] a, int desde, int hasta) {
+        if (hasta - desde == 10 && a[desde + 4] == '-' && a[desde + 7] == '-') {
+            int y = digitos(a, desde, 4), m = digitos(a, desde + 5, 2), d = digitos(a, desde + 8, 2);
+            if (y >= 0 && m >= 0 && d >= 0) {
+                if (m < 1 || m > 12 || d < 1 || d > diasDelMes(y, m)) {
+                    throw new DateTimeException("Fecha inválida: " + new String(a, desde, hasta - desde));
+                }
+                return diaEpoch(y, m, d);
+            }
+        }
+        return (int) LocalDate.parse(new String(a, desde, hasta - desde)).toEpochDay();
+    }
+
+    /** Mismo cálculo que {@link LocalDate#toEpochDay} para años 0 a 9999. */
+    static int diaEpoch(int y, int m, int d) {
+        int total = 365 * y + (y + 3) / 4 - (y + 99) / 100 + (y + 399) / 400
+                  + (367 * m - 362) / 12 + d - 1;
+        if (m > 2) total -= bisiesto(y) ? 1 : 2;
+        return total - DIAS_0000_A_1970;
+    }
+
+    private static final int DIAS_0000_A_1970 = 719_528;
+
+    private static boolean bisiesto(int y) {
+        return (y & 3) == 0 && (y % 100 != 0 || y % 400 == 0);
+    }
+
+    private static int diasDelMes(int y, int m) {
+        return m == 2 ? (bisiesto(y) ? 29 : 28) : (m == 4 || m == 6 || m == 9 || m == 11) ? 30 : 31;
+    }
+
+    private static int digitos(char[] a, int desde, int n) {
+        int v = 0;
+        for (int i = desde; i < desde + n; i++) {
+            char c = a[i];
+            if (c < '0' || c > '9') return -1;
+            v = v * 10 + (c - '0');
+        }
+        return v;
+    }
+
+    /** Equivalente a {@code Enum.valueOf} comparando directamente contra el rango. */
+    public static <E extends Enum<E>> E parseEnum(E[] valores, char[] a, int desde, int hasta) {
+        int n = hasta - desde;
+        for (E e : valores) {
+            String nom = e.name();
+            if (nom.length() != n) continue;
+            int i = 0;
+            while (i < n && nom.charAt(i) == a[desde + i]) i++;
+            if (i == n) return e;
+        }
+        throw new IllegalArgumentException("No enum constant "
+            + valores.getClass().getComponentType().getName() + "." + new String(a, desde, n));
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (in != null) in.close();
+    }
+}
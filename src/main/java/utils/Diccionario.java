@@ -0,0 +1,122 @@
+package utils;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Textos canónicos: valores iguales leídos en filas distintas (variedades,
+ * códigos de parcela, ubicaciones) comparten una sola instancia de String.
+ * Los escritores usan la misma tabla para guardar junto a cada valor su
+ * forma UTF-8 y no codificarlo de nuevo en cada fila.
+ *
+ * La tabla deja de crecer al llegar a {@link #MAXIMO} valores; desde ahí los
+ * valores nuevos se devuelven (o codifican) sin compartir. Una instancia no
+ * es segura para hilos: en lecturas paralelas cada hilo usa la suya con un
+ * padre común, de modo que los aciertos no sincronizan y sólo los valores
+ * que el hilo ve por primera vez pasan por {@link #compartir}.
+ */
+public final class Diccionario {
+
+    public static final int MAXIMO = 1 << 16;
+
+    private final Diccionario padre;
+    private String[] textos = new String[64];
+    private int[] hashes = new int[64];
+    private byte[][] codificados;   // sólo si se usa para escribir
+    private int tamano;
+
+    public Diccionario() {
+        this(null);
+    }
+
+    /** Diccionario de un hilo cuyos valores nuevos se canonizan en {@code padre}. */
+    public Diccionario(Diccionario padre) {
+        this.padre = padre;
+    }
+
+    public int size() { return tamano; }
+
+    /** Texto del rango [desde, hasta) de {@code a}, sin copiarlo si ya se conocía. */
+    public String texto(char[] a, int desde, int hasta) {
+        int h = 0;
+        for (int k = desde; k < hasta; k++) h = 31 * h + a[k];   // igual que String.hashCode
+        int mascara = textos.length - 1;
+        int i = mezclar(h) & mascara;
+        for (String s; (s = textos[i]) != null; i = (i + 1) & mascara) {
+            if (hashes[i] == h && iguales(s, a, desde, hasta)) return s;
+        }
+        String s = new String(a, desde, hasta - desde);
+        if (padre != null) s = padre.compartir(s);
+        agregar(i, h, s);
+        return s;
+    }
+
+    /** La instancia canónica de {@code s} (la primera que se compartió). */
+    public synchronized String compartir(String s) {
+        if (s == null) return null;
+        int i = casilla(s);
+        if (textos[i] != null) return textos[i];
+        agregar(i, s.hashCode(), s);
+        return s;
+    }
+
+    /** Bytes UTF-8 de {@code s}; los de valores repetidos se codifican una sola vez. */
+    public byte[] utf8(String s) {
+        if (codificados == null) codificados = new byte[textos.length][];
+        int i = casilla(s);
+        if (textos[i] == null) {
+            if (!agregar(i, s.hashCode(), s)) return s.getBytes(StandardCharsets.UTF_8);
+            i = casilla(s);   // agregar pudo crecer la tabla
+        }
+        byte[] b = codificados[i];
+        if (b == null) codificados[i] = b = s.getBytes(StandardCharsets.UTF_8);
+        return b;
+    }
+
+    /* ───────────────────────── interno ───────────────────────── */
+
+    private int casilla(String s) {
+        int h = s.hashCode();
+        int mascara = textos.length - 1;
+        int i = mezclar(h) & mascara;
+        for (String t; (t = textos[i]) != null; i = (i + 1) & mascara) {
+            if (hashes[i] == h && t.equals(s)) return i;
+        }
+        return i;
+    }
+
+    private static int mezclar(int h) {
+        return h ^ (h >>> 16);
+    }
+
+    private static boolean iguales(String s, char[] a, int desde, int hasta) {
+        if (s.length() != hasta - desde) return false;
+        for (int k = 0; k < s.length(); k++) if (s.charAt(k) != a[desde + k]) return false;
+        return true;
+    }
+
+    private boolean agregar(int i, int h, String s) {
+        if (tamano >= MAXIMO) return false;
+        textos[i] = s;
+        hashes[i] = h;
+        if (++tamano * 2 > textos.length) crecer();
+        return true;
+    }
+
+    private void crecer() {
+        String[] viejos = textos;
+        int[] viejosHashes = hashes;
+        byte[][] viejosCod = codificados;
+        int n = viejos.length * 2, mascara = n - 1;
+        textos = new String[n];
+        hashes = new int[n];
+        codificados = viejosCod == null ? null : new byte[n][];
+        for (int j = 0; j < viejos.length; j++) {
+            if (viejos[j] == null) continue;
+            int i = mezclar(viejosHashes[j]) & mascara;
+            while (textos[i] != null) i = (i + 1) & mascara;
+            textos[i] = viejos[j];
+            hashes[i] = viejosHashes[j];
+            if (viejosCod != null) codificados[i] = viejosCod[j];
+        }
+    }
+}
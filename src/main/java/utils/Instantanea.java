@@ -0,0 +1,224 @@
+package utils;
+
+import models.Actividad;
+import models.Cultivo;
+import models.EstadoCultivo;
+import models.Parcela;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.FileTime;
+import java.util.*;
+
+/**
+ * Instantánea binaria del modelo completo (parcelas, cultivos y actividades)
+ * para un arranque en frío rápido.
+ *
+ * Formato: cabecera, diccionario de strings (UTF-8 con largo), parcelas y
+ * cultivos. Los strings se referencian por índice en el diccionario, las
+ * fechas se guardan como epoch-day y los enums como ordinal.
+ */
+public final class Instantanea {
+
+    private static final int MAGICO  = 0x41505032;   // "APP2"
+    private static final int VERSION = 3;   // 2: ids de parcelas y cultivos; 3: de actividades
+
+    private final Map<String, Parcela> parcelas;
+    private final List<Cultivo> cultivos;
+
+    private Instantanea(Map<String, Parcela> parcelas, List<Cultivo> cultivos) {
+        this.parcelas = parcelas;
+        this.cultivos = cultivos;
+    }
+
+    /** Parcelas por código, en el orden en que se guardaron. */
+    public Map<String, Parcela> getParcelas() { return parcelas; }
+    public List<Cultivo> getCultivos() { return cultivos; }
+
+    // ——————————————————————————————————————————————————————————————————————
+    //    ESCRITURA
+    // ——————————————————————————————————————————————————————————————————————
+
+    public static void guardar(String path, Collection<Parcela> parcelas, List<Cultivo> cultivos)
+            throws IOException {
+        escribir(path, serializar(parcelas, cultivos));
+    }
+
+    /**
+     * Copia inmutable del modelo en el formato de la instantánea; se toma en
+     * el hilo que modifica el modelo y se escribe después con
+     * {@link #escribir} desde otro hilo.
+     */
+    public static byte[] serializar(Collection<Parcela> parcelas, List<Cultivo> cultivos) {
+        // parcelas: las del servicio más cualquiera referida sólo por un cultivo
+        Map<String, Integer> idxParcela = new LinkedHashMap<>();
+        List<Parcela> listaParcelas = new ArrayList<>();
+        for (Parcela p : parcelas) {
+            if (idxParcela.putIfAbsent(p.getCodigo(), listaParcelas.size()) == null) listaParcelas.add(p);
+        }
+        for (Cultivo c : cultivos) {
+            Parcela p = c.getParcela();
+            if (p != null && idxParcela.putIfAbsent(p.getCodigo(), listaParcelas.size()) == null) listaParcelas.add(p);
+        }
+
+        Map<String, Integer> dic = new LinkedHashMap<>();
+        for (Parcela p : listaParcelas) {
+            indice(dic, p.getCodigo());
+            indice(dic, p.getUbicacion());
+        }
+        for (Cultivo c : cultivos) {
+            indice(dic, c.getNombre());
+            indice(dic, c.getVariedad());
+        }
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(1 << 16);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(MAGICO);
+            out.writeInt(VERSION);
+
+            out.writeInt(dic.size());
+            for (String s : dic.keySet()) {
+                byte[] b = s.getBytes(StandardCharsets.UTF_8);
+                out.writeInt(b.length);
+                out.write(b);
+            }
+
+            out.writeInt(listaParcelas.size());
+            for (Parcela p : listaParcelas) {
+                out.writeLong(p.getId());
+                out.writeInt(dic.get(texto(p.getCodigo())));
+                out.writeDouble(p.getArea());
+                out.writeInt(dic.get(texto(p.getUbicacion())));
+            }
+
+            out.writeInt(cultivos.size());
+            for (Cultivo c : cultivos) {
+                out.writeLong(c.getId());
+                out.writeInt(dic.get(texto(c.getNombre())));
+                out.writeInt(dic.get(texto(c.getVariedad())));
+                out.writeDouble(c.getSuperficie());
+                out.writeInt(c.getParcela() == null ? -1 : idxParcela.get(c.getParcela().getCodigo()));
+                out.writeInt(c.getDiaSiembra());
+                out.writeByte(c.getEstadoEnum().ordinal());
+
+                List<Actividad> acts = c.getActividades();
+                out.writeInt(acts.size());
+                for (Actividad a : acts) {
+                    out.writeLong(a.getId());
+                    out.writeByte(a.getTipo().ordinal());
+                    out.writeInt(a.getDia());
+                    out.writeBoolean(a.isCompletada());
+                }
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);   // ByteArrayOutputStream: no ocurre
+        }
+        return bytes.toByteArray();
+    }
+
+    /** Escribe la instantánea serializada (archivo temporal y reemplazo atómico). */
+    public static void escribir(String path, byte[] datos) throws IOException {
+        Path dst = Paths.get(path);
+        Path tmp = Paths.get(path + ".tmp");
+        Files.write(tmp, datos);
+        try {
+            Files.move(tmp, dst, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException ex) {
+            Files.move(tmp, dst, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private static void indice(Map<String, Integer> dic, String s) {
+        dic.putIfAbsent(texto(s), dic.size());
+    }
+
+    private static String texto(String s) {
+        return s == null ? "" : s;
+    }
+
+    // ——————————————————————————————————————————————————————————————————————
+    //    LECTURA
+    // ——————————————————————————————————————————————————————————————————————
+
+    /**
+     * Lee la instantánea si existe y no es más antigua que ninguno de los CSV
+     * de los que proviene; en otro caso (o si es de otra versión) devuelve
+     * null y se debe cargar desde los CSV.
+     */
+    public static Instantanea leerSiVigente(String path, String... fuentes) throws IOException {
+        Path snap = Paths.get(path);
+        if (!Files.exists(snap)) return null;
+        FileTime t = Files.getLastModifiedTime(snap);
+        for (String f : fuentes) {
+            Path p = Paths.get(f);
+            if (Files.exists(p) && Files.getLastModifiedTime(p).compareTo(t) > 0) return null;
+        }
+        ByteBuffer in = mapear(path);
+        return formatoVigente(in) ? leer(in) : null;
+    }
+
+    public static Instantanea leer(String path) throws IOException {
+        ByteBuffer in = mapear(path);
+        if (!formatoVigente(in)) throw new IOException("Instantánea con formato desconocido: " + path);
+        return leer(in);
+    }
+
+    private static ByteBuffer mapear(String path) throws IOException {
+        try (FileChannel ch = FileChannel.open(Paths.get(path), StandardOpenOption.READ)) {
+            return ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());
+        }
+    }
+
+    private static boolean formatoVigente(ByteBuffer in) {
+        return in.remaining() >= 8 && in.getInt() == MAGICO && in.getInt() == VERSION;
+    }
+
+    private static Instantanea leer(ByteBuffer in) {
+        String[] dic = new String[in.getInt()];
+        byte[] buf = new byte[256];
+        for (int i = 0; i < dic.length; i++) {
+            int n = in.getInt();
+            if (n > buf.length) buf = new byte[Math.max(n, buf.length * 2)];
+            in.get(buf, 0, n);
+            dic[i] = new String(buf, 0, n, StandardCharsets.UTF_8);
+        }
+
+        Parcela[] ps = new Parcela[in.getInt()];
+        Map<String, Parcela> parcelas = new LinkedHashMap<>(ps.length * 2);
+        for (int i = 0; i < ps.length; i++) {
+            long id = in.getLong();
+            String cod = dic[in.getInt()];
+            double area = in.getDouble();
+            ps[i] = new Parcela(id, cod, area, dic[in.getInt()]);
+            parcelas.put(cod, ps[i]);
+        }
+
+        EstadoCultivo[] estados = EstadoCultivo.values();
+        Actividad.Tipo[] tipos = Actividad.Tipo.values();
+        int n = in.getInt();
+        List<Cultivo> cultivos = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            long id = in.getLong();
+            String nombre = dic[in.getInt()];
+            String variedad = dic[in.getInt()];
+            double sup = in.getDouble();
+            int idxParcela = in.getInt();
+            Parcela p = idxParcela < 0 ? null : ps[idxParcela];   // -1: sin parcela
+            int siembra = in.getInt();
+            Cultivo c = new Cultivo(id, nombre, variedad, sup, p, siembra, estados[in.get()]);
+
+            int nAct = in.getInt();
+            for (int k = 0; k < nAct; k++) {
+                Actividad a = new Actividad(in.getLong(), tipos[in.get()], in.getInt());
+                a.setCompletada(in.get() != 0);
+                c.addActividad(a);
+            }
+            if (p != null) p.addCultivo(c);
+            cultivos.add(c);
+        }
+        return new Instantanea(parcelas, cultivos);
+    }
+}
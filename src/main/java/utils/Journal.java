@@ -0,0 +1,569 @@
+package utils;
+
+import models.Actividad;
+import models.Cultivo;
+import models.EstadoCultivo;
+import models.Parcela;
+import services.ActividadService;
+import services.CultivoService;
+import services.ParcelaService;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Journal de cambios (write-ahead log) sobre los CSV.
+ *
+ * Cada mutación hecha a través de CultivoService, ParcelaService o
+ * ActividadService agrega un registro corto al final del journal en vez de
+ * reescribir los archivos completos. Al iniciar, los registros se reproducen
+ * sobre el último estado de los CSV. Cuando el journal supera el umbral se
+ * compacta en segundo plano: los CSV se reescriben completos y el journal
+ * vuelve a quedar vacío.
+ *
+ * Los registros se acumulan en memoria y el hilo de {@link Persistencia} los
+ * escribe por lotes: una ráfaga de cambios termina en una sola escritura.
+ *
+ * Los cultivos se identifican por su id (guardado en cultivos.csv) y las
+ * actividades por el suyo dentro del cultivo (journals de formato 1, sin
+ * ids de actividad: por su posición).
+ *
+ * Cada compactación deja los CSV nuevos como temporales, anota en el sello
+ * ({@code <journal>.sello}) la generación que éstos contienen y sólo después
+ * los pone en su lugar. Cada journal empieza con la generación de los CSV
+ * sobre los que se escribió y el formato ({@code #,n,2}): al reproducir se saltan los
+ * registros que los CSV ya incluyen, y {@link #recuperar} termina o descarta
+ * una compactación interrumpida según si alcanzó a escribir el sello.
+ */
+public class Journal implements Closeable {
+
+    private static final long UMBRAL_COMPACTAR = 1024 * 1024;   // bytes
+    private static final int FORMATO = 2;                        // 2: ids de actividad
+
+    private final Path journal;
+    private final Path journalAnterior;   // journal rotado mientras se compacta
+    private final Path archivoSello;      // generación de los CSV en disco
+    private final String cultCsv, parcCsv, actCsv;
+    private final Persistencia persistencia;
+    private String instantanea;           // también se reescribe al compactar (null = no)
+
+    private CultivoService cs;
+    private ParcelaService ps;
+    private Writer out;                   // sólo se usa desde el hilo de persistencia
+    private final StringBuilder pendiente = new StringBuilder();
+    // forma UTF-8 de variedades, códigos y estados para registros y
+    // compactaciones; se usa con el monitor del journal tomado
+    private final Diccionario dic = new Diccionario();
+    private boolean programado;           // hay un volcado en cola para 'pendiente'
+    private int generacion;               // cambia al rotar: invalida volcados ya encolados
+    private long sello;                   // generación de los CSV; tras iniciar, sólo el hilo de persistencia
+    private long bytes;
+    private int compactando;
+    private boolean compactacionPedida;
+    private boolean cerrado;
+
+    public Journal(String journalPath, String cultCsv, String parcCsv, String actCsv) {
+        this(journalPath, cultCsv, parcCsv, actCsv, new Persistencia());
+    }
+
+    public Journal(String journalPath, String cultCsv, String parcCsv, String actCsv,
+                   Persistencia persistencia) {
+        this.journal = Paths.get(journalPath);
+        this.journalAnterior = Paths.get(journalPath + ".old");
+        this.archivoSello = Paths.get(journalPath + ".sello");
+        this.cultCsv = cultCsv;
+        this.parcCsv = parcCsv;
+        this.actCsv = actCsv;
+        this.persistencia = persistencia;
+    }
+
+    /**
+     * Cada compactación escribe también la instantánea binaria, tomada bajo
+     * el mismo lock que los CSV y confirmada con el mismo sello.
+     */
+    public void setInstantanea(String path) { this.instantanea = path; }
+
+    // ——————————————————————————————————————————————————————————————————————
+    //    Reproducción al iniciar
+    // ——————————————————————————————————————————————————————————————————————
+
+    /**
+     * Completa la compactación que alcanzó a escribir el sello (pone los CSV
+     * temporales en su lugar y borra el journal rotado) o descarta los
+     * temporales de una que no lo alcanzó. Debe llamarse antes de leer los CSV.
+     */
+    public void recuperar() throws IOException {
+        sello = leerSello();
+        boolean confirmada = Files.exists(journalAnterior) && generacionDe(journalAnterior) < sello;
+        for (Path destino : destinos()) {
+            Path tmp = temporal(destino);
+            if (!Files.exists(tmp)) continue;
+            if (confirmada) mover(tmp, destino);
+            else Files.delete(tmp);
+        }
+        if (confirmada) Files.delete(journalAnterior);
+    }
+
+    /**
+     * Aplica el journal pendiente (incluido uno rotado cuya compactación no
+     * alcanzó a terminar) y deja el journal listo para seguir agregando. No
+     * escribe: un rotado se une al journal en la próxima compactación.
+     * Debe llamarse antes de conectar el journal a los servicios.
+     */
+    public void reproducir(CultivoService cs, ParcelaService ps, ActividadService as)
+            throws IOException {
+        this.cs = cs;
+        this.ps = ps;
+        reproducir(journalAnterior, sello, cs, ps, as);
+        reproducir(journal, sello, cs, ps, as);
+        bytes = Files.exists(journal) ? Files.size(journal) : 0;
+    }
+
+    /**
+     * Aplica los registros de {@code archivo} escritos sobre CSV de la
+     * generación {@code sello} o posterior; los de generaciones anteriores ya
+     * están en los CSV. Un registro que no se puede aplicar se informa y se
+     * salta: los siguientes se aplican igual.
+     */
+    private static void reproducir(Path archivo, long sello, CultivoService cs, ParcelaService ps,
+                                   ActividadService as) throws IOException {
+        if (!Files.exists(archivo)) return;
+        EstadoCultivo[] estados = EstadoCultivo.values();
+        Actividad.Tipo[] tipos = Actividad.Tipo.values();
+        int n = 0;
+        long generacion = 0;   // journal sin cabecera: anterior a los sellos
+        int formato = 1;
+        try (CSVTokenizer tk = new CSVTokenizer(Files.newInputStream(archivo))) {
+            while (tk.siguienteLinea()) {
+                n++;
+                if (tk.campos() == 0 || tk.fin(0) == tk.inicio(0)) continue;
+                try {
+                    if (tk.igual(0, CABECERA)) {
+                        generacion = tk.enteroLargo(1);
+                        formato = tk.campos() > 2 ? tk.entero(2) : 1;
+                    } else if (generacion >= sello) {
+                        aplicar(tk, formato, cs, ps, as, estados, tipos);
+                    }
+                } catch (RuntimeException ex) {
+                    // típicamente una línea que quedó a medio escribir
+                    System.err.println("Journal " + archivo + ": registro " + n
+                        + " ignorado (" + ex.getMessage() + ")");
+                }
+            }
+        }
+    }
+
+    private static void aplicar(CSVTokenizer tk, int formato, CultivoService cs, ParcelaService ps,
+                                ActividadService as, EstadoCultivo[] estados,
+                                Actividad.Tipo[] tipos) {
+        switch (tk.texto(0)) {
+            case "C+":
+                cs.agregarCultivo(
+                    CSVHandler.cultivoDesdeCampos(tk, 1, estados, cod -> parcela(ps, cod), null));
+                break;
+            case "C-":
+                cs.eliminarCultivo(cultivo(cs, tk, 1));
+                break;
+            case "C=":
+                cs.reemplazarCultivo(cultivo(cs, tk, 1),
+                    CSVHandler.cultivoDesdeCampos(tk, 2, estados, cod -> parcela(ps, cod), null));
+                break;
+            case "C~": {
+                Cultivo c = cultivo(cs, tk, 1);
+                cs.editarCultivo(c, tk.texto(3), tk.texto(4), tk.decimal(5),
+                                 parcela(ps, tk.texto(6)), tk.fecha(7), tk.enumeracion(8, estados));
+                break;
+            }
+            case "P+":
+                ps.agregarParcela(tk.campos() > 4 ? tk.enteroLargo(4) : 0,
+                                  tk.texto(1), tk.decimal(2), tk.texto(3));
+                break;
+            case "P-":
+                ps.eliminarParcela(tk.texto(1));
+                break;
+            case "P~":
+                ps.editarParcela(tk.texto(1), tk.decimal(2), tk.texto(3));
+                break;
+            case "P>":
+                ps.asignarCultivo(tk.texto(1), cultivo(cs, tk, 2));
+                break;
+            case "A+": {
+                Actividad a = formato >= 2
+                    ? new Actividad(CSVHandler.idActividad(tk, 5), tk.enumeracion(2, tipos), tk.dia(3))
+                    : new Actividad(tk.enumeracion(2, tipos), tk.dia(3));
+                a.setCompletada(tk.igualIgnorandoMayusculas(4, "COMPLETADA"));
+                as.registrarActividad(cultivo(cs, tk, 1), a);
+                break;
+            }
+            case "A-": {
+                Cultivo c = cultivo(cs, tk, 1);
+                as.eliminarActividad(c, actividad(c, tk, 2, formato));
+                break;
+            }
+            case "A=": {
+                Cultivo c = cultivo(cs, tk, 1);
+                as.marcarCompletada(c, actividad(c, tk, 2, formato),
+                                    tk.igualIgnorandoMayusculas(3, "COMPLETADA"));
+                break;
+            }
+            default:
+                throw new IllegalArgumentException("operación desconocida " + tk.texto(0));
+        }
+    }
+
+    private static Parcela parcela(ParcelaService ps, String codigo) {
+        if (codigo.isEmpty()) return null;   // cultivo sin parcela
+        ps.agregarParcela(codigo, 0.0, "");
+        return ps.getParcelas().get(codigo);
+    }
+
+    private static Cultivo cultivo(CultivoService cs, CSVTokenizer tk, int campo) {
+        long id = tk.enteroLargo(campo);
+        Cultivo c = cs.buscarPorId(id);
+        if (c == null) throw new IllegalArgumentException("cultivo inexistente: id " + id);
+        return c;
+    }
+
+    /** Por id (formato 2) o por posición (formato 1). */
+    private static Actividad actividad(Cultivo c, CSVTokenizer tk, int campo, int formato) {
+        List<Actividad> acts = c.getActividades();
+        if (formato < 2) {
+            int idx = tk.entero(campo);
+            if (idx >= acts.size()) {
+                throw new IllegalArgumentException("actividad inexistente: posición " + idx + " en cultivo " + c.getId());
+            }
+            return acts.get(idx);
+        }
+        long id = CSVHandler.idActividad(tk, campo);
+        Actividad a = Actividad.buscar(acts, id);
+        if (a == null) throw new IllegalArgumentException("actividad inexistente: id " + id + " en cultivo " + c.getId());
+        return a;
+    }
+
+    // ——————————————————————————————————————————————————————————————————————
+    //    Registros
+    // ——————————————————————————————————————————————————————————————————————
+
+    public synchronized void cultivoAgregado(Cultivo c) {
+        escribir("C+," + CSVHandler.filaCultivo(c, dic));
+    }
+
+    public void cultivoEliminado(long id) {
+        escribir("C-," + id);
+    }
+
+    public synchronized void cultivoReemplazado(long id, Cultivo nuevo) {
+        escribir("C=," + id + "," + CSVHandler.filaCultivo(nuevo, dic));
+    }
+
+    public synchronized void cultivoEditado(Cultivo c) {
+        escribir("C~," + c.getId() + "," + CSVHandler.filaCultivo(c, dic));
+    }
+
+    public synchronized void parcelaAgregada(Parcela p) {
+        escribir("P+," + filaParcela(p) + "," + p.getId());
+    }
+
+    public synchronized void parcelaEliminada(String codigo) {
+        escribir(registro(out -> out.texto("P-,").entreComillas(codigo, true)));
+    }
+
+    public synchronized void parcelaEditada(Parcela p) {
+        escribir("P~," + filaParcela(p));
+    }
+
+    public synchronized void cultivoAsignado(String codigo, Cultivo c) {
+        escribir(registro(out -> out.texto("P>,").entreComillas(codigo, true).caracter(',').entero(c.getId())));
+    }
+
+    public synchronized void actividadRegistrada(long idCultivo, Actividad a) {
+        escribir(registro(out -> out.texto("A+,").entero(idCultivo).caracter(',')
+            .repetido(a.getTipo().name()).caracter(',')
+            .fecha(a.getDia()).caracter(',')
+            .repetido(a.isCompletada() ? "COMPLETADA" : "PENDIENTE").caracter(',')
+            .entero(a.getId())));
+    }
+
+    public void actividadEliminada(long idCultivo, long idActividad) {
+        escribir("A-," + idCultivo + "," + idActividad);
+    }
+
+    public void actividadActualizada(long idCultivo, long idActividad, boolean completada) {
+        escribir("A=," + idCultivo + "," + idActividad + ","
+                 + (completada ? "COMPLETADA" : "PENDIENTE"));
+    }
+
+    private static final String CABECERA = "#";
+
+    private String filaParcela(Parcela p) {
+        return registro(out -> out.entreComillas(p.getCodigo(), true).caracter(',')
+            .decimal(p.getArea()).caracter(',')
+            .entreComillas(p.getUbicacion(), true));
+    }
+
+    /** Un registro armado con SalidaCsv; con el monitor tomado (usa el diccionario). */
+    private String registro(Escritura e) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+        try (SalidaCsv out = new SalidaCsv(bytes, 128, dic)) {
+            e.en(out);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);   // en memoria: no ocurre
+        }
+        return bytes.toString(StandardCharsets.UTF_8);
+    }
+
+    private synchronized void escribir(String registro) {
+        if (cerrado) {
+            // el modelo ya cambió pero no llega a disco: que no pase en silencio
+            System.err.println("Journal " + journal + ": registro posterior al cierre ignorado (" + registro + ")");
+            return;
+        }
+        pendiente.append(registro).append('\n');
+        bytes += largoUtf8(registro) + 1;
+        if (!programado) {
+            programado = true;
+            int gen = generacion;
+            persistencia.ejecutar(() -> volcar(gen));
+        }
+        if (bytes > UMBRAL_COMPACTAR && compactando == 0 && !compactacionPedida) {
+            // se inicia desde el hilo de persistencia: quien escribe puede tener
+            // tomado el lock de CultivoService y la compactación lo necesita
+            compactacionPedida = true;
+            persistencia.ejecutar(() -> compactarEnSegundoPlano(false));
+        }
+    }
+
+    /** Bytes de {@code s} en UTF-8, sin codificarlo. */
+    private static int largoUtf8(String s) {
+        int n = s.length();
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c >= 0x800 && !Character.isSurrogate(c)) n += 2;
+            else if (c >= 0x80) n += 1;   // 2 bytes, o la mitad de un par (4 bytes)
+        }
+        return n;
+    }
+
+    /** Hilo de persistencia: escribe de una vez todo lo acumulado. */
+    private void volcar(int gen) throws IOException {
+        String lote;
+        synchronized (this) {
+            if (gen != generacion) return;   // lo tomó una compactación
+            lote = tomarPendiente();
+        }
+        escribirLote(lote);
+    }
+
+    private String tomarPendiente() {
+        programado = false;
+        String lote = pendiente.toString();
+        pendiente.setLength(0);
+        return lote;
+    }
+
+    private void escribirLote(String lote) throws IOException {
+        if (lote.isEmpty()) return;
+        abrir();
+        out.write(lote);
+        out.flush();
+    }
+
+    /**
+     * Abre el journal para agregar. Uno nuevo empieza con la generación de
+     * los CSV; uno cuya última línea quedó a medio escribir se cierra con un
+     * salto para no pegarle el registro siguiente.
+     */
+    private void abrir() throws IOException {
+        if (out != null) return;
+        long largo = Files.exists(journal) ? Files.size(journal) : 0;
+        boolean cortado = false;
+        if (largo > 0) {
+            try (SeekableByteChannel ch = Files.newByteChannel(journal)) {
+                ByteBuffer ultimo = ByteBuffer.allocate(1);
+                ch.position(largo - 1).read(ultimo);
+                cortado = ultimo.get(0) != '\n';
+            }
+        }
+        out = new BufferedWriter(new OutputStreamWriter(
+            Files.newOutputStream(journal, StandardOpenOption.CREATE, StandardOpenOption.APPEND),
+            StandardCharsets.UTF_8));
+        if (cortado) out.write('\n');
+        if (largo == 0) out.write(CABECERA + "," + sello + "," + FORMATO + "\n");
+    }
+
+    // ——————————————————————————————————————————————————————————————————————
+    //    Compactación
+    // ——————————————————————————————————————————————————————————————————————
+
+    /**
+     * Toma una instantánea textual del modelo en el hilo que llama y encola
+     * la escritura: los registros previos terminan en el journal, que se
+     * rota; luego se escriben los CSV temporales, el sello, los CSV en su
+     * lugar y se borra el rotado. Los registros posteriores van a un journal
+     * nuevo.
+     *
+     * Orden de locks: primero lectura de CultivoService y luego este
+     * journal, el mismo orden que siguen las mutaciones. Quien llama no debe
+     * tener tomado el monitor del journal.
+     */
+    private CompletableFuture<Void> compactarEnSegundoPlano(boolean cerrar) {
+        return cs.leer(cultivos -> {
+            synchronized (this) {
+                byte[] cult, parc, act, bin;
+                try {
+                    cult = aBytes(out -> CSVHandler.escribirCultivos(cultivos, out));
+                    parc = aBytes(out -> CSVHandler.escribirParcelas(ps.getParcelas().values(), out));
+                    act  = aBytes(out -> CSVHandler.escribirActividades(cultivos, out));
+                } catch (IOException ex) {
+                    throw new UncheckedIOException(ex);   // en memoria: no ocurre
+                }
+                bin = instantanea == null ? null : Instantanea.serializar(ps.getParcelas().values(), cultivos);
+                String previo = tomarPendiente();
+                generacion++;
+                bytes = 0;
+                compactando++;
+                compactacionPedida = false;
+                if (cerrar) cerrado = true;
+                return encolarCompactacion(previo, cult, parc, act, bin);
+            }
+        });
+    }
+
+    private CompletableFuture<Void> encolarCompactacion(String previo, byte[] cult, byte[] parc,
+                                                       byte[] act, byte[] bin) {
+        return persistencia.ejecutar(() -> {
+            try {
+                escribirLote(previo);
+                abrir();   // aunque esté vacío: el rotado lleva la generación
+                out.close();
+                out = null;
+                rotar();
+
+                List<Path> destinos = destinos();
+                byte[][] contenidos = { cult, parc, act, bin };
+                for (int i = 0; i < destinos.size(); i++) {
+                    if (contenidos[i] != null) Files.write(temporal(destinos.get(i)), contenidos[i]);
+                }
+                escribirSello(sello + 1);   // desde aquí la compactación vale
+                sello++;
+                for (Path destino : destinos) {
+                    if (Files.exists(temporal(destino))) mover(temporal(destino), destino);
+                }
+                Files.deleteIfExists(journalAnterior);
+            } finally {
+                synchronized (this) { compactando--; }
+            }
+        });
+    }
+
+    /** Reescribe los CSV con el estado actual y espera a que queden en disco. */
+    public void compactar() throws IOException {
+        esperar(compactarEnSegundoPlano(false));
+    }
+
+    /**
+     * Compacta por última vez y deja de aceptar registros. El futuro termina
+     * cuando los CSV quedaron en disco (o con el error de la escritura).
+     */
+    public CompletableFuture<Void> cerrar() {
+        synchronized (this) {
+            if (cerrado) return CompletableFuture.completedFuture(null);
+        }
+        return compactarEnSegundoPlano(true);
+    }
+
+    private static void esperar(CompletableFuture<Void> f) throws IOException {
+        try {
+            f.join();
+        } catch (RuntimeException ex) {
+            Throwable causa = Persistencia.causa(ex);
+            if (causa instanceof IOException) throw (IOException) causa;
+            throw ex;
+        }
+    }
+
+    private interface Escritura { void en(SalidaCsv out) throws IOException; }
+
+    /** Con el monitor tomado (usa el diccionario del journal). */
+    private byte[] aBytes(Escritura e) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (SalidaCsv out = new SalidaCsv(bytes, dic)) {
+            e.en(out);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Pasa el journal a rotado. Un rotado que quedó de una compactación
+     * fallida se conserva si sus registros aún no están en los CSV (se le
+     * agrega el journal) y se descarta si ya están.
+     */
+    private void rotar() throws IOException {
+        if (Files.exists(journalAnterior)) {
+            if (generacionDe(journalAnterior) < sello) {
+                Files.delete(journalAnterior);
+            } else {
+                Files.write(journalAnterior, Files.readAllBytes(journal), StandardOpenOption.APPEND);
+                Files.delete(journal);
+                return;
+            }
+        }
+        Files.move(journal, journalAnterior);
+    }
+
+    /**
+     * Archivos que reescribe la compactación, en el orden en que se ponen en
+     * su lugar: la instantánea al final, para que no quede más antigua que
+     * los CSV de los que proviene.
+     */
+    private List<Path> destinos() {
+        List<Path> l = new ArrayList<>(List.of(Paths.get(cultCsv), Paths.get(parcCsv), Paths.get(actCsv)));
+        if (instantanea != null) l.add(Paths.get(instantanea));
+        return l;
+    }
+
+    private static Path temporal(Path destino) {
+        return Paths.get(destino + ".tmp");
+    }
+
+    private long leerSello() throws IOException {
+        if (!Files.exists(archivoSello)) return 0;
+        return Long.parseLong(new String(Files.readAllBytes(archivoSello), StandardCharsets.US_ASCII).trim());
+    }
+
+    private void escribirSello(long valor) throws IOException {
+        Path tmp = temporal(archivoSello);
+        Files.write(tmp, Long.toString(valor).getBytes(StandardCharsets.US_ASCII));
+        mover(tmp, archivoSello);
+    }
+
+    /** Generación de la primera cabecera del journal; 0 si no tiene (formato anterior). */
+    private static long generacionDe(Path archivo) throws IOException {
+        try (CSVTokenizer tk = new CSVTokenizer(Files.newInputStream(archivo))) {
+            while (tk.siguienteLinea()) {
+                if (tk.campos() == 0 || tk.fin(0) == tk.inicio(0)) continue;
+                return tk.igual(0, CABECERA) && tk.campos() > 1 ? tk.enteroLargo(1) : 0;
+            }
+        }
+        return 0;
+    }
+
+    private static void mover(Path tmp, Path dst) throws IOException {
+        try {
+            Files.move(tmp, dst, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException ex) {
+            Files.move(tmp, dst, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        esperar(cerrar());
+    }
+}
@@ -0,0 +1,291 @@
+package utils;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.ListIterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+
+/**
+ * Lista en orden de inserción, sin repetidos (por identidad), con
+ * pertenencia y reemplazo en tiempo constante y eliminación en O(log n).
+ * Cada elemento conoce su casilla por un {@link MapaIdentidad}; quitar deja
+ * una lápida (null) en la casilla y las lápidas se compactan cuando llegan a
+ * la mitad, de modo que borrar n elementos cuesta O(n log n) en total y no
+ * O(n²).
+ *
+ * El acceso por posición es directo hasta la primera lápida; desde ahí un
+ * árbol de Fenwick con las casillas ocupadas da la casilla de una posición
+ * (get) y la posición de una casilla (indexOf) en O(log n). Los recorridos
+ * (iterator, subList) ubican la posición inicial una vez y luego avanzan
+ * casilla a casilla. Leer no modifica la estructura, así que varios hilos
+ * pueden leer a la vez mientras nadie escribe.
+ *
+ * A diferencia de otras listas, no admite nulos ni repetidos: {@code add},
+ * {@code set} y {@link #reemplazar} lanzan IllegalArgumentException con un
+ * elemento que ya está.
+ */
+public final class ListaIndexada<E> extends AbstractList<E> {
+
+    private static final int MIN_LAPIDAS = 16;   // por debajo no vale la pena compactar
+
+    private Object[] casillas;
+    private int[] ocupadas;                        // Fenwick (base 1) de casillas no vacías
+    private final MapaIdentidad<E> posiciones;
+    private int usadas;                            // casillas ocupadas, incluidas las lápidas
+    private int tamano;
+    private int primeraLapida = Integer.MAX_VALUE;
+
+    public ListaIndexada() {
+        this(16);
+    }
+
+    public ListaIndexada(int capacidad) {
+        casillas = new Object[Math.max(4, capacidad)];
+        ocupadas = new int[casillas.length + 1];
+        posiciones = new MapaIdentidad<>(capacidad);
+    }
+
+    public ListaIndexada(Collection<? extends E> c) {
+        this(c.size());
+        for (E e : c) add(e);
+    }
+
+    @Override
+    public int size() { return tamano; }
+
+    @Override
+    public boolean contains(Object o) {
+        return posiciones.get(o) >= 0;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public E get(int indice) {
+        Objects.checkIndex(indice, tamano);
+        return (E) casillas[casilla(indice)];
+    }
+
+    @Override
+    public int indexOf(Object o) {
+        int k = posiciones.get(o);
+        return k < primeraLapida ? k : ocupadasAntesDe(k);   // incluye -1
+    }
+
+    @Override
+    public int lastIndexOf(Object o) {
+        return indexOf(o);
+    }
+
+    /** Agrega al final; un elemento que ya está es un error (IllegalArgumentException). */
+    @Override
+    public boolean add(E e) {
+        Objects.requireNonNull(e);
+        if (posiciones.get(e) >= 0) throw new IllegalArgumentException("elemento repetido");
+        if (usadas == casillas.length) {
+            casillas = Arrays.copyOf(casillas, usadas * 2);
+            ocupadas = Arrays.copyOf(ocupadas, usadas * 2 + 1);   // los nodos dependen sólo de casillas anteriores
+        }
+        casillas[usadas] = e;
+        ocuparAlFinal(usadas);
+        posiciones.put(e, usadas++);
+        tamano++;
+        modCount++;
+        return true;
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        int k = posiciones.get(o);
+        if (k < 0) return false;
+        quitarCasilla(k);
+        compactarSiConviene();
+        return true;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public E remove(int indice) {
+        Objects.checkIndex(indice, tamano);
+        int k = casilla(indice);
+        E e = (E) casillas[k];
+        quitarCasilla(k);
+        compactarSiConviene();
+        return e;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public E set(int indice, E e) {
+        Objects.checkIndex(indice, tamano);
+        int k = casilla(indice);
+        E viejo = (E) casillas[k];
+        ponerEn(k, viejo, e);
+        return viejo;
+    }
+
+    /**
+     * Pone {@code nuevo} en la posición de {@code viejo}. Devuelve false si
+     * {@code viejo} no está.
+     */
+    public boolean reemplazar(E viejo, E nuevo) {
+        int k = posiciones.get(viejo);
+        if (k < 0) return false;
+        ponerEn(k, viejo, nuevo);
+        return true;
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(casillas, 0, usadas, null);
+        Arrays.fill(ocupadas, 0, usadas + 1, 0);
+        posiciones.clear();
+        usadas = tamano = 0;
+        primeraLapida = Integer.MAX_VALUE;
+        modCount++;
+    }
+
+    @Override
+    public ListIterator<E> listIterator(int indice) {
+        Objects.checkIndex(indice, tamano + 1);
+        return new Iterador(indice);
+    }
+
+    /* ───────────────────────── interno ───────────────────────── */
+
+    /** Casilla del elemento en la posición {@code indice} (ya validada). */
+    private int casilla(int indice) {
+        if (indice < primeraLapida) return indice;
+        // descenso por el árbol: la casilla con indice + 1 ocupadas hasta ella inclusive
+        int k = 0, faltan = indice + 1;
+        for (int paso = Integer.highestOneBit(usadas); paso > 0; paso >>= 1) {
+            int sig = k + paso;
+            if (sig <= usadas && ocupadas[sig] < faltan) {
+                k = sig;
+                faltan -= ocupadas[sig];
+            }
+        }
+        return k;
+    }
+
+    /** Casillas ocupadas en [0, k). */
+    private int ocupadasAntesDe(int k) {
+        int n = 0;
+        for (int i = k; i > 0; i -= i & -i) n += ocupadas[i];
+        return n;
+    }
+
+    /** Nodo de la casilla {@code k} recién agregada: ella más los nodos que cubre. */
+    private void ocuparAlFinal(int k) {
+        int i = k + 1, n = 1;
+        for (int j = i - 1, desde = i - (i & -i); j > desde; j -= j & -j) n += ocupadas[j];
+        ocupadas[i] = n;
+    }
+
+    private void ponerEn(int k, E viejo, E nuevo) {
+        Objects.requireNonNull(nuevo);
+        if (nuevo == viejo) return;
+        if (posiciones.get(nuevo) >= 0) throw new IllegalArgumentException("elemento repetido");
+        posiciones.remove(viejo);
+        posiciones.put(nuevo, k);
+        casillas[k] = nuevo;
+    }
+
+    private void quitarCasilla(int k) {
+        posiciones.remove(casillas[k]);
+        casillas[k] = null;
+        for (int i = k + 1; i <= usadas; i += i & -i) ocupadas[i]--;
+        tamano--;
+        if (k < primeraLapida) primeraLapida = k;
+        modCount++;
+    }
+
+    private void compactarSiConviene() {
+        int lapidas = usadas - tamano;
+        if (lapidas < MIN_LAPIDAS || lapidas * 2 < usadas) return;
+        int j = primeraLapida;
+        for (int k = primeraLapida; k < usadas; k++) {
+            Object e = casillas[k];
+            if (e == null) continue;
+            casillas[j] = e;
+            posiciones.put(elemento(e), j++);
+        }
+        Arrays.fill(casillas, j, usadas, null);
+        for (int i = 1; i <= j; i++) ocupadas[i] = i & -i;   // todas ocupadas
+        Arrays.fill(ocupadas, j + 1, usadas + 1, 0);
+        usadas = j;
+        primeraLapida = Integer.MAX_VALUE;
+    }
+
+    @SuppressWarnings("unchecked")
+    private E elemento(Object e) { return (E) e; }
+
+    /** Recorre las casillas saltando lápidas; sólo admite remove y set. */
+    private final class Iterador implements ListIterator<E> {
+        private int cursor;      // casilla desde donde buscar el siguiente
+        private int indice;      // posición lógica del siguiente
+        private int ultima = -1;
+        private int esperado = modCount;
+
+        Iterador(int inicio) {
+            indice = inicio;
+            cursor = inicio == tamano ? usadas : casilla(inicio);
+        }
+
+        @Override public boolean hasNext() { return indice < tamano; }
+        @Override public boolean hasPrevious() { return indice > 0; }
+        @Override public int nextIndex() { return indice; }
+        @Override public int previousIndex() { return indice - 1; }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public E next() {
+            comprobar();
+            if (indice >= tamano) throw new NoSuchElementException();
+            while (casillas[cursor] == null) cursor++;
+            ultima = cursor++;
+            indice++;
+            return (E) casillas[ultima];
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public E previous() {
+            comprobar();
+            if (indice <= 0) throw new NoSuchElementException();
+            do cursor--; while (casillas[cursor] == null);
+            ultima = cursor;
+            indice--;
+            return (E) casillas[ultima];
+        }
+
+        @Override
+        public void remove() {
+            comprobar();
+            if (ultima < 0) throw new IllegalStateException();
+            quitarCasilla(ultima);   // sin compactar: el cursor sigue valiendo
+            if (ultima < cursor) indice--;
+            ultima = -1;
+            esperado = modCount;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public void set(E e) {
+            comprobar();
+            if (ultima < 0) throw new IllegalStateException();
+            ponerEn(ultima, (E) casillas[ultima], e);
+        }
+
+        @Override
+        public void add(E e) {
+            throw new UnsupportedOperationException();
+        }
+
+        private void comprobar() {
+            if (modCount != esperado) throw new ConcurrentModificationException();
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package utils;
+
+import models.Cultivo;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Resultado de leer un lote externo: los cultivos válidos (con sus
+ * actividades ya unidas) y los errores encontrados, fila por fila.
+ */
+public final class LoteImportado {
+
+    /** Fila rechazada; {@code linea} empieza en 1. */
+    public static final class ErrorFila {
+        private final String archivo;
+        private final int linea;
+        private final String mensaje;
+
+        public ErrorFila(String archivo, int linea, String mensaje) {
+            this.archivo = archivo;
+            this.linea = linea;
+            this.mensaje = mensaje;
+        }
+
+        public String getArchivo() { return archivo; }
+        public int getLinea() { return linea; }
+        public String getMensaje() { return mensaje; }
+
+        @Override
+        public String toString() { return archivo + ":" + linea + ": " + mensaje; }
+    }
+
+    private final String archivo;           // CSV de cultivos
+    private final List<Cultivo> cultivos;
+    private final List<Integer> lineas;     // de cada cultivo en el archivo
+    private final int[] unidas;             // actividades del CSV aparte de cada cultivo
+    private final int actividades;
+    private final List<ErrorFila> errores;
+
+    LoteImportado(String archivo, List<Cultivo> cultivos, List<Integer> lineas, int[] unidas,
+                  List<ErrorFila> errores) {
+        this.archivo = archivo;
+        this.cultivos = cultivos;
+        this.lineas = lineas;
+        this.unidas = unidas;
+        int n = 0;
+        for (int u : unidas) n += u;
+        this.actividades = n;
+        this.errores = errores;
+    }
+
+    /**
+     * El mismo lote sin {@code rechazados}, que pasan a ser errores en su
+     * línea con el mensaje de {@code motivo} (y sus actividades dejan de
+     * contarse).
+     */
+    public LoteImportado sin(List<Cultivo> rechazados, Function<Cultivo, String> motivo) {
+        if (rechazados.isEmpty()) return this;
+        Map<Cultivo, Boolean> fuera = new IdentityHashMap<>();
+        for (Cultivo c : rechazados) fuera.put(c, Boolean.TRUE);
+
+        List<Cultivo> quedan = new ArrayList<>(cultivos.size());
+        List<Integer> lineasQuedan = new ArrayList<>(cultivos.size());
+        int[] unidasQuedan = new int[cultivos.size() - fuera.size()];
+        List<ErrorFila> err = new ArrayList<>(errores);
+        for (int i = 0; i < cultivos.size(); i++) {
+            Cultivo c = cultivos.get(i);
+            if (fuera.containsKey(c)) {
+                err.add(new ErrorFila(archivo, lineas.get(i), motivo.apply(c)));
+            } else {
+                unidasQuedan[quedan.size()] = unidas[i];
+                quedan.add(c);
+                lineasQuedan.add(lineas.get(i));
+            }
+        }
+        // errores del CSV de cultivos primero, cada archivo por línea
+        err.sort(Comparator.comparingInt((ErrorFila e) -> e.archivo.equals(archivo) ? 0 : 1)
+                           .thenComparingInt(ErrorFila::getLinea));
+        return new LoteImportado(archivo, quedan, lineasQuedan, unidasQuedan, err);
+    }
+
+    public List<Cultivo> getCultivos() { return cultivos; }
+
+    /** Actividades del CSV aparte que se unieron a cultivos del lote. */
+    public int getActividades() { return actividades; }
+    public List<ErrorFila> getErrores() { return errores; }
+}
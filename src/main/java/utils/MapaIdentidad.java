@@ -0,0 +1,112 @@
+package utils;
+
+import java.util.Arrays;
+
+/**
+ * Mapa de objetos (por identidad, como {@link java.util.IdentityHashMap}) a
+ * posiciones {@code int} no negativas, con direccionamiento abierto. Los
+ * valores viven en un arreglo primitivo: no se crean {@code Integer} ni
+ * entradas. {@link #get} devuelve -1 para una clave ausente.
+ *
+ * No es seguro para hilos; quien lo use debe sincronizar las escrituras.
+ */
+public final class MapaIdentidad<K> {
+
+    private Object[] claves;
+    private int[] valores;
+    private int tamano;
+
+    public MapaIdentidad() {
+        this(16);
+    }
+
+    public MapaIdentidad(int capacidad) {
+        int n = Integer.highestOneBit(Math.max(8, capacidad * 2) - 1) << 1;
+        claves = new Object[n];
+        valores = new int[n];
+    }
+
+    public int size() { return tamano; }
+
+    /** Posición asociada a {@code clave}, o -1. */
+    public int get(Object clave) {
+        int i = casilla(clave);
+        return claves[i] == clave && clave != null ? valores[i] : -1;
+    }
+
+    public void put(K clave, int valor) {
+        if (clave == null) throw new NullPointerException();
+        int i = casilla(clave);
+        if (claves[i] == null) {
+            claves[i] = clave;
+            if (++tamano * 2 > claves.length) {
+                valores[i] = valor;
+                crecer();
+                return;
+            }
+        }
+        valores[i] = valor;
+    }
+
+    /** Quita la clave; devuelve su posición o -1 si no estaba. */
+    public int remove(Object clave) {
+        int i = casilla(clave);
+        if (clave == null || claves[i] != clave) return -1;
+        int anterior = valores[i];
+        cerrarHueco(i);
+        tamano--;
+        return anterior;
+    }
+
+    public void clear() {
+        Arrays.fill(claves, null);
+        tamano = 0;
+    }
+
+    /* ───────────────────────── interno ───────────────────────── */
+
+    private int casilla(Object clave) {
+        int mascara = claves.length - 1;
+        int i = mezclar(clave) & mascara;
+        while (claves[i] != null && claves[i] != clave) i = (i + 1) & mascara;
+        return i;
+    }
+
+    private static int mezclar(Object clave) {
+        int h = System.identityHashCode(clave) * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    /** Borrado sin lápidas, igual que en {@link MapaLong}. */
+    private void cerrarHueco(int hueco) {
+        int mascara = claves.length - 1;
+        int i = hueco;
+        while (true) {
+            i = (i + 1) & mascara;
+            Object k = claves[i];
+            if (k == null) break;
+            int ideal = mezclar(k) & mascara;
+            boolean mover = hueco <= i ? (ideal <= hueco || ideal > i) : (ideal <= hueco && ideal > i);
+            if (mover) {
+                claves[hueco] = k;
+                valores[hueco] = valores[i];
+                hueco = i;
+            }
+        }
+        claves[hueco] = null;
+    }
+
+    private void crecer() {
+        Object[] viejasClaves = claves;
+        int[] viejosValores = valores;
+        claves = new Object[viejasClaves.length * 2];
+        valores = new int[claves.length];
+        for (int j = 0; j < viejasClaves.length; j++) {
+            if (viejasClaves[j] != null) {
+                int i = casilla(viejasClaves[j]);
+                claves[i] = viejasClaves[j];
+                valores[i] = viejosValores[j];
+            }
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package utils;
+
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * Mapa de claves {@code long} a objetos con direccionamiento abierto (sondeo
+ * lineal). Las claves viven en un arreglo primitivo: buscar, agregar y
+ * quitar no crean objetos ({@code Long} ni entradas). La clave 0 está
+ * reservada para marcar casillas libres.
+ *
+ * No es seguro para hilos; quien lo use debe sincronizar las escrituras.
+ */
+public final class MapaLong<V> {
+
+    private static final float CARGA_MAXIMA = 0.6f;
+
+    private long[] claves;
+    private Object[] valores;
+    private int tamano;
+    private int umbral;
+
+    public MapaLong() {
+        this(16);
+    }
+
+    public MapaLong(int capacidad) {
+        int n = Integer.highestOneBit(Math.max(4, (int) (capacidad / CARGA_MAXIMA)) - 1) << 1;
+        claves = new long[n];
+        valores = new Object[n];
+        umbral = (int) (n * CARGA_MAXIMA);
+    }
+
+    public int size() { return tamano; }
+
+    public boolean isEmpty() { return tamano == 0; }
+
+    @SuppressWarnings("unchecked")
+    public V get(long clave) {
+        int i = casilla(clave);
+        return claves[i] == clave ? (V) valores[i] : null;
+    }
+
+    public boolean containsKey(long clave) {
+        return clave != 0 && claves[casilla(clave)] == clave;
+    }
+
+    /** Asocia {@code valor} a {@code clave}; devuelve el valor anterior o null. */
+    @SuppressWarnings("unchecked")
+    public V put(long clave, V valor) {
+        if (clave == 0) throw new IllegalArgumentException("la clave 0 está reservada");
+        int i = casilla(clave);
+        if (claves[i] == clave) {
+            V anterior = (V) valores[i];
+            valores[i] = valor;
+            return anterior;
+        }
+        claves[i] = clave;
+        valores[i] = valor;
+        if (++tamano > umbral) crecer();
+        return null;
+    }
+
+    /** Quita la clave; devuelve su valor o null si no estaba. */
+    @SuppressWarnings("unchecked")
+    public V remove(long clave) {
+        int i = casilla(clave);
+        if (claves[i] != clave || clave == 0) return null;
+        V anterior = (V) valores[i];
+        cerrarHueco(i);
+        tamano--;
+        return anterior;
+    }
+
+    public void clear() {
+        Arrays.fill(claves, 0);
+        Arrays.fill(valores, null);
+        tamano = 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    public void forEachValue(Consumer<? super V> accion) {
+        for (int i = 0; i < claves.length; i++) {
+            if (claves[i] != 0) accion.accept((V) valores[i]);
+        }
+    }
+
+    /* ───────────────────────── interno ───────────────────────── */
+
+    /** Casilla de la clave, o la casilla libre donde iría. */
+    private int casilla(long clave) {
+        int mascara = claves.length - 1;
+        int i = mezclar(clave) & mascara;
+        while (claves[i] != 0 && claves[i] != clave) i = (i + 1) & mascara;
+        return i;
+    }
+
+    private static int mezclar(long clave) {
+        long h = clave * 0x9E3779B97F4A7C15L;   // Fibonacci: ids consecutivos quedan dispersos
+        return (int) (h ^ (h >>> 32));
+    }
+
+    /**
+     * Borrado sin lápidas: corre hacia atrás las claves siguientes del mismo
+     * grupo que quedarían inalcanzables con el hueco.
+     */
+    private void cerrarHueco(int hueco) {
+        int mascara = claves.length - 1;
+        int i = hueco;
+        while (true) {
+            i = (i + 1) & mascara;
+            long k = claves[i];
+            if (k == 0) break;
+            int ideal = mezclar(k) & mascara;
+            // mover si la posición ideal no está en el tramo (hueco, i]
+            boolean mover = hueco <= i ? (ideal <= hueco || ideal > i) : (ideal <= hueco && ideal > i);
+            if (mover) {
+                claves[hueco] = k;
+                valores[hueco] = valores[i];
+                hueco = i;
+            }
+        }
+        claves[hueco] = 0;
+        valores[hueco] = null;
+    }
+
+    private void crecer() {
+        long[] viejasClaves = claves;
+        Object[] viejosValores = valores;
+        claves = new long[viejasClaves.length * 2];
+        valores = new Object[claves.length];
+        umbral = (int) (claves.length * CARGA_MAXIMA);
+        for (int j = 0; j < viejasClaves.length; j++) {
+            long k = viejasClaves[j];
+            if (k != 0) {
+                int i = casilla(k);
+                claves[i] = k;
+                valores[i] = viejosValores[j];
+            }
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package utils;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Hilo único de escritura a disco. Las tareas se ejecutan en orden de
+ * llegada fuera del hilo de JavaFX; el oyente se entera de cada fallo y de
+ * cuándo la cola queda vacía (todo guardado).
+ */
+public final class Persistencia {
+
+    public interface Tarea { void ejecutar() throws IOException; }
+
+    /** Se invoca desde el hilo de persistencia. */
+    public interface Oyente {
+        void guardado();
+        void fallo(Throwable ex);
+    }
+
+    private final ExecutorService hilo = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "persistencia");
+        t.setDaemon(true);
+        return t;
+    });
+    private final AtomicInteger enCola = new AtomicInteger();
+    private volatile Oyente oyente;
+
+    public void setOyente(Oyente oyente) { this.oyente = oyente; }
+
+    public CompletableFuture<Void> ejecutar(Tarea tarea) {
+        enCola.incrementAndGet();
+        return CompletableFuture.runAsync(() -> {
+            try {
+                tarea.ejecutar();
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }, hilo).whenComplete((v, ex) -> {
+            int n = enCola.decrementAndGet();
+            Oyente o = oyente;
+            if (ex != null) {
+                Throwable causa = causa(ex);
+                if (o != null) o.fallo(causa);
+                else causa.printStackTrace();
+            } else if (n == 0 && o != null) {
+                o.guardado();
+            }
+        });
+    }
+
+    /** Termina cuando todo lo encolado hasta ahora quedó en disco; luego detiene el hilo. */
+    public CompletableFuture<Void> terminar() {
+        CompletableFuture<Void> fin = CompletableFuture.runAsync(() -> { }, hilo);
+        hilo.shutdown();
+        return fin;
+    }
+
+    /** Quita los envoltorios de CompletableFuture y de IOException no chequeada. */
+    public static Throwable causa(Throwable ex) {
+        while ((ex instanceof CompletionException || ex instanceof UncheckedIOException)
+               && ex.getCause() != null) {
+            ex = ex.getCause();
+        }
+        return ex;
+    }
+}
@@ -0,0 +1,269 @@
+package utils;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.Locale;
+
+/**
+ * Escritura de filas CSV directamente en bytes UTF-8 sobre un ByteBuffer que
+ * se vacía al canal en escrituras grandes y secuenciales. Los archivos usan
+ * un buffer directo de 1 MiB que cada hilo reutiliza entre guardados.
+ *
+ * Números y fechas se formatean dígito a dígito (sin String.format ni
+ * Double.toString en el caso común) y los campos repetidos (variedad,
+ * código de parcela, ubicación, estados) salen de la forma UTF-8 guardada
+ * en un {@link Diccionario}.
+ */
+final class SalidaCsv implements Closeable {
+
+    private static final byte[] FIN_LINEA = System.lineSeparator().getBytes(StandardCharsets.US_ASCII);
+    private static final int CAPACIDAD_ARCHIVO = 1 << 20;
+
+    /** Buffer directo del hilo; null mientras una salida lo tiene prestado. */
+    private static final ThreadLocal<ByteBuffer[]> LIBRE =
+        ThreadLocal.withInitial(() -> new ByteBuffer[1]);
+
+    private static final long[] POTENCIAS = {
+        1L, 10L, 100L, 1_000L, 10_000L, 100_000L, 1_000_000L
+    };
+
+    private final WritableByteChannel canal;
+    private final ByteBuffer buf;
+    private final boolean prestado;
+    private final Diccionario dic;
+    private final byte[] digitos = new byte[24];
+
+    private SalidaCsv(WritableByteChannel canal, ByteBuffer buf, boolean prestado, Diccionario dic) {
+        this.canal = canal;
+        this.buf = buf;
+        this.prestado = prestado;
+        this.dic = dic;
+    }
+
+    /**
+     * Salida en memoria (registros del journal, compactación). {@code dic}
+     * conserva la forma UTF-8 de los textos repetidos entre salidas; como
+     * el diccionario, no debe usarse desde dos hilos a la vez.
+     */
+    SalidaCsv(OutputStream out, int capacidad, Diccionario dic) {
+        this(Channels.newChannel(out), ByteBuffer.allocate(capacidad), false, dic);
+    }
+
+    SalidaCsv(OutputStream out, Diccionario dic) {
+        this(out, 1 << 16, dic);
+    }
+
+    SalidaCsv(OutputStream out) {
+        this(out, new Diccionario());
+    }
+
+    /** Crea o trunca {@code path} y escribe en él con el buffer directo del hilo. */
+    static SalidaCsv archivo(String path) throws IOException {
+        FileChannel ch = FileChannel.open(Paths.get(path), StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        ByteBuffer[] libre = LIBRE.get();
+        ByteBuffer b = libre[0];
+        libre[0] = null;
+        if (b == null) b = ByteBuffer.allocateDirect(CAPACIDAD_ARCHIVO);   // primera vez, o anidada
+        b.clear();
+        return new SalidaCsv(ch, b, true, new Diccionario());
+    }
+
+    /* ───────────────────────── texto ───────────────────────── */
+
+    SalidaCsv caracter(char c) throws IOException {
+        if (!buf.hasRemaining()) vaciar();
+        buf.put((byte) c);
+        return this;
+    }
+
+    /** Texto que se repite entre filas: sale de la forma UTF-8 guardada. */
+    SalidaCsv repetido(String s) throws IOException {
+        return bytes(dic.utf8(s));
+    }
+
+    /** Texto en general, codificado en UTF-8 a medida que se copia. */
+    SalidaCsv texto(String s) throws IOException {
+        int n = s.length();
+        for (int i = 0; i < n; i++) {
+            if (buf.remaining() < 4) vaciar();
+            char c = s.charAt(i);
+            if (c < 0x80) {
+                buf.put((byte) c);
+            } else if (c < 0x800) {
+                buf.put((byte) (0xC0 | c >> 6)).put((byte) (0x80 | c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < n && Character.isLowSurrogate(s.charAt(i + 1))) {
+                int cp = Character.toCodePoint(c, s.charAt(++i));
+                buf.put((byte) (0xF0 | cp >> 18)).put((byte) (0x80 | cp >> 12 & 0x3F))
+                   .put((byte) (0x80 | cp >> 6 & 0x3F)).put((byte) (0x80 | cp & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                buf.put((byte) '?');   // sustituto suelto: igual que String.getBytes
+            } else {
+                buf.put((byte) (0xE0 | c >> 12)).put((byte) (0x80 | c >> 6 & 0x3F))
+                   .put((byte) (0x80 | c & 0x3F));
+            }
+        }
+        return this;
+    }
+
+    SalidaCsv entreComillas(String s, boolean repetido) throws IOException {
+        caracter('"');
+        if (s != null) {
+            if (repetido) repetido(s); else texto(s);
+        }
+        return caracter('"');
+    }
+
+    SalidaCsv finLinea() throws IOException {
+        return bytes(FIN_LINEA);
+    }
+
+    /* ───────────────────────── números y fechas ───────────────────────── */
+
+    SalidaCsv entero(long v) throws IOException {
+        if (v == Long.MIN_VALUE) return texto(Long.toString(v));
+        if (v < 0) {
+            caracter('-');
+            v = -v;
+        }
+        int i = digitos.length;
+        do {
+            digitos[--i] = (byte) ('0' + v % 10);
+            v /= 10;
+        } while (v != 0);
+        return digitos(i);
+    }
+
+    /** Igual que {@link Double#toString(double)}. */
+    SalidaCsv decimal(double v) throws IOException {
+        int k = decimales(v);
+        if (k < 0) return texto(Double.toString(v));
+        long n = Math.round(Math.abs(v) * POTENCIAS[k]);
+        if (v < 0) caracter('-');
+        return fijo(n, Math.max(k, 1), k == 0 ? 10 : 1);
+    }
+
+    /** Igual que {@code String.format(Locale.US, "%.2f", v)}. */
+    SalidaCsv dosDecimales(double v) throws IOException {
+        int k = decimales(v);
+        if (k < 0) return texto(String.format(Locale.US, "%.2f", v));
+        long n = Math.round(Math.abs(v) * POTENCIAS[k]);
+        if (k > 2) {
+            // HALF_UP sobre los dígitos decimales más cortos, como Formatter
+            long div = POTENCIAS[k - 2];
+            n = n / div + (n % div * 2 >= div ? 1 : 0);
+            k = 2;
+        }
+        if (v < 0) caracter('-');
+        return fijo(n, 2, POTENCIAS[2 - k]);
+    }
+
+    /**
+     * Menor cantidad de decimales (0 a 6) con que {@code v} se escribe sin
+     * perder precisión, o -1 si no se puede (NaN, infinito, -0.0, valores
+     * donde Double.toString usaría notación científica o más decimales).
+     */
+    private static int decimales(double v) {
+        if (v == 0) return Double.doubleToRawLongBits(v) == 0 ? 0 : -1;
+        double a = Math.abs(v);
+        if (!(a >= 1e-3 && a < 1e7)) return -1;
+        for (int k = 0; k < POTENCIAS.length; k++) {
+            long n = Math.round(a * POTENCIAS[k]);
+            if ((double) n / POTENCIAS[k] == a) return k;
+        }
+        return -1;
+    }
+
+    /** {@code n * escala / 10^k} con exactamente k decimales. */
+    private SalidaCsv fijo(long n, int k, long escala) throws IOException {
+        n *= escala;
+        int i = digitos.length;
+        for (int j = 0; j < k; j++) {
+            digitos[--i] = (byte) ('0' + n % 10);
+            n /= 10;
+        }
+        digitos[--i] = '.';
+        do {
+            digitos[--i] = (byte) ('0' + n % 10);
+            n /= 10;
+        } while (n != 0);
+        return digitos(i);
+    }
+
+    private SalidaCsv digitos(int desde) throws IOException {
+        int n = digitos.length - desde;
+        if (buf.remaining() < n) vaciar();
+        buf.put(digitos, desde, n);
+        return this;
+    }
+
+    /** Epoch-day como {@code yyyy-MM-dd}, sin pasar por LocalDate ni String. */
+    SalidaCsv fecha(int dia) throws IOException {
+        // algoritmo de LocalDate.ofEpochDay, con el año desplazado a marzo
+        long cero = dia + 719_528L - 60;
+        long anio = (400 * cero + 591) / 146_097;
+        long diaAnio = cero - (365 * anio + anio / 4 - anio / 100 + anio / 400);
+        if (diaAnio < 0) {
+            anio--;
+            diaAnio = cero - (365 * anio + anio / 4 - anio / 100 + anio / 400);
+        }
+        int mesMarzo = (int) (diaAnio * 5 + 2) / 153;
+        int mes = (mesMarzo + 2) % 12 + 1;
+        int diaMes = (int) diaAnio - (mesMarzo * 306 + 5) / 10 + 1;
+        anio += mesMarzo / 10;
+        if (cero < 0 || anio > 9999) return texto(LocalDate.ofEpochDay(dia).toString());
+
+        if (buf.remaining() < 10) vaciar();
+        int y = (int) anio;
+        buf.put((byte) ('0' + y / 1000)).put((byte) ('0' + y / 100 % 10))
+           .put((byte) ('0' + y / 10 % 10)).put((byte) ('0' + y % 10))
+           .put((byte) '-')
+           .put((byte) ('0' + mes / 10)).put((byte) ('0' + mes % 10))
+           .put((byte) '-')
+           .put((byte) ('0' + diaMes / 10)).put((byte) ('0' + diaMes % 10));
+        return this;
+    }
+
+    /* ───────────────────────── buffer ───────────────────────── */
+
+    private SalidaCsv bytes(byte[] b) throws IOException {
+        if (b.length > buf.remaining()) {
+            vaciar();
+            if (b.length > buf.capacity()) {
+                escribirTodo(ByteBuffer.wrap(b));
+                return this;
+            }
+        }
+        buf.put(b);
+        return this;
+    }
+
+    private void vaciar() throws IOException {
+        buf.flip();
+        escribirTodo(buf);
+        buf.clear();
+    }
+
+    private void escribirTodo(ByteBuffer b) throws IOException {
+        while (b.hasRemaining()) canal.write(b);
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            vaciar();
+        } finally {
+            canal.close();
+            if (prestado) LIBRE.get()[0] = buf;
+        }
+    }
+}
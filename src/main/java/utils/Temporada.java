@@ -0,0 +1,27 @@
+package utils;
+
+import models.Cultivo;
+import models.Parcela;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Contenido de un archivo de temporada leído con
+ * {@link CSVHandler#leerTemporada}: las parcelas y los cultivos con sus
+ * actividades ya unidas.
+ */
+public final class Temporada {
+
+    private final Map<String, Parcela> parcelas;
+    private final List<Cultivo> cultivos;
+
+    Temporada(Map<String, Parcela> parcelas, List<Cultivo> cultivos) {
+        this.parcelas = parcelas;
+        this.cultivos = cultivos;
+    }
+
+    /** Parcelas por código, en el orden del archivo. */
+    public Map<String, Parcela> getParcelas() { return parcelas; }
+    public List<Cultivo> getCultivos() { return cultivos; }
+}
@@ -0,0 +1,135 @@
+package services;
+
+import models.Actividad;
+import models.Cultivo;
+import models.EstadoCultivo;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.SortedMap;
+import java.util.SplittableRandom;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/** La agenda indexada contra recorrer todas las actividades de todos los cultivos. */
+class AgendaActividadesTest {
+
+    private static final LocalDate BASE = LocalDate.of(2024, 1, 1);
+
+    private final SplittableRandom rnd = new SplittableRandom(12);
+    private int siguiente;
+
+    private Cultivo cultivo(int actividades) {
+        Cultivo c = new Cultivo("Cultivo " + siguiente++, "V", 1.0, null, BASE, EstadoCultivo.ACTIVO);
+        for (int k = 0; k < actividades; k++) c.addActividad(actividad());
+        return c;
+    }
+
+    private Actividad actividad() {
+        Actividad.Tipo[] tipos = Actividad.Tipo.values();
+        Actividad a = new Actividad(tipos[rnd.nextInt(tipos.length)], BASE.plusDays(rnd.nextInt(120)));
+        a.setCompletada(rnd.nextInt(4) == 0);
+        return a;
+    }
+
+    /** Pendientes en [desde, hasta] recorriendo todo, ordenadas por fecha. */
+    private static List<Actividad> ingenuo(CultivoService cs, int desde, int hasta) {
+        return cs.leer(l -> {
+            List<Actividad> res = new ArrayList<>();
+            for (Cultivo c : l) {
+                for (Actividad a : c.getActividades()) {
+                    if (!a.isCompletada() && a.getDia() >= desde && a.getDia() <= hasta) res.add(a);
+                }
+            }
+            res.sort(Comparator.comparingInt(Actividad::getDia));
+            return res;
+        });
+    }
+
+    /** Misma secuencia de fechas y mismas actividades (dentro de un día el orden no importa). */
+    private static void igual(List<Actividad> esperado, List<Actividad> real) {
+        assertEquals(esperado.stream().map(Actividad::getDia).toList(),
+                     real.stream().map(Actividad::getDia).toList());
+        for (Actividad a : esperado) assertTrue(real.stream().anyMatch(b -> b == a), a.toString());
+    }
+
+    private static void comparar(CultivoService cs, ActividadService as, int desde, int hasta, int hoy) {
+        LocalDate d = LocalDate.ofEpochDay(desde), h = LocalDate.ofEpochDay(hasta);
+        List<Actividad> entre = ingenuo(cs, desde, hasta);
+        List<Actividad> vencidas = ingenuo(cs, Integer.MIN_VALUE, hoy - 1);
+
+        igual(entre, as.pendientesEntre(d, h));
+        igual(vencidas, as.vencidas(LocalDate.ofEpochDay(hoy)));
+        assertEquals(entre.size(), as.contarPendientesEntre(d, h));
+        assertEquals(vencidas.size(), as.contarVencidas(LocalDate.ofEpochDay(hoy)));
+
+        SortedMap<LocalDate, Integer> carga = new TreeMap<>();
+        for (Actividad a : entre) carga.merge(LocalDate.ofEpochDay(a.getDia()), 1, Integer::sum);
+        assertEquals(carga, as.cargaPorDia(d, h));
+    }
+
+    @Test
+    void coincideConElRecorridoCompletoTrasCambiosAlAzar() {
+        List<Cultivo> iniciales = new ArrayList<>();
+        for (int i = 0; i < 30; i++) iniciales.add(cultivo(rnd.nextInt(6)));
+        CultivoService cs = new CultivoService(iniciales);
+        ActividadService as = new ActividadService(cs);
+        int base = (int) BASE.toEpochDay();
+
+        for (int paso = 0; paso < 3_000; paso++) {
+            List<Cultivo> todos = cs.leer(ArrayList::new);
+            Cultivo c = todos.get(rnd.nextInt(todos.size()));
+            List<Actividad> acts = c.getActividades();
+            switch (rnd.nextInt(6)) {
+                case 0 -> cs.agregarCultivo(cultivo(rnd.nextInt(5)));   // queda sin indexar hasta la consulta
+                case 1 -> as.registrarActividad(c, actividad());
+                case 2 -> { if (!acts.isEmpty()) as.eliminarActividad(c, acts.get(rnd.nextInt(acts.size()))); }
+                case 3, 4 -> {
+                    if (!acts.isEmpty()) as.marcarCompletada(c, acts.get(rnd.nextInt(acts.size())), rnd.nextBoolean());
+                }
+                default -> {
+                    if (todos.size() > 5) {
+                        for (Actividad a : new ArrayList<>(acts)) as.marcarCompletada(c, a, true);
+                        assertTrue(cs.eliminarCultivo(c));
+                    }
+                }
+            }
+            if (rnd.nextInt(4) == 0) {
+                int desde = base + rnd.nextInt(-10, 130);
+                comparar(cs, as, desde, desde + rnd.nextInt(-5, 60), base + rnd.nextInt(-10, 130));
+            }
+        }
+        comparar(cs, as, Integer.MIN_VALUE / 2, Integer.MAX_VALUE / 2, base + 60);
+    }
+
+    @Test
+    void recuerdaElCultivoDeCadaActividad() {
+        List<Cultivo> iniciales = new ArrayList<>();
+        for (int i = 0; i < 10; i++) iniciales.add(cultivo(3));
+        CultivoService cs = new CultivoService(iniciales);
+        ActividadService as = new ActividadService(cs);
+        Cultivo nuevo = cultivo(2);
+        cs.agregarCultivo(nuevo);
+        as.registrarActividad(iniciales.get(4), actividad());
+
+        List<Actividad> acts = new ArrayList<>();
+        List<Cultivo> duenos = new ArrayList<>();
+        cs.leer(l -> {
+            for (Cultivo c : l) {
+                for (Actividad a : c.getActividades()) {
+                    acts.add(a);
+                    duenos.add(c);
+                }
+            }
+            return null;
+        });
+        List<Cultivo> res = as.cultivosDe(acts);
+        for (int i = 0; i < acts.size(); i++) assertSame(duenos.get(i), res.get(i));
+    }
+}
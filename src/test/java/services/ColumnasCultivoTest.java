@@ -0,0 +1,181 @@
+package services;
+
+import models.Actividad;
+import models.Cultivo;
+import models.EstadoCultivo;
+import models.Parcela;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/** Agregaciones por columnas contra agrupar recorriendo los objetos Cultivo. */
+class ColumnasCultivoTest {
+
+    private final SplittableRandom rnd = new SplittableRandom(10);
+    private final Parcela[] parcelas = {
+        new Parcela("P1", 10, ""), new Parcela("Ñandú", 5, ""), new Parcela("A-3", 2, ""), null
+    };
+    private final String[] variedades = { "Criollo", "Dulce", "", null, "Ámbar" };
+
+    private int dia() {
+        return switch (rnd.nextInt(6)) {
+            case 0 -> rnd.nextInt(-800_000, -700_000);   // antes del año 0
+            case 1 -> rnd.nextInt(-30_000, 0);           // antes de 1970
+            case 2 -> rnd.nextInt(2_900_000, 2_930_000); // después del año 9999
+            default -> rnd.nextInt(19_000, 20_500);
+        };
+    }
+
+    private Cultivo cultivo(int i) {
+        EstadoCultivo[] estados = EstadoCultivo.values();
+        // superficies con pocos decimales binarios: la suma no depende del orden
+        Cultivo c = new Cultivo("Cultivo " + i, variedades[rnd.nextInt(variedades.length)],
+                                rnd.nextInt(200) * 0.25, parcelas[rnd.nextInt(parcelas.length)],
+                                LocalDate.ofEpochDay(dia()), estados[rnd.nextInt(estados.length)]);
+        for (int k = rnd.nextInt(4); k > 0; k--) {
+            Actividad a = new Actividad(Actividad.Tipo.RIEGO, LocalDate.of(2024, 5, k));
+            a.setCompletada(rnd.nextBoolean());
+            c.addActividad(a);
+        }
+        return c;
+    }
+
+    private static final class Grupo {
+        int cantidad;
+        double superficie;
+        long actividades, completadas;
+
+        @Override public String toString() {
+            return cantidad + " " + superficie + " " + actividades + " " + completadas;
+        }
+    }
+
+    /** Mismo resumen que {@code agrupar}, recorriendo los cultivos con LocalDate y mapas. */
+    private static List<String> ingenuo(List<Cultivo> cultivos, Agrupacion g) {
+        Map<Object, Grupo> grupos = new TreeMap<>();   // por nombre, ordinal o YearMonth cronológico
+        for (Cultivo c : cultivos) {
+            Object clave = switch (g) {
+                case PARCELA -> c.getParcela() == null ? "(sin parcela)" : c.getParcela().getCodigo();
+                case ESTADO -> c.getEstadoEnum().ordinal();
+                case VARIEDAD -> c.getVariedad() == null ? "" : c.getVariedad();
+                case MES -> YearMonth.from(c.getFechaSiembra());
+            };
+            Grupo r = grupos.computeIfAbsent(clave, k -> new Grupo());
+            r.cantidad++;
+            r.superficie += c.getSuperficie();
+            r.actividades += c.getActividades().size();
+            r.completadas += c.getActividades().stream().filter(Actividad::isCompletada).count();
+        }
+        List<String> res = new ArrayList<>();
+        grupos.forEach((k, r) -> res.add((g == Agrupacion.ESTADO ? EstadoCultivo.values()[(Integer) k].name() : k.toString())
+                                       + " " + r));
+        return res;
+    }
+
+    private static List<String> texto(List<ResumenGrupo> resumen) {
+        List<String> res = new ArrayList<>();
+        for (ResumenGrupo r : resumen) {
+            res.add(r.getGrupo() + " " + r.getCantidad() + " " + r.getSuperficieTotal() + " "
+                    + r.getActividades() + " " + r.getCompletadas());
+        }
+        return res;
+    }
+
+    private static void comparar(CultivoService cs) {
+        List<Cultivo> cultivos = cs.leer(ArrayList::new);
+        for (Agrupacion g : Agrupacion.values()) {
+            assertEquals(ingenuo(cultivos, g), texto(cs.agrupar(g)), g.name());
+        }
+
+        double total = 0;
+        EnumMap<EstadoCultivo, Double> porEstado = new EnumMap<>(EstadoCultivo.class);
+        EnumMap<EstadoCultivo, Integer> cuantos = new EnumMap<>(EstadoCultivo.class);
+        for (EstadoCultivo e : EstadoCultivo.values()) {
+            porEstado.put(e, 0.0);
+            cuantos.put(e, 0);
+        }
+        Map<String, Double> porParcela = new TreeMap<>();
+        double sembrada = 0;
+        for (Cultivo c : cultivos) {
+            total += c.getSuperficie();
+            porEstado.merge(c.getEstadoEnum(), c.getSuperficie(), Double::sum);
+            cuantos.merge(c.getEstadoEnum(), 1, Integer::sum);
+            if (c.getParcela() != null) porParcela.merge(c.getParcela().getCodigo(), c.getSuperficie(), Double::sum);
+            if (c.getDiaSiembra() >= 19_500 && c.getDiaSiembra() <= 20_000) sembrada += c.getSuperficie();
+        }
+        assertEquals(total, cs.superficieTotal());
+        assertEquals(porEstado, cs.superficiePorEstado());
+        assertEquals(cuantos, cs.contarPorEstado());
+        assertEquals(porParcela, new TreeMap<>(cs.superficiePorParcela()));
+        assertEquals(sembrada, cs.superficieSembradaEntre(LocalDate.ofEpochDay(19_500), LocalDate.ofEpochDay(20_000)));
+    }
+
+    @Test
+    void coincideConAgruparLosObjetosTrasCambios() {
+        List<Cultivo> iniciales = new ArrayList<>();
+        for (int i = 0; i < 200; i++) iniciales.add(cultivo(i));
+        CultivoService cs = new CultivoService(iniciales);
+        ActividadService as = new ActividadService(cs);
+        comparar(cs);
+
+        EstadoCultivo[] estados = EstadoCultivo.values();
+        for (int paso = 0; paso < 600; paso++) {
+            List<Cultivo> todos = cs.leer(ArrayList::new);
+            Cultivo c = todos.get(rnd.nextInt(todos.size()));
+            switch (rnd.nextInt(5)) {
+                case 0 -> cs.agregarCultivo(cultivo(1000 + paso));
+                case 1 -> {
+                    for (Actividad a : new ArrayList<>(c.getActividades())) as.marcarCompletada(c, a, true);
+                    assertTrue(cs.eliminarCultivo(c));   // la última fila pasa a su lugar
+                }
+                case 2 -> cs.editarCultivo(c, c.getNombre(), variedades[rnd.nextInt(variedades.length)],
+                                           rnd.nextInt(200) * 0.25, parcelas[rnd.nextInt(parcelas.length)],
+                                           LocalDate.ofEpochDay(dia()), estados[rnd.nextInt(estados.length)]);
+                case 3 -> as.registrarActividad(c, new Actividad(Actividad.Tipo.FUMIGACION, LocalDate.of(2024, 6, 1)));
+                default -> {
+                    if (!c.getActividades().isEmpty()) {
+                        as.marcarCompletada(c, c.getActividades().get(0), rnd.nextBoolean());
+                    }
+                }
+            }
+            if (paso % 50 == 0) comparar(cs);
+        }
+        comparar(cs);
+    }
+
+    @Test
+    void coincideAlAcumularEnParalelo() {
+        // por encima de UMBRAL_PARALELO: la acumulación se reparte en trozos
+        List<Cultivo> cultivos = new ArrayList<>();
+        for (int i = 0; i < 130_000; i++) cultivos.add(cultivo(i));
+        comparar(new CultivoService(cultivos));
+    }
+
+    @Test
+    void mesDelDiaComoLocalDate() {
+        for (int dia = -800_000; dia < 3_000_000; dia += 13) {
+            LocalDate f = LocalDate.ofEpochDay(dia);
+            assertEquals(f.getYear() * 12 + f.getMonthValue() - 1, ColumnasCultivo.mes(dia), f.toString());
+        }
+        Map<Integer, Integer> bordes = new LinkedHashMap<>();
+        for (int anio : new int[] { -1, 0, 1, 1900, 2000, 2023, 2024, 2100, 9999 }) {
+            for (int m = 1; m <= 12; m++) {
+                LocalDate primero = LocalDate.of(anio, m, 1);
+                bordes.put((int) primero.toEpochDay(), anio * 12 + m - 1);
+                bordes.put((int) primero.minusDays(1).toEpochDay(), (anio * 12 + m - 2));
+            }
+        }
+        bordes.forEach((dia, mes) -> assertEquals(mes, ColumnasCultivo.mes(dia), LocalDate.ofEpochDay(dia).toString()));
+    }
+}
@@ -0,0 +1,132 @@
+package services;
+
+import models.Cultivo;
+import models.Parcela;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import utils.CSVHandler;
+import utils.LoteImportado;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/** Importación parcial: las filas válidas entran y cada rechazo se informa con su línea. */
+class ImportadorTest {
+
+    @TempDir Path dir;
+    private CultivoService cs;
+    private ParcelaService ps;
+    private Importador imp;
+
+    @BeforeEach
+    void servicios() {
+        cs = new CultivoService(new ArrayList<>());
+        ps = new ParcelaService(List.of(new Parcela("P1", 10, "Norte"), new Parcela("P2", 5, "Sur")));
+        ps.setCultivoService(cs);
+        imp = new Importador(cs, ps);
+    }
+
+    private String archivo(String nombre, List<String> lineas) throws IOException {
+        Path p = dir.resolve(nombre);
+        Files.write(p, lineas, StandardCharsets.UTF_8);
+        return p.toString();
+    }
+
+    private static List<String> errores(LoteImportado lote) {
+        List<String> res = new ArrayList<>();
+        for (LoteImportado.ErrorFila e : lote.getErrores()) {
+            res.add(Path.of(e.getArchivo()).getFileName() + ":" + e.getLinea() + ": " + e.getMensaje());
+        }
+        return res;
+    }
+
+    @Test
+    void informaCadaFilaRechazadaConSuLinea() throws IOException {
+        String cult = archivo("cultivos.csv", List.of(
+            "Cultivo,\"Maíz\",\"Dulce\",3.5,\"P1\",\"2024-03-01\",\"ACTIVO\"",
+            "Cultivo,\"Trigo\",\"Candeal\",abc,\"P1\",\"2024-03-01\",\"ACTIVO\"",
+            "Cultivo,\"Soja\",\"RR\",2.0,\"P9\",\"2024-03-01\",\"ACTIVO\"",
+            "",
+            "Cultivo,\"Papa\",\"Andina\",1.0,\"P2\",\"2024-02-30\",\"ACTIVO\"",
+            "Cultivo,\"Avena\",\"Blanca\",1.0,\"P2\",\"2024-03-01\",\"DORMIDO\"",
+            "Cultivo,\"Cebada\",\"Cervecera\",4.0,\"P2\",\"2024-03-02\",\"COSECHADO\""));
+        String act = archivo("actividades.csv", List.of(
+            "\"Maíz\",RIEGO,2024-04-01,PENDIENTE",
+            "\"Trigo\",RIEGO,2024-04-01,PENDIENTE",
+            "\"Cebada\",PODA,2024-04-01,PENDIENTE",
+            "\"Cebada\",COSECHA,2024-09-01,COMPLETADA",
+            "\"Maíz\",FUMIGACION,2024-05-01,HECHA"));
+
+        LoteImportado lote = imp.importar(cult, act);
+
+        assertEquals(List.of("Maíz", "Cebada"), lote.getCultivos().stream().map(Cultivo::getNombre).toList());
+        assertEquals(2, lote.getActividades());
+        assertEquals(2, cs.contar());
+        List<String> err = errores(lote);
+        assertEquals(7, err.size(), err.toString());   // la línea en blanco no es un error
+        assertEquals(List.of(2, 3, 5, 6), err.subList(0, 4).stream()
+            .map(e -> Integer.parseInt(e.split(":")[1])).toList(), err.toString());
+        assertTrue(err.get(1).contains("parcela inexistente: P9"), err.get(1));
+        assertEquals(List.of("actividades.csv:2", "actividades.csv:3", "actividades.csv:5"),
+            err.subList(4, 7).stream().map(e -> e.substring(0, e.indexOf(':', 16))).toList());
+        assertEquals(err.size(), err.stream().distinct().count());
+    }
+
+    @Test
+    void rechazaLosCultivosDeUnaParcelaEliminadaDuranteLaValidacion() throws IOException {
+        String cult = archivo("cultivos.csv", List.of(
+            "Cultivo,\"Maíz\",\"Dulce\",3.5,\"P1\",\"2024-03-01\",\"ACTIVO\"",
+            "Cultivo,\"Papa\",\"Andina\",1.0,\"P2\",\"2024-03-01\",\"ACTIVO\"",
+            "Cultivo,\"Trigo\",\"Candeal\",2.0,\"P1\",\"2024-03-01\",\"ACTIVO\"",
+            "Cultivo,\"Soja\",\"RR\",x,\"P1\",\"2024-03-01\",\"ACTIVO\""));
+        String act = archivo("actividades.csv", List.of(
+            "\"Papa\",RIEGO,2024-04-01,PENDIENTE",
+            "\"Trigo\",RIEGO,2024-04-01,PENDIENTE"));
+
+        LoteImportado leido = CSVHandler.leerLote(cult, act, ps.getParcelas()::get);
+        assertTrue(ps.eliminarParcela("P2"));   // entre la validación y el alta
+        LoteImportado lote = imp.agregar(leido);
+
+        assertEquals(List.of("Maíz", "Trigo"), lote.getCultivos().stream().map(Cultivo::getNombre).toList());
+        assertEquals(1, lote.getActividades());
+        assertEquals(List.of("cultivos.csv:2: parcela inexistente: P2", "cultivos.csv:4"),
+            List.of(errores(lote).get(0), errores(lote).get(1).substring(0, 14)));
+        assertEquals(2, cs.contar());
+        boolean sinPapa = cs.leer(l -> l.stream().noneMatch(c -> c.getNombre().equals("Papa")));
+        assertTrue(sinPapa);
+    }
+
+    @Test
+    void numeraLasLineasAlValidarPorTrozos() throws IOException {
+        // más grande que el umbral de lectura en paralelo: varios trozos
+        List<String> lineas = new ArrayList<>();
+        List<Integer> malas = new ArrayList<>();
+        for (int i = 1; lineas.size() < 80_000; i++) {
+            if (i % 997 == 0) {
+                lineas.add("Cultivo,\"Malo " + i + "\",\"V\",-1,\"P1\",\"2024-03-01\",\"ACTIVO\"");
+                malas.add(i);
+            } else {
+                lineas.add("Cultivo,\"Cultivo número " + i + "\",\"Variedad larga de relleno\",1.5,\"P"
+                           + (1 + i % 2) + "\",\"2024-03-01\",\"ACTIVO\"");
+            }
+        }
+        String cult = archivo("cultivos.csv", lineas);
+        assertTrue(Files.size(Path.of(cult)) > 4L * 1024 * 1024);
+
+        LoteImportado lote = imp.importar(cult, null);
+
+        assertEquals(malas, lote.getErrores().stream().map(LoteImportado.ErrorFila::getLinea).toList());
+        assertEquals(lineas.size() - malas.size(), lote.getCultivos().size());
+        for (int k = 0; k < 1000; k++) {
+            assertEquals("Cultivo número " + (k + 1 + k / 996), lote.getCultivos().get(k).getNombre());
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package services;
+
+import models.Cultivo;
+import models.EstadoCultivo;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/** Búsqueda por subcadena (índice de trigramas e incremental) contra {@code contains} sobre todos. */
+class IndiceTrigramasTest {
+
+    // alfabeto chico, con mayúsculas y acentos: muchos trigramas compartidos
+    private static final String LETRAS = "aAbBnNñÑoóÓ -";
+
+    private final SplittableRandom rnd = new SplittableRandom(6);
+
+    private String palabra(int max) {
+        StringBuilder sb = new StringBuilder();
+        for (int n = rnd.nextInt(max + 1); n > 0; n--) sb.append(LETRAS.charAt(rnd.nextInt(LETRAS.length())));
+        return sb.toString();
+    }
+
+    private Cultivo cultivo() {
+        return new Cultivo(palabra(10), rnd.nextInt(5) == 0 ? null : palabra(8), 1.0, null,
+                           LocalDate.of(2024, 3, 1), EstadoCultivo.ACTIVO);
+    }
+
+    /** Término: a veces un trozo de un nombre existente, a veces al azar. */
+    private String termino(List<Cultivo> cultivos) {
+        if (rnd.nextBoolean()) return palabra(6);
+        Cultivo c = cultivos.get(rnd.nextInt(cultivos.size()));
+        String s = rnd.nextBoolean() || c.getVariedad() == null ? c.getNombre() : c.getVariedad();
+        int i = s.isEmpty() ? 0 : rnd.nextInt(s.length());
+        return s.substring(i, Math.min(s.length(), i + rnd.nextInt(1, 7)));
+    }
+
+    private static Set<Cultivo> ingenuo(List<Cultivo> cultivos, String term) {
+        String t = term.toLowerCase(Locale.ROOT);
+        Set<Cultivo> res = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (Cultivo c : cultivos) {
+            String n = c.getNombre().toLowerCase(Locale.ROOT);
+            String v = c.getVariedad() == null ? "" : c.getVariedad().toLowerCase(Locale.ROOT);
+            if (n.contains(t) || v.contains(t)) res.add(c);
+        }
+        return res;
+    }
+
+    private static void igual(Set<Cultivo> esperado, List<Cultivo> real, String term) {
+        Set<Cultivo> sinRepetir = Collections.newSetFromMap(new IdentityHashMap<>());
+        sinRepetir.addAll(real);
+        assertEquals(real.size(), sinRepetir.size(), "repetidos para '" + term + "'");
+        assertEquals(esperado, sinRepetir, "'" + term + "'");
+    }
+
+    private void mutar(CultivoService cs) {
+        List<Cultivo> todos = cs.leer(ArrayList::new);
+        Cultivo c = todos.get(rnd.nextInt(todos.size()));
+        switch (rnd.nextInt(3)) {
+            case 0 -> cs.agregarCultivo(cultivo());
+            case 1 -> { if (todos.size() > 10) assertTrue(cs.eliminarCultivo(c)); }
+            default -> cs.editarCultivo(c, palabra(10), palabra(8), 1.0, c.getFechaSiembra(), EstadoCultivo.ACTIVO);
+        }
+    }
+
+    @Test
+    void coincideConContainsSobreTodos() {
+        List<Cultivo> iniciales = new ArrayList<>();
+        for (int i = 0; i < 400; i++) iniciales.add(cultivo());
+        CultivoService cs = new CultivoService(iniciales);
+
+        for (int paso = 0; paso < 3_000; paso++) {
+            if (rnd.nextInt(3) == 0) mutar(cs);
+            List<Cultivo> todos = cs.leer(ArrayList::new);
+            String t = termino(todos);
+            igual(ingenuo(todos, t), cs.buscarSubcadena(t), t);
+        }
+    }
+
+    @Test
+    void laIncrementalCoincideMientrasSeEscribe() {
+        List<Cultivo> iniciales = new ArrayList<>();
+        for (int i = 0; i < 400; i++) iniciales.add(cultivo());
+        CultivoService cs = new CultivoService(iniciales);
+        BusquedaIncremental busqueda = new BusquedaIncremental(cs);
+
+        for (int ronda = 0; ronda < 300; ronda++) {
+            String t = termino(cs.leer(ArrayList::new)) + palabra(3);
+            // escribir letra por letra, a veces borrando, con cambios entre teclas
+            for (int k = 0; k <= t.length(); k++) {
+                String escrito = " " + t.substring(0, k) + (rnd.nextBoolean() ? " " : "");
+                if (rnd.nextInt(5) == 0) mutar(cs);
+                if (k > 0 && rnd.nextInt(6) == 0) escrito = t.substring(0, k - 1);
+                List<Cultivo> todos = cs.leer(ArrayList::new);
+                igual(ingenuo(todos, escrito.trim()), busqueda.buscar(escrito), escrito);
+            }
+        }
+    }
+}
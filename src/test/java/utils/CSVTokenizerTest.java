@@ -0,0 +1,56 @@
+package utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.DateTimeException;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/** Fechas leídas dígito a dígito contra LocalDate. */
+class CSVTokenizerTest {
+
+    private static final LocalDate PRIMERO = LocalDate.of(0, 1, 1);
+    private static final LocalDate ULTIMO = LocalDate.of(9999, 12, 31);
+
+    @Test
+    void diaEpochCoincideConLocalDateEntreLosAnios0y9999() {
+        for (LocalDate f = PRIMERO; !f.isAfter(ULTIMO); f = f.plusDays(1)) {
+            assertEquals(f.toEpochDay(), CSVTokenizer.diaEpoch(f.getYear(), f.getMonthValue(), f.getDayOfMonth()),
+                         f::toString);
+        }
+    }
+
+    @Test
+    void parseDiaCoincideConLocalDateEntreLosAnios0y9999() {
+        for (LocalDate f = PRIMERO; !f.isAfter(ULTIMO); f = f.plusDays(1)) {
+            char[] a = f.toString().toCharArray();
+            assertEquals(f.toEpochDay(), CSVTokenizer.parseDia(a, 0, a.length), f::toString);
+        }
+    }
+
+    @Test
+    void parseDiaLeeElRangoIndicado() {
+        char[] a = "x,2024-02-29,y".toCharArray();
+        assertEquals(LocalDate.of(2024, 2, 29).toEpochDay(), CSVTokenizer.parseDia(a, 2, 12));
+    }
+
+    @Test
+    void parseDiaRechazaLasMismasFechasQueLocalDate() {
+        for (String s : new String[] { "2023-02-29", "1900-02-29", "2024-02-30", "2024-04-31",
+                                       "2024-13-01", "2024-00-10", "2024-01-00", "2024-1-01" }) {
+            char[] a = s.toCharArray();
+            assertThrows(DateTimeException.class, () -> LocalDate.parse(s), s);
+            assertThrows(DateTimeException.class, () -> CSVTokenizer.parseDia(a, 0, a.length), s);
+        }
+    }
+
+    @Test
+    void parseDiaDelegaLosOtrosFormatosEnLocalDate() {
+        for (String s : new String[] { "+10000-01-01", "-0001-12-31" }) {
+            char[] a = s.toCharArray();
+            assertEquals(LocalDate.parse(s).toEpochDay(), CSVTokenizer.parseDia(a, 0, a.length), s);
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package utils;
+
+import models.Actividad;
+import models.Cultivo;
+import models.EstadoCultivo;
+import models.Parcela;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/** Serializar y volver a leer la instantánea deja el mismo modelo. */
+class InstantaneaTest {
+
+    @TempDir Path dir;
+
+    private static String csv(Collection<Parcela> parcelas, List<Cultivo> cultivos) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (SalidaCsv out = new SalidaCsv(bytes, new Diccionario())) {
+            CSVHandler.escribirParcelas(parcelas, out);
+            CSVHandler.escribirCultivos(cultivos, out);
+            CSVHandler.escribirActividades(cultivos, out);
+        }
+        return bytes.toString(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void idaYVueltaConservaElModelo() throws IOException {
+        Parcela p1 = new Parcela("P1", 10.25, "Norte, \"alto\"");
+        Parcela p2 = new Parcela("Ñandú", 3.0, null);
+        Parcela suelta = new Parcela("S-9", 1.0, "");   // sólo la refiere un cultivo
+        List<Parcela> parcelas = List.of(p1, p2);
+
+        List<Cultivo> cultivos = new ArrayList<>();
+        EstadoCultivo[] estados = EstadoCultivo.values();
+        Parcela[] donde = { p1, p2, suelta, null };
+        for (int i = 0; i < 40; i++) {
+            Cultivo c = new Cultivo("Cultivo " + i, i % 5 == 0 ? null : "Var " + i % 3, 0.5 * i,
+                                    donde[i % 4], LocalDate.of(2023, 1 + i % 12, 1 + i % 28),
+                                    estados[i % estados.length]);
+            for (int k = 0; k < i % 4; k++) {
+                Actividad a = new Actividad(Actividad.Tipo.values()[k], LocalDate.of(2024, 2, 1 + k));
+                a.setCompletada(k % 2 == 1);
+                c.addActividad(a);
+            }
+            if (c.getParcela() != null) c.getParcela().addCultivo(c);
+            cultivos.add(c);
+        }
+
+        String path = dir.resolve("cultivos.csv.bin").toString();
+        Instantanea.guardar(path, parcelas, cultivos);
+        Instantanea leida = Instantanea.leer(path);
+
+        List<Parcela> todas = List.of(p1, p2, suelta);
+        assertEquals(csv(todas, cultivos), csv(leida.getParcelas().values(), leida.getCultivos()));
+        for (int i = 0; i < cultivos.size(); i++) {
+            Cultivo c = leida.getCultivos().get(i);
+            assertEquals(cultivos.get(i).getId(), c.getId());
+            for (int k = 0; k < c.getActividades().size(); k++) {
+                assertEquals(cultivos.get(i).getActividades().get(k).getId(), c.getActividades().get(k).getId());
+            }
+            // una sola instancia por parcela, con sus cultivos
+            if (c.getParcela() != null) {
+                assertSame(leida.getParcelas().get(c.getParcela().getCodigo()), c.getParcela());
+                assertEquals(true, c.getParcela().getCultivos().contains(c));
+            }
+        }
+        assertEquals(p2.getId(), leida.getParcelas().get("Ñandú").getId());
+    }
+
+    @Test
+    void descartaLaDeOtraVersionOMasAntiguaQueLosCsv() throws IOException {
+        String path = dir.resolve("cultivos.csv.bin").toString();
+        Path csv = dir.resolve("cultivos.csv");
+        Files.writeString(csv, "");
+        Instantanea.guardar(path, List.of(new Parcela("P1", 1, "")), List.of());
+        Files.setLastModifiedTime(csv, FileTime.fromMillis(System.currentTimeMillis() - 60_000));
+        assertNotNull(Instantanea.leerSiVigente(path, csv.toString()));
+
+        Files.setLastModifiedTime(csv, FileTime.fromMillis(System.currentTimeMillis() + 60_000));
+        assertNull(Instantanea.leerSiVigente(path, csv.toString()));
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(0x41505032);
+            out.writeInt(1);   // versión anterior
+        }
+        Files.write(Path.of(path), bytes.toByteArray());
+        Files.setLastModifiedTime(csv, FileTime.fromMillis(System.currentTimeMillis() - 60_000));
+        assertNull(Instantanea.leerSiVigente(path, csv.toString()));
+    }
+}
@@ -0,0 +1,194 @@
+package utils;
+
+import models.Actividad;
+import models.Cultivo;
+import models.EstadoCultivo;
+import models.Parcela;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import services.ActividadService;
+import services.CultivoService;
+import services.ParcelaService;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Mutaciones registradas en el journal y reproducidas sobre un modelo
+ * recién cargado de los mismos CSV: ambos deben quedar iguales.
+ */
+class JournalTest {
+
+    @TempDir Path dir;
+    private String cult, parc, act;
+
+    /** Modelo cargado como al iniciar la aplicación, con el journal conectado. */
+    private final class Sesion {
+        final Persistencia persistencia = new Persistencia();
+        final Journal journal = new Journal(cult + ".journal", cult, parc, act, persistencia);
+        final CultivoService cs;
+        final ParcelaService ps;
+        final ActividadService as;
+
+        Sesion() throws IOException {
+            journal.recuperar();
+            Map<String, Parcela> parcelas = new LinkedHashMap<>();
+            for (Parcela p : CSVHandler.leerParcelas(parc)) parcelas.put(p.getCodigo(), p);
+            List<Cultivo> cultivos = CSVHandler.leerCultivosParalelo(cult);
+            for (Cultivo c : cultivos) {
+                Parcela p = parcelas.get(c.getParcela().getCodigo());
+                c.setParcela(p);
+                p.addCultivo(c);
+            }
+            CSVHandler.vincularActividades(act, cultivos, !CSVHandler.cultivosConId(cult));
+
+            cs = new CultivoService(cultivos);
+            ps = new ParcelaService(parcelas.values());
+            as = new ActividadService(cs);
+            ps.setCultivoService(cs);
+            journal.reproducir(cs, ps, as);
+            cs.setJournal(journal);
+            ps.setJournal(journal);
+            as.setJournal(journal);
+        }
+
+        Cultivo cultivo(String nombre) {
+            return cs.leer(l -> l.stream().filter(c -> c.getNombre().equals(nombre)).findFirst().orElseThrow());
+        }
+
+        /** Espera a que los registros lleguen al journal, sin compactar. */
+        void terminar() {
+            persistencia.terminar().join();
+        }
+
+        String estado() throws IOException {
+            return cs.leer(cultivos -> {
+                ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                try (SalidaCsv out = new SalidaCsv(bytes, new Diccionario())) {
+                    CSVHandler.escribirParcelas(ps.getParcelas().values(), out);
+                    CSVHandler.escribirCultivos(cultivos, out);
+                    CSVHandler.escribirActividades(cultivos, out);
+                } catch (IOException ex) {
+                    throw new AssertionError(ex);
+                }
+                return bytes.toString(StandardCharsets.UTF_8);
+            });
+        }
+    }
+
+    @BeforeEach
+    void csvIniciales() throws IOException {
+        cult = dir.resolve("cultivos.csv").toString();
+        parc = dir.resolve("parcelas.csv").toString();
+        act  = dir.resolve("actividades.csv").toString();
+
+        Parcela p1 = new Parcela("P1", 10.5, "Norte, lote \"A\"");
+        Parcela p2 = new Parcela("Ñandú 2", 4.0, "Sur");
+        List<Cultivo> cultivos = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            Parcela p = i % 2 == 0 ? p1 : p2;
+            Cultivo c = new Cultivo("Maíz " + i, "Criollo", 1.25 * i, p,
+                                    LocalDate.of(2024, 3, 1 + i), EstadoCultivo.ACTIVO);
+            for (int k = 0; k < 4; k++) {
+                c.addActividad(new Actividad(Actividad.Tipo.values()[k], LocalDate.of(2024, 4, 1 + k)));
+            }
+            p.addCultivo(c);
+            cultivos.add(c);
+        }
+        CSVHandler.guardarParcelas(List.of(p1, p2), parc);
+        CSVHandler.guardarCultivos(cultivos, cult);
+        CSVHandler.guardarActividades(act, cultivos);
+    }
+
+    /** Una ronda de cambios que toca todos los tipos de registro. */
+    private static void mutar(Sesion s, String sufijo) {
+        Cultivo m0 = s.cultivo("Maíz 0"), m1 = s.cultivo("Maíz 1"), m2 = s.cultivo("Maíz 2");
+        s.ps.agregarParcela("P3" + sufijo, 2.5, "Este, \"bajo\"");
+        s.cs.agregarCultivo("Trigo" + sufijo, "Candeal", 3.0, s.ps.getParcelas().get("P1"),
+                            LocalDate.of(2024, 5, 2), EstadoCultivo.ACTIVO);
+        s.as.registrarActividad(m0, new Actividad(Actividad.Tipo.COSECHA, LocalDate.of(2024, 9, 1)));
+        s.as.eliminarActividad(m0, m0.getActividades().get(0));
+        // tras quitar la primera, las posiciones ya no coinciden con las del archivo
+        s.as.marcarCompletada(m0, m0.getActividades().get(2), true);
+        s.as.marcarCompletada(m1, m1.getActividades().get(3), true);
+        s.cs.editarCultivo(m2, "Maíz 2", "Dulce", 7.0, s.ps.getParcelas().get("Ñandú 2"),
+                           LocalDate.of(2024, 3, 9), EstadoCultivo.COSECHADO);
+        s.ps.editarParcela("P1", 11.0, "Norte");
+        s.ps.asignarCultivo("P3" + sufijo, m1);
+        s.ps.agregarParcela("Vacía \"" + sufijo + "\"", 1.0, "");
+        s.ps.eliminarParcela("Vacía \"" + sufijo + "\"");
+    }
+
+    @Test
+    void reproduceLasMutacionesSobreLosCsv() throws IOException {
+        Sesion s = new Sesion();
+        mutar(s, "");
+        String esperado = s.estado();
+        s.terminar();
+
+        assertEquals(esperado, new Sesion().estado());
+    }
+
+    @Test
+    void ignoraElUltimoRegistroCortadoYSigueAgregando() throws IOException {
+        Sesion s = new Sesion();
+        mutar(s, "");
+        String esperado = s.estado();
+        s.terminar();
+
+        // un registro a medio escribir (sin salto de línea final)
+        Files.write(Path.of(cult + ".journal"), "C+,Cultivo,\"Ceb".getBytes(StandardCharsets.UTF_8),
+                    StandardOpenOption.APPEND);
+        Sesion s2 = new Sesion();
+        assertEquals(esperado, s2.estado());
+
+        // lo siguiente va en otra línea, no pegado al registro cortado
+        Cultivo m3 = s2.cultivo("Maíz 3");
+        s2.as.marcarCompletada(m3, m3.getActividades().get(1), true);
+        esperado = s2.estado();
+        s2.terminar();
+        assertEquals(esperado, new Sesion().estado());
+    }
+
+    @Test
+    void reproduceLoPosteriorAUnaCompactacion() throws IOException {
+        Sesion s = new Sesion();
+        mutar(s, "a");
+        s.journal.compactar();
+        mutar(s, "b");
+        String esperado = s.estado();
+        s.terminar();
+
+        assertEquals(esperado, new Sesion().estado());
+        String journal = Files.readString(Path.of(cult + ".journal"));
+        assertTrue(journal.contains("P3b") && !journal.contains("P3a"), journal);
+    }
+
+    @Test
+    void saltaActividadesInexistentesYAplicaLoSiguiente() throws IOException {
+        Sesion s = new Sesion();
+        long id = s.cultivo("Maíz 4").getId();
+        s.terminar();
+
+        // formato 2 (por id) y formato 1 (por posición) con referencias que no existen
+        Files.writeString(Path.of(cult + ".journal"),
+            "#,0,2\nA=," + id + ",999999999,COMPLETADA\nA-," + id + ",-7\n"
+            + "#,0\nA=," + id + ",9,COMPLETADA\nA=," + id + ",1,COMPLETADA\n");
+        Cultivo m4 = new Sesion().cultivo("Maíz 4");
+        assertEquals(List.of(false, true, false, false),
+                     m4.getActividades().stream().map(Actividad::isCompletada).toList());
+    }
+}
@@ -0,0 +1,159 @@
+package utils;
+
+import models.Cultivo;
+import models.Parcela;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/** Lectura de cultivos.csv en paralelo (por encima del umbral) contra la secuencial, y sus errores. */
+class LecturaParalelaTest {
+
+    @TempDir Path dir;
+
+    private static final String[] ESTADOS = { "ACTIVO", "COSECHADO" };
+    private static final String[] TIPOS = { "RIEGO", "FERTILIZACION", "COSECHA", "FUMIGACION" };
+
+    /** Filas variadas: multibyte, comillas escapadas, sin parcela, sin id y con actividades. */
+    private static String archivo(SplittableRandom rnd) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; sb.length() < 6 * 1024 * 1024; i++) {
+            if (i % 1000 == 7) sb.append('\n');                   // línea en blanco
+            if (i % 1000 == 8) sb.append("Parcela,\"X\",1,\"\"\n");   // no es un cultivo
+            String parcela = switch (rnd.nextInt(5)) {
+                case 0 -> "";
+                case 1 -> "Ñandú " + rnd.nextInt(20);
+                case 2 -> "P, \"" + rnd.nextInt(5) + "\"";
+                default -> "P" + rnd.nextInt(300);
+            };
+            sb.append("Cultivo,\"Maíz ñ€ ").append(i).append(i % 9 == 0 ? " \"\"dulce\"\"" : "").append("\",")
+              .append(i % 11 == 0 ? "" : "\"Var " + "áéí".charAt(i % 3) + i % 40 + "\"").append(',')
+              .append(rnd.nextInt(10_000) / 4.0).append(',')
+              .append('"').append(parcela.replace("\"", "\"\"")).append("\",")
+              .append("\"20").append(10 + rnd.nextInt(20)).append("-0").append(1 + rnd.nextInt(9))
+              .append('-').append(10 + rnd.nextInt(18)).append("\",")
+              .append('"').append(ESTADOS[rnd.nextInt(ESTADOS.length)]).append('"');
+            boolean sinId = sinId(i);
+            if (!sinId || rnd.nextBoolean()) {
+                sb.append(",[");
+                for (int k = rnd.nextInt(4); k > 0; k--) {
+                    sb.append('"').append(TIPOS[rnd.nextInt(TIPOS.length)]).append(":2024-0").append(k)
+                      .append("-15:").append(rnd.nextBoolean() ? "COMPLETADA" : "PENDIENTE");
+                    if (!sinId) sb.append(':').append(900_000_000L + i * 4L + k);
+                    sb.append('"').append(k > 1 ? "," : "");
+                }
+                sb.append(']');
+            }
+            if (!sinId) sb.append(',').append(800_000_000L + i);
+            sb.append(i % 13 == 0 ? "\r\n" : "\n");
+        }
+        return sb.toString();
+    }
+
+    /** Tramo de filas como las de un CSV antiguo, sin ids. */
+    private static boolean sinId(int fila) {
+        return fila >= 20_000 && fila < 21_000;
+    }
+
+    private static String sinId(String fila) {
+        return fila.substring(0, fila.lastIndexOf(','));
+    }
+
+    @Test
+    void elGrafoEsElMismoQueEnSerie() throws IOException {
+        Path p = dir.resolve("cultivos.csv");
+        Files.writeString(p, archivo(new SplittableRandom(2)), StandardCharsets.UTF_8);
+        assertTrue(Files.size(p) > 4L * 1024 * 1024);
+        assertTrue(ForkJoinPool.getCommonPoolParallelism() > 1, "con un hilo se lee en serie");
+
+        List<Cultivo> serie = CSVHandler.leerCultivos(p.toString());
+        List<Cultivo> paralelo = CSVHandler.leerCultivosParalelo(p.toString());
+
+        assertEquals(serie.size(), paralelo.size());
+        long primeroSerie = 0, primeroParalelo = 0;
+        Diccionario dic = new Diccionario();
+        for (int i = 0; i < serie.size(); i++) {
+            Cultivo s = serie.get(i), c = paralelo.get(i);
+            String fila = CSVHandler.filaCultivo(s, dic);
+            if (sinId(Integer.parseInt(s.getNombre().split(" ")[2]))) {
+                // sin id en el archivo: se asignan en el orden del archivo
+                if (primeroSerie == 0) {
+                    primeroSerie = s.getId();
+                    primeroParalelo = c.getId();
+                }
+                assertEquals(s.getId() - primeroSerie, c.getId() - primeroParalelo, "fila " + i);
+                assertEquals(sinId(fila), sinId(CSVHandler.filaCultivo(c, dic)), "fila " + i);
+            } else {
+                assertEquals(fila, CSVHandler.filaCultivo(c, dic), "fila " + i);
+            }
+            assertEquals(s.getActividades().size(), c.getActividades().size());
+        }
+        assertTrue(primeroSerie != 0);
+
+        // una sola Parcela por código, con sus cultivos en el orden del archivo
+        Map<String, Parcela> parcelas = new LinkedHashMap<>();
+        Map<Cultivo, Integer> fila = new IdentityHashMap<>();
+        for (int i = 0; i < paralelo.size(); i++) {
+            Cultivo c = paralelo.get(i);
+            fila.put(c, i);
+            if (c.getParcela() == null) continue;
+            Parcela canon = parcelas.putIfAbsent(c.getParcela().getCodigo(), c.getParcela());
+            if (canon != null) assertSame(canon, c.getParcela());
+        }
+        Map<Cultivo, Integer> filaSerie = new IdentityHashMap<>();
+        for (int i = 0; i < serie.size(); i++) filaSerie.put(serie.get(i), i);
+        Map<String, List<Integer>> esperado = new LinkedHashMap<>();
+        for (Cultivo s : serie) {
+            if (s.getParcela() != null) esperado.putIfAbsent(s.getParcela().getCodigo(), indices(s.getParcela(), filaSerie));
+        }
+        Map<String, List<Integer>> real = new LinkedHashMap<>();
+        parcelas.forEach((cod, pa) -> real.put(cod, indices(pa, fila)));
+        assertEquals(esperado, real);
+    }
+
+    @Test
+    void unaActividadEmbebidaMalFormadaSenalaSuLinea() throws IOException {
+        String[] malas = {
+            "[\"RIEGO:2024-02-30:PENDIENTE:5\"]",   // fecha
+            "[\"RIEGO:2024-02-01:PENDIENTE:5\",\"PODA:2024-02-01\"]",   // tipo
+            "[\"RIEGO\"]",                          // sin fecha
+            "[\"RIEGO:2024-02-01:COMPLETADA:x\"]"   // id
+        };
+        for (String mala : malas) {
+            List<String> lineas = new ArrayList<>(List.of(archivo(new SplittableRandom(3)).split("\n")));
+            int n = lineas.size() - 1000;   // en uno de los últimos trozos
+            lineas.set(n - 1, "Cultivo,\"Malo\",\"V\",1.0,\"P1\",\"2024-03-01\",\"ACTIVO\"," + mala + ",7");
+            Path grande = dir.resolve("grande.csv");
+            Files.write(grande, lineas, StandardCharsets.UTF_8);
+            Path chico = dir.resolve("chico.csv");
+            Files.write(chico, lineas.subList(n - 5, n), StandardCharsets.UTF_8);
+
+            IOException ex = assertThrows(IOException.class, () -> CSVHandler.leerCultivosParalelo(grande.toString()));
+            assertTrue(ex.getMessage().startsWith(grande + ":" + n + ": actividades embebidas: "), ex.getMessage());
+            ex = assertThrows(IOException.class, () -> CSVHandler.leerCultivos(chico.toString()));
+            assertTrue(ex.getMessage().startsWith(chico + ":5: actividades embebidas: "), ex.getMessage());
+        }
+    }
+
+    private static List<Integer> indices(Parcela p, Map<Cultivo, Integer> fila) {
+        List<Integer> res = new ArrayList<>();
+        for (Cultivo c : p.getCultivos()) res.add(fila.get(c));
+        return res;
+    }
+}
@@ -0,0 +1,145 @@
+package utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/** ListaIndexada contra una ArrayList haciendo las mismas operaciones. */
+class ListaIndexadaTest {
+
+    /** Elemento con identidad propia: dos iguales por contenido siguen siendo distintos. */
+    private static final class E {
+        final int n;
+        E(int n) { this.n = n; }
+        @Override public boolean equals(Object o) { return o instanceof E && ((E) o).n == n; }
+        @Override public int hashCode() { return n; }
+        @Override public String toString() { return "E" + n; }
+    }
+
+    private static void comparar(List<E> esperada, ListaIndexada<E> lista) {
+        assertEquals(esperada.size(), lista.size());
+        for (int i = 0; i < esperada.size(); i++) {
+            assertSame(esperada.get(i), lista.get(i), "posición " + i);
+            assertEquals(i, lista.indexOf(esperada.get(i)));
+        }
+        Iterator<E> it = lista.iterator();
+        for (E e : esperada) assertSame(e, it.next());
+        assertFalse(it.hasNext());
+    }
+
+    @Test
+    void posicionesTrasQuitarIntercalado() {
+        ListaIndexada<E> lista = new ListaIndexada<>();
+        List<E> esperada = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            E e = new E(i);
+            lista.add(e);
+            esperada.add(e);
+        }
+        // quitar uno de cada tres, alternando por posición y por elemento
+        for (int i = esperada.size() - 1; i >= 0; i -= 3) {
+            if (i % 2 == 0) assertSame(esperada.remove(i), lista.remove(i));
+            else assertTrue(lista.remove(esperada.remove(i)));
+        }
+        comparar(esperada, lista);
+
+        for (int i = 0; i < 300; i++) {
+            E e = new E(-i);
+            lista.add(e);
+            esperada.add(e);
+            assertSame(esperada.remove(i * 2 % esperada.size()), lista.remove(i * 2 % lista.size()));
+        }
+        comparar(esperada, lista);
+        assertEquals(-1, lista.indexOf(new E(5)));   // igual por contenido, pero otro objeto
+        assertFalse(lista.remove(new E(5)));
+    }
+
+    @Test
+    void operacionesAlAzar() {
+        SplittableRandom rnd = new SplittableRandom(22);
+        ListaIndexada<E> lista = new ListaIndexada<>(4);
+        List<E> esperada = new ArrayList<>();
+        int siguiente = 0;
+        for (int paso = 0; paso < 200_000; paso++) {
+            int op = rnd.nextInt(10);
+            if (op < 4 || esperada.isEmpty()) {
+                E e = new E(siguiente++);
+                lista.add(e);
+                esperada.add(e);
+            } else if (op < 6) {
+                int i = rnd.nextInt(esperada.size());
+                assertSame(esperada.remove(i), lista.remove(i));
+            } else if (op < 7) {
+                E e = esperada.remove(rnd.nextInt(esperada.size()));
+                assertTrue(lista.remove(e));
+            } else if (op < 8) {
+                int i = rnd.nextInt(esperada.size());
+                E e = new E(siguiente++);
+                assertSame(esperada.set(i, e), lista.set(i, e));
+            } else if (op < 9) {
+                int i = rnd.nextInt(esperada.size());
+                E e = new E(siguiente++);
+                assertTrue(lista.reemplazar(esperada.get(i), e));
+                esperada.set(i, e);
+            } else {
+                int i = rnd.nextInt(esperada.size());
+                assertSame(esperada.get(i), lista.get(i));
+                assertEquals(i, lista.indexOf(esperada.get(i)));
+            }
+            if (paso % 20_000 == 0) comparar(esperada, lista);
+        }
+        comparar(esperada, lista);
+    }
+
+    @Test
+    void iteradorQuitaYRecorreHaciaAtras() {
+        ListaIndexada<E> lista = new ListaIndexada<>();
+        List<E> esperada = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            E e = new E(i);
+            lista.add(e);
+            esperada.add(e);
+        }
+        lista.remove(10);
+        esperada.remove(10);
+        for (ListIterator<E> it = lista.listIterator(); it.hasNext(); ) {
+            if (it.next().n % 3 == 0) it.remove();
+        }
+        esperada.removeIf(e -> e.n % 3 == 0);
+        comparar(esperada, lista);
+
+        ListIterator<E> it = lista.listIterator(lista.size());
+        for (int i = esperada.size() - 1; i >= 0; i--) {
+            assertEquals(i, it.previousIndex());
+            assertSame(esperada.get(i), it.previous());
+        }
+        assertEquals(esperada.subList(50, 60), lista.subList(50, 60));
+    }
+
+    @Test
+    void rechazaRepetidos() {
+        ListaIndexada<E> lista = new ListaIndexada<>();
+        E a = new E(1), b = new E(2);
+        lista.add(a);
+        lista.add(b);
+        assertThrows(IllegalArgumentException.class, () -> lista.add(a));
+        assertThrows(IllegalArgumentException.class, () -> lista.set(1, a));
+        assertThrows(IllegalArgumentException.class, () -> lista.reemplazar(a, b));
+        lista.add(new E(1));   // igual por contenido: es otro elemento
+        assertEquals(3, lista.size());
+
+        lista.remove(a);
+        lista.add(a);          // tras quitarlo se puede volver a agregar
+        assertSame(a, lista.get(2));
+    }
+}
@@ -0,0 +1,55 @@
+package utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/** MapaIdentidad contra un IdentityHashMap. */
+class MapaIdentidadTest {
+
+    private static void comparar(Map<Object, Integer> esperado, MapaIdentidad<Object> mapa, Object[] universo) {
+        assertEquals(esperado.size(), mapa.size());
+        for (Object k : universo) assertEquals(esperado.getOrDefault(k, -1), mapa.get(k), String.valueOf(k));
+    }
+
+    @Test
+    void operacionesAlAzar() {
+        SplittableRandom rnd = new SplittableRandom(20);
+        // rondas con objetos nuevos: otros hashes de identidad, otros grupos
+        for (int ronda = 0; ronda < 300; ronda++) {
+            // iguales por contenido pero distintos por identidad
+            Object[] universo = new Object[48];
+            for (int i = 0; i < universo.length; i++) universo[i] = new String("k" + i % 8);
+            MapaIdentidad<Object> mapa = new MapaIdentidad<>(2);
+            Map<Object, Integer> esperado = new IdentityHashMap<>();
+            for (int paso = 0; paso < 2_000; paso++) {
+                Object k = universo[rnd.nextInt(universo.length)];
+                if (rnd.nextInt(3) == 0) {
+                    assertEquals(esperado.containsKey(k) ? esperado.remove(k) : -1, mapa.remove(k));
+                } else {
+                    int v = rnd.nextInt(1_000_000);
+                    esperado.put(k, v);
+                    mapa.put(k, v);
+                }
+            }
+            comparar(esperado, mapa, universo);
+
+            mapa.clear();
+            assertEquals(0, mapa.size());
+            assertEquals(-1, mapa.get(universo[0]));
+        }
+    }
+
+    @Test
+    void nullNoEsClave() {
+        MapaIdentidad<Object> mapa = new MapaIdentidad<>();
+        assertThrows(NullPointerException.class, () -> mapa.put(null, 1));
+        assertEquals(-1, mapa.get(null));
+        assertEquals(-1, mapa.remove(null));
+    }
+}
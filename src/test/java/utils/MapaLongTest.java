@@ -0,0 +1,92 @@
+package utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/** MapaLong contra un HashMap, con borrados que obligan a correr claves hacia atrás. */
+class MapaLongTest {
+
+    private static void comparar(Map<Long, Object> esperado, MapaLong<Object> mapa, long[] universo) {
+        assertEquals(esperado.size(), mapa.size());
+        for (long k : universo) {
+            assertSame(esperado.get(k), mapa.get(k), "clave " + k);
+            assertEquals(esperado.containsKey(k), mapa.containsKey(k), "clave " + k);
+        }
+        List<Object> valores = new ArrayList<>();
+        mapa.forEachValue(valores::add);
+        assertEquals(esperado.size(), valores.size());
+        assertEquals(true, esperado.values().containsAll(valores));
+    }
+
+    @Test
+    void operacionesAlAzarConGruposQueDanLaVuelta() {
+        SplittableRandom rnd = new SplittableRandom(20);
+        // muchas rondas con claves nuevas y tabla chica: tarde o temprano un
+        // grupo cruza el final del arreglo y el borrado tiene que dar la vuelta
+        for (int ronda = 0; ronda < 300; ronda++) {
+            long[] universo = new long[48];
+            for (int i = 0; i < universo.length; i++) {
+                long k = rnd.nextLong();
+                universo[i] = k == 0 ? 1 : k;
+            }
+            MapaLong<Object> mapa = new MapaLong<>(4);
+            Map<Long, Object> esperado = new HashMap<>();
+            for (int paso = 0; paso < 2_000; paso++) {
+                long k = universo[rnd.nextInt(universo.length)];
+                if (rnd.nextInt(3) == 0) {
+                    assertSame(esperado.remove(k), mapa.remove(k));
+                } else {
+                    Object v = new Object();
+                    assertSame(esperado.put(k, v), mapa.put(k, v));
+                }
+            }
+            comparar(esperado, mapa, universo);
+
+            for (long k : universo) mapa.remove(k);
+            assertEquals(0, mapa.size());
+            assertEquals(true, mapa.isEmpty());
+        }
+    }
+
+    @Test
+    void quitarEnMedioDeUnGrupoDejaAlcanzablesLosSiguientes() {
+        MapaLong<Object> mapa = new MapaLong<>(1000);
+        Map<Long, Object> esperado = new HashMap<>();
+        long[] universo = new long[1000];
+        for (int i = 0; i < universo.length; i++) {
+            universo[i] = i + 1;
+            Object v = "v" + i;
+            mapa.put(i + 1, v);
+            esperado.put(i + 1L, v);
+        }
+        for (int i = 0; i < universo.length; i += 2) {
+            assertSame(esperado.remove(universo[i]), mapa.remove(universo[i]));
+            assertNull(mapa.remove(universo[i]));
+        }
+        comparar(esperado, mapa, universo);
+    }
+
+    @Test
+    void laClaveCeroEstaReservada() {
+        MapaLong<Object> mapa = new MapaLong<>();
+        assertThrows(IllegalArgumentException.class, () -> mapa.put(0, "x"));
+        assertFalse(mapa.containsKey(0));
+        assertNull(mapa.get(0));
+        assertNull(mapa.remove(0));
+        mapa.put(1, "uno");
+        mapa.clear();
+        assertNull(mapa.get(1));
+        assertEquals(0, mapa.size());
+    }
+}
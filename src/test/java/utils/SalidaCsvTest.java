@@ -0,0 +1,103 @@
+package utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Locale;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/** Formato dígito a dígito de SalidaCsv contra el de la biblioteca estándar. */
+class SalidaCsvTest {
+
+    private interface Escritura { void en(SalidaCsv out) throws IOException; }
+
+    private static String escrito(Escritura e) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (SalidaCsv out = new SalidaCsv(bytes, 64, new Diccionario())) {
+            e.en(out);
+        }
+        return bytes.toString(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void fechaCoincideConLocalDateEntreLosAnios0y9999() throws IOException {
+        // un año por salida: el buffer pequeño obliga a vaciar a mitad de fecha
+        for (int anio = 0; anio <= 9999; anio++) {
+            LocalDate desde = LocalDate.of(anio, 1, 1), hasta = desde.plusYears(1);
+            StringBuilder esperado = new StringBuilder();
+            for (LocalDate f = desde; f.isBefore(hasta); f = f.plusDays(1)) esperado.append(f).append('\n');
+            String obtenido = escrito(out -> {
+                for (LocalDate f = desde; f.isBefore(hasta); f = f.plusDays(1)) {
+                    out.fecha((int) f.toEpochDay()).caracter('\n');
+                }
+            });
+            assertEquals(esperado.toString(), obtenido, "año " + anio);
+        }
+    }
+
+    @Test
+    void fechaFueraDeRangoUsaLocalDate() throws IOException {
+        for (LocalDate f : new LocalDate[] { LocalDate.of(-1, 12, 31), LocalDate.of(10000, 1, 1),
+                                             LocalDate.of(-44, 3, 15), LocalDate.of(12345, 6, 7) }) {
+            assertEquals(f.toString(), escrito(out -> out.fecha((int) f.toEpochDay())));
+        }
+    }
+
+    /* ───────────────────────── decimales ───────────────────────── */
+
+    private static final double[] BORDES = {
+        0.0, -0.0, Double.NaN, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY,
+        Double.MIN_VALUE, Double.MAX_VALUE, 1.0, -1.0, 0.5, 10.0, 100.25,
+        // notación científica de Double.toString por debajo de 1e-3 y desde 1e7
+        1e-3, -1e-3, Math.nextDown(1e-3), Math.nextUp(1e-3), 0.00099, 0.0015, 0.000999999,
+        1e7, -1e7, Math.nextDown(1e7), 9_999_999.0, 9_999_999.5, 9_999_999.999999, 1.5e7,
+        // empates .xx5 (HALF_UP sobre los dígitos decimales más cortos)
+        0.005, 0.015, 0.025, 0.125, 0.375, 1.005, 1.115, 2.675, 10.245, 99.995, 999.9950,
+        -0.005, -1.005, -2.675, -99.995, 0.0049999, 0.00500001,
+        // más de seis decimales, o no representables con pocos dígitos
+        0.1 + 0.2, 1.0 / 3, 2.0 / 3, 123.4567891, 0.1234567, 1234567.891, Math.PI, Math.E
+    };
+
+    @Test
+    void decimalIgualQueDoubleToString() throws IOException {
+        for (double v : BORDES) {
+            assertEquals(Double.toString(v), escrito(out -> out.decimal(v)), () -> "valor " + v);
+        }
+        for (double v : aleatorios()) {
+            assertEquals(Double.toString(v), escrito(out -> out.decimal(v)), () -> "valor " + v);
+        }
+    }
+
+    @Test
+    void dosDecimalesIgualQueFormatDosDecimales() throws IOException {
+        for (double v : BORDES) {
+            assertEquals(String.format(Locale.US, "%.2f", v), escrito(out -> out.dosDecimales(v)),
+                         () -> "valor " + v);
+        }
+        for (double v : aleatorios()) {
+            assertEquals(String.format(Locale.US, "%.2f", v), escrito(out -> out.dosDecimales(v)),
+                         () -> "valor " + v);
+        }
+    }
+
+    /** Superficies y áreas típicas (pocos decimales) y valores cualesquiera en varias escalas. */
+    private static double[] aleatorios() {
+        SplittableRandom r = new SplittableRandom(2024);
+        double[] v = new double[200_000];
+        for (int i = 0; i < v.length; i++) {
+            double signo = r.nextBoolean() ? 1 : -1;
+            switch (i % 4) {
+                case 0:  v[i] = signo * r.nextLong(100_000_000) / 1000.0; break;       // hasta 3 decimales
+                case 1:  v[i] = signo * (r.nextLong(2_000_000) * 10 + 5) / 1000.0; break;   // empates .xx5
+                case 2:  v[i] = signo * r.nextDouble() * Math.pow(10, r.nextInt(-5, 9)); break;
+                default: v[i] = Double.longBitsToDouble(r.nextLong()); break;
+            }
+        }
+        return v;
+    }
+}
@@ -0,0 +1,150 @@
+package utils;
+
+import models.Actividad;
+import models.Cultivo;
+import models.EstadoCultivo;
+import models.Parcela;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/** guardarTemporada y leerTemporada: el zip vuelve a dar el mismo modelo que los CSV sueltos. */
+class TemporadaTest {
+
+    @TempDir Path dir;
+
+    private final Parcela p1 = new Parcela("P1", 10.25, "Norte, \"alto\"");
+    private final Parcela p2 = new Parcela("Ñandú", 3.0, null);
+    private final Parcela suelta = new Parcela("S-9", 1.0, "");   // sólo la refiere un cultivo
+
+    private List<Cultivo> cultivos(int n) {
+        List<Cultivo> cultivos = new ArrayList<>();
+        EstadoCultivo[] estados = EstadoCultivo.values();
+        Parcela[] donde = { p1, p2, suelta, null };
+        for (int i = 0; i < n; i++) {
+            Cultivo c = new Cultivo("Cultivo \"" + i + "\" ñ€", i % 5 == 0 ? null : "Var, " + i % 3, 0.5 * i,
+                                    donde[i % 4], LocalDate.of(2023, 1 + i % 12, 1 + i % 28),
+                                    estados[i % estados.length]);
+            for (int k = 0; k < i % 4; k++) {
+                Actividad a = new Actividad(Actividad.Tipo.values()[k], LocalDate.of(2024, 2, 1 + k));
+                a.setCompletada(k % 2 == 1);
+                c.addActividad(a);
+            }
+            if (c.getParcela() != null) c.getParcela().addCultivo(c);
+            cultivos.add(c);
+        }
+        return cultivos;
+    }
+
+    private static String csv(Collection<Parcela> parcelas, List<Cultivo> cultivos) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (SalidaCsv out = new SalidaCsv(bytes, new Diccionario())) {
+            CSVHandler.escribirParcelas(parcelas, out);
+            CSVHandler.escribirCultivos(cultivos, out);
+            CSVHandler.escribirActividades(cultivos, out);
+        }
+        return bytes.toString(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] entrada(Path zip, String nombre) throws IOException {
+        try (ZipInputStream in = new ZipInputStream(Files.newInputStream(zip))) {
+            for (ZipEntry e; (e = in.getNextEntry()) != null; ) {
+                if (e.getName().equals(nombre)) return in.readAllBytes();
+            }
+        }
+        throw new AssertionError("falta " + nombre);
+    }
+
+    /** Copia las entradas de {@code origen} con otro orden o sin alguna. */
+    private Path rearmar(Path origen, String... entradas) throws IOException {
+        Path destino = dir.resolve("rearmada.zip");
+        try (OutputStream f = Files.newOutputStream(destino); ZipOutputStream zip = new ZipOutputStream(f)) {
+            for (String e : entradas) {
+                zip.putNextEntry(new ZipEntry(e));
+                zip.write(entrada(origen, e));
+                zip.closeEntry();
+            }
+        }
+        return destino;
+    }
+
+    @Test
+    void idaYVueltaConservaElModelo() throws IOException {
+        List<Cultivo> cultivos = cultivos(5_000);   // varias veces el buffer de cada entrada
+        Path zip = dir.resolve("temporada.zip");
+        CSVHandler.guardarTemporada(zip.toString(), List.of(p1, p2), cultivos);
+        Temporada leida = CSVHandler.leerTemporada(zip.toString());
+
+        assertEquals(csv(List.of(p1, p2, suelta), cultivos),
+                     csv(leida.getParcelas().values(), leida.getCultivos()));
+        for (int i = 0; i < cultivos.size(); i++) {
+            Cultivo c = leida.getCultivos().get(i);
+            assertEquals(cultivos.get(i).getId(), c.getId());
+            for (int k = 0; k < c.getActividades().size(); k++) {
+                assertEquals(cultivos.get(i).getActividades().get(k).getId(), c.getActividades().get(k).getId());
+            }
+            if (c.getParcela() != null) {
+                assertSame(leida.getParcelas().get(c.getParcela().getCodigo()), c.getParcela());
+                assertTrue(c.getParcela().getCultivos().contains(c));
+            }
+        }
+        assertEquals(p2.getId(), leida.getParcelas().get("Ñandú").getId());
+    }
+
+    @Test
+    void lasEntradasSonLosMismosCsvQueLosSueltos() throws IOException {
+        List<Cultivo> cultivos = cultivos(300);
+        Path zip = dir.resolve("temporada.zip");
+        CSVHandler.guardarTemporada(zip.toString(), List.of(p1, p2, suelta), cultivos);
+
+        Path parc = dir.resolve("parcelas.csv"), cult = dir.resolve("cultivos.csv"), act = dir.resolve("actividades.csv");
+        CSVHandler.guardarParcelas(List.of(p1, p2, suelta), parc.toString());
+        CSVHandler.guardarCultivos(cultivos, cult.toString());
+        CSVHandler.guardarActividades(act.toString(), cultivos);
+
+        assertEquals(Files.readString(parc), new String(entrada(zip, CSVHandler.ENTRADA_PARCELAS), StandardCharsets.UTF_8));
+        assertEquals(Files.readString(cult), new String(entrada(zip, CSVHandler.ENTRADA_CULTIVOS), StandardCharsets.UTF_8));
+        assertEquals(Files.readString(act), new String(entrada(zip, CSVHandler.ENTRADA_ACTIVIDADES), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void sinActividadesQuedanLasEmbebidasYElOrdenSeRespeta() throws IOException {
+        List<Cultivo> cultivos = cultivos(40);
+        Path zip = dir.resolve("temporada.zip");
+        CSVHandler.guardarTemporada(zip.toString(), List.of(p1, p2), cultivos);
+
+        Temporada sinAct = CSVHandler.leerTemporada(
+            rearmar(zip, CSVHandler.ENTRADA_PARCELAS, CSVHandler.ENTRADA_CULTIVOS).toString());
+        for (int i = 0; i < cultivos.size(); i++) {
+            List<Actividad> esperadas = cultivos.get(i).getActividades();
+            List<Actividad> leidas = sinAct.getCultivos().get(i).getActividades();
+            assertEquals(esperadas.stream().map(a -> a.getId() + ":" + a.isCompletada()).toList(),
+                         leidas.stream().map(a -> a.getId() + ":" + a.isCompletada()).toList());
+        }
+
+        String desordenada = rearmar(zip, CSVHandler.ENTRADA_ACTIVIDADES, CSVHandler.ENTRADA_CULTIVOS).toString();
+        assertThrows(IOException.class, () -> CSVHandler.leerTemporada(desordenada));
+        String sinCultivos = rearmar(zip, CSVHandler.ENTRADA_PARCELAS).toString();
+        assertThrows(IOException.class, () -> CSVHandler.leerTemporada(sinCultivos));
+        String parcelasAlFinal = rearmar(zip, CSVHandler.ENTRADA_CULTIVOS, CSVHandler.ENTRADA_PARCELAS).toString();
+        assertThrows(IOException.class, () -> CSVHandler.leerTemporada(parcelasAlFinal));
+    }
+}